@@ -0,0 +1,95 @@
+package com.example.pgrown30;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.mapper.CitizenServiceMapper;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.Pagination;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import com.example.pgrown30.web.models.Workflow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service requests shaped like production ones (every field set, file and boundary checked),
+ * shared by the benchmarks.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String TENANT = "pg.citya";
+    public static final long CREATED_TIME = 1_760_000_000_000L;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static CitizenService service(int i) {
+        return CitizenService.builder()
+                .serviceRequestId(String.format("PGR-2025-10-%06d", i))
+                .tenantId(TENANT)
+                .serviceCode("StreetLightNotWorking")
+                .description("Street light in front of house no. " + i + " has not been working for a week")
+                .accountId("acc-" + i)
+                .source("Citizen")
+                .applicationStatus("INITIATED")
+                .fileStoreId("fs-" + i)
+                .fileValid(true)
+                .boundaryCode("LOC-" + (i % 100))
+                .boundaryValid(true)
+                .action("APPLY")
+                .workflowInstanceId("wf-" + i)
+                .createdTime(CREATED_TIME + i)
+                .lastModifiedTime(CREATED_TIME + i)
+                .email("citizen" + i + "@example.com")
+                .mobile("98" + String.format("%08d", i))
+                .version(0L)
+                .build();
+    }
+
+    public static CitizenServiceEntity entity(int i) {
+        return CitizenServiceMapper.toEntity(service(i));
+    }
+
+    public static List<CitizenServiceEntity> entities(int count) {
+        List<CitizenServiceEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entities.add(entity(i));
+        }
+        return entities;
+    }
+
+    public static List<CitizenService> services(int count) {
+        List<CitizenService> services = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            services.add(service(i));
+        }
+        return services;
+    }
+
+    // A create request as a client sends it: no ID, status or timestamps yet
+    public static ServiceWrapper createRequest(int i) {
+        CitizenService service = service(i);
+        service.setServiceRequestId(null);
+        service.setApplicationStatus(null);
+        service.setWorkflowInstanceId(null);
+        service.setCreatedTime(null);
+        service.setLastModifiedTime(null);
+        service.setFileValid(null);
+        service.setBoundaryValid(null);
+        service.setVersion(null);
+        return ServiceWrapper.builder()
+                .service(service)
+                .workflow(Workflow.builder().action("APPLY").assignes(List.of()).comments("Raised from the app").build())
+                .build();
+    }
+
+    public static ServiceWrapper searchRequest() {
+        return ServiceWrapper.builder()
+                .service(CitizenService.builder()
+                        .tenantId(TENANT)
+                        .serviceCode("StreetLightNotWorking")
+                        .applicationStatus("INITIATED")
+                        .build())
+                .pagination(Pagination.builder().limit(50).build())
+                .build();
+    }
+}
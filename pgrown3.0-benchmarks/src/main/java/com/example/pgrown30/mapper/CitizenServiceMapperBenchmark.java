@@ -0,0 +1,59 @@
+package com.example.pgrown30.mapper;
+
+import com.example.pgrown30.BenchmarkFixtures;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.web.models.CitizenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * DTO/entity mapping, per request and for a search page (the entity search path maps every row).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CitizenServiceMapperBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private CitizenService dto;
+    private CitizenServiceEntity entity;
+    private List<CitizenServiceEntity> page;
+
+    @Setup
+    public void setUp() {
+        dto = BenchmarkFixtures.service(1);
+        entity = BenchmarkFixtures.entity(1);
+        page = BenchmarkFixtures.entities(PAGE_SIZE);
+    }
+
+    @Benchmark
+    public CitizenServiceEntity toEntity() {
+        return CitizenServiceMapper.toEntity(dto);
+    }
+
+    @Benchmark
+    public CitizenService toDto() {
+        return CitizenServiceMapper.toDto(entity);
+    }
+
+    @Benchmark
+    public List<CitizenService> toDtoPage() {
+        return page.stream().map(CitizenServiceMapper::toDto).collect(Collectors.toList());
+    }
+}
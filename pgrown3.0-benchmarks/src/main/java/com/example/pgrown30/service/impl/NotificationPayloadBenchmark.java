@@ -0,0 +1,74 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.BenchmarkFixtures;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification payload construction: the email and SMS outbox entries of one service request,
+ * and of a bulk-create chunk queued with one saveAll. The outbox repository is an in-process
+ * stub that hands the entries to a Blackhole instead of the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotificationPayloadBenchmark {
+
+    private static final int CHUNK_SIZE = 100;
+
+    private NotificationOutboxWriter writer;
+    private CitizenServiceEntity service;
+    private List<CitizenServiceEntity> chunk;
+    private Blackhole saved;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        saved = blackhole;
+        writer = new NotificationOutboxWriter(stubOutboxRepository());
+        service = BenchmarkFixtures.entity(1);
+        chunk = BenchmarkFixtures.entities(CHUNK_SIZE);
+    }
+
+    @Benchmark
+    public List<NotificationOutboxEntity> buildEntries() {
+        return writer.buildEntries(service);
+    }
+
+    @Benchmark
+    public void enqueueChunk() {
+        writer.enqueueAll(chunk);
+    }
+
+    // saveAll consumes its argument; nothing else is called by the writer
+    private NotificationOutboxRepository stubOutboxRepository() {
+        return (NotificationOutboxRepository) Proxy.newProxyInstance(
+                NotificationOutboxRepository.class.getClassLoader(),
+                new Class<?>[]{NotificationOutboxRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("saveAll")) {
+                        saved.consume(args[0]);
+                        return args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
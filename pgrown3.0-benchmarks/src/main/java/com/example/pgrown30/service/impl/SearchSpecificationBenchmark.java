@@ -0,0 +1,94 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.BenchmarkFixtures;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.SearchCursor;
+import com.example.pgrown30.web.models.CitizenService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Specification building of the entity search path, alone and turned into a criteria query
+ * (what Spring Data does before Hibernate translates it to SQL). The entity model is booted
+ * in-process without a database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchSpecificationBenchmark {
+
+    private EntityManagerFactory entityManagerFactory;
+    private CriteriaBuilder criteriaBuilder;
+
+    private CitizenService criteria;
+    private SearchCursor cursor;
+    private Long from;
+    private Long to;
+
+    @Setup
+    public void setUp() {
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setPackagesToScan("com.example.pgrown30.domain");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.dialect", PostgreSQLDialect.class.getName(),
+                "hibernate.boot.allow_jdbc_metadata_access", false));
+        factory.afterPropertiesSet();
+        entityManagerFactory = factory.getObject();
+        criteriaBuilder = entityManagerFactory.getCriteriaBuilder();
+
+        criteria = BenchmarkFixtures.searchRequest().getService();
+        cursor = SearchCursor.at(BenchmarkFixtures.CREATED_TIME, "PGR-2025-10-000049");
+        from = BenchmarkFixtures.CREATED_TIME - TimeUnit.DAYS.toMillis(90);
+        to = BenchmarkFixtures.CREATED_TIME;
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.close();
+    }
+
+    @Benchmark
+    public Specification<CitizenServiceEntity> buildSpecification() {
+        return specification();
+    }
+
+    @Benchmark
+    public CriteriaQuery<CitizenServiceEntity> buildCriteriaQuery() {
+        CriteriaQuery<CitizenServiceEntity> query = criteriaBuilder.createQuery(CitizenServiceEntity.class);
+        Root<CitizenServiceEntity> root = query.from(CitizenServiceEntity.class);
+        Predicate predicate = specification().toPredicate(root, query, criteriaBuilder);
+        return predicate != null ? query.where(predicate) : query;
+    }
+
+    // Second page of a filtered search, as ServiceServiceImpl builds it
+    private Specification<CitizenServiceEntity> specification() {
+        return SearchSpecifications.filters(criteria, from, to)
+                .and(SearchSpecifications.keysetOrder())
+                .and(SearchSpecifications.after(cursor));
+    }
+}
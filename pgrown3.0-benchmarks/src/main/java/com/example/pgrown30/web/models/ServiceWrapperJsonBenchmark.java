@@ -0,0 +1,74 @@
+package com.example.pgrown30.web.models;
+
+import com.example.pgrown30.BenchmarkFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialisation of the request and response bodies, with an ObjectMapper configured
+ * the way Spring MVC's is (Jackson2ObjectMapperBuilder defaults).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceWrapperJsonBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private ObjectWriter wrapperWriter;
+    private ObjectReader wrapperReader;
+    private ObjectWriter responseWriter;
+
+    private ServiceWrapper createRequest;
+    private byte[] createRequestJson;
+    private ServiceResponse searchResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        wrapperWriter = objectMapper.writerFor(ServiceWrapper.class);
+        wrapperReader = objectMapper.readerFor(ServiceWrapper.class);
+        responseWriter = objectMapper.writerFor(ServiceResponse.class);
+
+        createRequest = BenchmarkFixtures.createRequest(1);
+        createRequestJson = wrapperWriter.writeValueAsBytes(createRequest);
+        searchResponse = ServiceResponse.builder()
+                .services(BenchmarkFixtures.services(PAGE_SIZE))
+                .responseInfo(ResponseInfo.builder().apiId("pgr-services").ver("1.0").status("successful").build())
+                .pagination(Pagination.builder().limit(PAGE_SIZE).nextCursor("MTc2MDAwMDAwMDA0OTpQR1ItMjAyNS0xMC0wMDAwNDk").build())
+                .build();
+    }
+
+    @Benchmark
+    public ServiceWrapper readCreateRequest() throws IOException {
+        return wrapperReader.readValue(createRequestJson);
+    }
+
+    @Benchmark
+    public byte[] writeCreateRequest() throws IOException {
+        return wrapperWriter.writeValueAsBytes(createRequest);
+    }
+
+    @Benchmark
+    public byte[] writeSearchResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(searchResponse);
+    }
+}
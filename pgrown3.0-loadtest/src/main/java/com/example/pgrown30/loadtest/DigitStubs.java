@@ -0,0 +1,116 @@
+package com.example.pgrown30.loadtest;
+
+import com.example.pgrown30.loadtest.LoadTestSettings.DownstreamProfile;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+/**
+ * WireMock stand-ins for the DIGIT services, one server per downstream so each has its own
+ * latency and error rate. They answer just enough for create, update and search to succeed:
+ * <ul>
+ *   <li>idgen: a fresh random id per call</li>
+ *   <li>boundary: every requested code exists</li>
+ *   <li>filestore: every file exists, 1 KiB</li>
+ *   <li>workflow: transitions start an instance in INITIATED; every process exists</li>
+ *   <li>notification: email and SMS are accepted</li>
+ * </ul>
+ * The request journal is off: nothing is verified, and it would grow for the whole run.
+ */
+@Slf4j
+final class DigitStubs implements AutoCloseable {
+
+    private final Map<String, WireMockServer> servers = new LinkedHashMap<>();
+
+    DigitStubs(LoadTestSettings settings) {
+        for (String name : LoadTestSettings.DOWNSTREAMS) {
+            DownstreamProfile profile = settings.downstream(name);
+            WireMockServer server = new WireMockServer(options()
+                    .dynamicPort()
+                    .containerThreads(64)
+                    .asynchronousResponseEnabled(true)
+                    .asynchronousResponseThreads(32)
+                    .disableRequestJournal()
+                    .globalTemplating(true)
+                    .withTemplateEscapingDisabled(true)
+                    .notifier(new Slf4jNotifier(false))
+                    .extensions(new ErrorInjection(profile.errorRate())));
+            servers.put(name, server);
+        }
+    }
+
+    void start() {
+        servers.forEach((name, server) -> {
+            server.start();
+            log.info("{} stand-in on port {}", name, server.port());
+        });
+    }
+
+    void stub(LoadTestSettings settings) {
+        String tenant = settings.get("loadtest.tenant");
+
+        servers.get("idgen").stubFor(post(urlPathEqualTo("/idgen/v1/generate"))
+                .willReturn(respond(settings, "idgen",
+                        "{\"id\":\"PGR-LT-{{randomValue length=16 type='ALPHANUMERIC' uppercase=true}}\"}")));
+
+        servers.get("boundary").stubFor(get(urlPathEqualTo("/boundary/v1"))
+                .willReturn(respond(settings, "boundary",
+                        "{\"boundary\":[{{#each request.query.codes}}"
+                                + "{\"id\":\"{{randomValue type='UUID'}}\",\"tenantId\":\"" + tenant + "\",\"code\":\"{{this}}\"}"
+                                + "{{#unless @last}},{{/unless}}{{/each}}]}")));
+
+        // Metadata lookup and the by-id fallback
+        servers.get("filestore").stubFor(get(urlPathMatching("/filestore/v1/files/.*"))
+                .willReturn(respond(settings, "filestore",
+                        "{\"fileStoreId\":\"{{request.query.fileStoreId}}\",\"tenantId\":\"" + tenant + "\","
+                                + "\"fileSize\":1024,\"contentType\":\"image/png\"}")));
+
+        servers.get("workflow").stubFor(post(urlPathEqualTo("/workflow/v1/transition"))
+                .willReturn(respond(settings, "workflow",
+                        "{\"id\":\"{{randomValue type='UUID'}}\","
+                                + "\"processId\":\"{{jsonPath request.body '$.processId'}}\","
+                                + "\"entityId\":\"{{jsonPath request.body '$.entityId'}}\","
+                                + "\"action\":\"{{jsonPath request.body '$.action'}}\","
+                                + "\"status\":\"ACTIVE\",\"currentState\":\"INITIATED\"}")));
+        servers.get("workflow").stubFor(get(urlPathMatching("/workflow/v1/process/[^/]+"))
+                .willReturn(respond(settings, "workflow",
+                        "{\"id\":\"{{request.path.[3]}}\",\"tenantId\":\"" + tenant + "\",\"name\":\"PGR\",\"code\":\"PGR\"}")));
+
+        // Both the v1 paths of the DIGIT client and the service's own notification.*.endpoint ones
+        servers.get("notification").stubFor(post(urlPathMatching("/notification/.*send"))
+                .willReturn(respond(settings, "notification", "{\"status\":\"SUCCESS\"}")));
+    }
+
+    int port(String downstream) {
+        return servers.get(downstream).port();
+    }
+
+    String baseUrl(String downstream) {
+        return "http://localhost:" + port(downstream);
+    }
+
+    private static ResponseDefinitionBuilder respond(LoadTestSettings settings, String downstream, String body) {
+        DownstreamProfile profile = settings.downstream(downstream);
+        ResponseDefinitionBuilder response = okJson(body);
+        if (profile.medianMs() > 0) {
+            response.withLogNormalRandomDelay(profile.medianMs(), profile.sigma());
+        }
+        return response;
+    }
+
+    @Override
+    public void close() {
+        servers.values().forEach(WireMockServer::stop);
+    }
+}
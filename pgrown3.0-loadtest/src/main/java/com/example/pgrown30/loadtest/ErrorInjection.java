@@ -0,0 +1,38 @@
+package com.example.pgrown30.loadtest;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Turns a share of a stand-in's responses into 503s, keeping the stub's delay so a failing
+ * call costs the service as much time as a successful one.
+ */
+final class ErrorInjection implements ResponseDefinitionTransformerV2 {
+
+    private final double errorRate;
+
+    ErrorInjection(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    @Override
+    public ResponseDefinition transform(ServeEvent serveEvent) {
+        ResponseDefinition response = serveEvent.getResponseDefinition();
+        if (errorRate <= 0 || ThreadLocalRandom.current().nextDouble() >= errorRate) return response;
+
+        return ResponseDefinitionBuilder.like(response).but()
+                .withStatus(503)
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"error\":\"injected by load test\"}")
+                .build();
+    }
+
+    @Override
+    public String getName() {
+        return "error-injection";
+    }
+}
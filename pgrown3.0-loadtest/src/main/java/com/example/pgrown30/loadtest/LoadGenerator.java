@@ -0,0 +1,146 @@
+package com.example.pgrown30.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load: each operation has a schedule of one request every 1/rate seconds, and a
+ * request is sent when it is due whatever happened to the earlier ones. Latency is taken from
+ * the due time, so a service that falls behind shows it in the percentiles instead of quietly
+ * being sent less (coordinated omission). Requests due while loadtest.max-in-flight are still
+ * outstanding are dropped and counted.
+ * <p>
+ * Only requests due after the warmup are counted; latency is recorded for 2xx responses only,
+ * so fast failures don't flatter the percentiles.
+ */
+@Slf4j
+final class LoadGenerator {
+
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    LoadGenerator(HttpClient httpClient, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * One kind of request at a fixed rate. The request supplier may return null when there is
+     * nothing to send yet (an update before anything was created); that slot is skipped.
+     */
+    record Operation(String name, double rate, Supplier<HttpRequest> request, Consumer<HttpResponse<String>> onSuccess) {
+    }
+
+    List<OperationResult> run(List<Operation> operations, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        List<OperationStats> stats = new ArrayList<>();
+        List<Thread> schedulers = new ArrayList<>();
+        for (Operation operation : operations) {
+            if (operation.rate() <= 0) continue;
+            OperationStats operationStats = new OperationStats(operation);
+            stats.add(operationStats);
+            Thread scheduler = new Thread(() -> schedule(operationStats, start, measureFrom, end), "loadtest-" + operation.name());
+            scheduler.start();
+            schedulers.add(scheduler);
+        }
+        log.info("Warming up for {}s, then measuring for {}s", warmup.toSeconds(), duration.toSeconds());
+        for (Thread scheduler : schedulers) {
+            scheduler.join();
+        }
+
+        // Let the last requests finish (or time out) so they are counted
+        if (!inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+            log.warn("{} requests still outstanding after the run", maxInFlight - inFlight.availablePermits());
+        } else {
+            inFlight.release(maxInFlight);
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        return stats.stream().map(operationStats -> operationStats.result(seconds)).toList();
+    }
+
+    private void schedule(OperationStats stats, long start, long measureFrom, long end) {
+        long interval = (long) (1e9 / stats.operation.rate());
+        for (long due = start; due < end; due += interval) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            send(stats, due, due >= measureFrom);
+        }
+    }
+
+    private void send(OperationStats stats, long due, boolean measured) {
+        HttpRequest request = stats.operation.request().get();
+        if (request == null) {
+            if (measured) stats.skipped.increment();
+            return;
+        }
+        if (!inFlight.tryAcquire()) {
+            if (measured) stats.dropped.increment();
+            return;
+        }
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, failure) -> {
+                    inFlight.release();
+                    long latency = System.nanoTime() - due;
+                    if (response != null && response.statusCode() / 100 == 2) {
+                        stats.operation.onSuccess().accept(response);
+                    }
+                    if (!measured) return;
+                    if (failure != null) {
+                        stats.failed.increment();
+                    } else {
+                        stats.statuses.computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+                        if (response.statusCode() / 100 == 2) {
+                            stats.latency.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latency), OperationStats.MAX_MICROS));
+                        }
+                    }
+                });
+    }
+
+    private static final class OperationStats {
+
+        // One minute, in microseconds; anything slower is recorded as that
+        static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+        final Operation operation;
+        final Recorder latency = new Recorder(MAX_MICROS, 3);
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+
+        OperationStats(Operation operation) {
+            this.operation = operation;
+        }
+
+        OperationResult result(double seconds) {
+            Map<Integer, Long> byStatus = new TreeMap<>();
+            statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+            Histogram histogram = latency.getIntervalHistogram();
+            return new OperationResult(operation.name(), operation.rate(), seconds, histogram, byStatus,
+                    failed.sum(), dropped.sum(), skipped.sum());
+        }
+    }
+}
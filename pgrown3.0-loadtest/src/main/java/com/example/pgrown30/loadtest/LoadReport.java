@@ -0,0 +1,115 @@
+package com.example.pgrown30.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The outcome of a run as written to report.json, which is also the baseline format: a
+ * baseline is the report of an earlier run, kept to compare later runs against.
+ */
+record LoadReport(String startedAt, String profile, String gitRevision, long warmupSeconds, long durationSeconds,
+                  Map<String, Object> downstreams, List<OperationSummary> operations) {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    record OperationSummary(String name, double targetRate, long requests, long succeeded, double throughput,
+                            double errorRate, Map<String, Long> statuses, long failed, long dropped, long skipped,
+                            Map<String, Double> latencyMs) {
+    }
+
+    void write(Path file) throws IOException {
+        OBJECT_MAPPER.writeValue(file.toFile(), this);
+    }
+
+    static LoadReport read(Path file) throws IOException {
+        return OBJECT_MAPPER.readValue(file.toFile(), LoadReport.class);
+    }
+
+    OperationSummary operation(String name) {
+        return operations.stream().filter(operation -> operation.name().equals(name)).findFirst().orElse(null);
+    }
+
+    void print(PrintStream out) {
+        out.printf("Profile %s, %ds measured after %ds warmup%n%n", profile, durationSeconds, warmupSeconds);
+        out.printf("%-8s %8s %8s %8s %8s %8s %9s %9s %9s %9s %9s%n",
+                "", "target/s", "ok/s", "requests", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (OperationSummary operation : operations) {
+            out.printf(Locale.ROOT, "%-8s %8.1f %8.1f %8d %7.2f%% %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    operation.name(), operation.targetRate(), operation.throughput(), operation.requests(),
+                    operation.errorRate() * 100, operation.dropped(),
+                    operation.latencyMs().get("p50"), operation.latencyMs().get("p90"), operation.latencyMs().get("p99"),
+                    operation.latencyMs().get("p999"), operation.latencyMs().get("max"));
+        }
+        for (OperationSummary operation : operations) {
+            out.printf("%-8s statuses %s, no response %d, skipped %d%n",
+                    operation.name(), operation.statuses(), operation.failed(), operation.skipped());
+        }
+    }
+
+    /**
+     * Compares this run with a baseline, operation by operation. Latency may grow by
+     * latency-tolerance and throughput drop by throughput-tolerance (both relative), the error
+     * rate may grow by error-rate-tolerance (absolute). Returns the regressions, printing every
+     * comparison.
+     */
+    List<String> compare(LoadReport baseline, LoadTestSettings settings, PrintStream out) {
+        double latencyTolerance = settings.getDouble("loadtest.baseline.latency-tolerance");
+        double throughputTolerance = settings.getDouble("loadtest.baseline.throughput-tolerance");
+        double errorRateTolerance = settings.getDouble("loadtest.baseline.error-rate-tolerance");
+
+        out.printf("%nAgainst baseline of %s (%s, profile %s)%n", baseline.startedAt(), baseline.gitRevision(), baseline.profile());
+        if (!baseline.profile().equals(profile)) {
+            out.println("Warning: the baseline was taken with a different profile");
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (OperationSummary current : operations) {
+            OperationSummary before = baseline.operation(current.name());
+            if (before == null) {
+                out.printf("%-8s not in baseline%n", current.name());
+                continue;
+            }
+            if (before.targetRate() != current.targetRate()) {
+                out.printf("%-8s target rate changed %.1f -> %.1f/s, not compared%n",
+                        current.name(), before.targetRate(), current.targetRate());
+                continue;
+            }
+            for (String percentile : List.of("p50", "p99")) {
+                double was = before.latencyMs().get(percentile);
+                double now = current.latencyMs().get(percentile);
+                boolean worse = now > was * (1 + latencyTolerance);
+                out.printf(Locale.ROOT, "%-8s %-10s %9.1f -> %9.1f ms %+7.1f%%%s%n", current.name(), percentile,
+                        was, now, change(was, now), worse ? "  REGRESSION" : "");
+                if (worse) regressions.add(current.name() + " " + percentile + " latency " + was + " -> " + now + " ms");
+            }
+
+            boolean slower = current.throughput() < before.throughput() * (1 - throughputTolerance);
+            out.printf(Locale.ROOT, "%-8s %-10s %9.1f -> %9.1f /s %+7.1f%%%s%n", current.name(), "throughput",
+                    before.throughput(), current.throughput(), change(before.throughput(), current.throughput()),
+                    slower ? "  REGRESSION" : "");
+            if (slower) {
+                regressions.add(current.name() + " throughput " + before.throughput() + " -> " + current.throughput() + "/s");
+            }
+
+            boolean moreErrors = current.errorRate() > before.errorRate() + errorRateTolerance;
+            out.printf(Locale.ROOT, "%-8s %-10s %8.2f%% -> %8.2f%%%s%n", current.name(), "errors",
+                    before.errorRate() * 100, current.errorRate() * 100, moreErrors ? "  REGRESSION" : "");
+            if (moreErrors) {
+                regressions.add(current.name() + " error rate " + before.errorRate() + " -> " + current.errorRate());
+            }
+        }
+        return regressions;
+    }
+
+    private static double change(double was, double now) {
+        return was == 0 ? 0 : (now - was) / was * 100;
+    }
+}
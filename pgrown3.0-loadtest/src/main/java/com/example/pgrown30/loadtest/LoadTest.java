@@ -0,0 +1,149 @@
+package com.example.pgrown30.loadtest;
+
+import com.example.pgrown30.loadtest.LoadGenerator.Operation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test of the service: starts Postgres, the DIGIT stand-ins and the service,
+ * drives create, update and search at fixed rates, and writes the report to
+ * loadtest.output-dir/&lt;timestamp&gt;/ (report.json and report.txt, a latency distribution per
+ * operation as .hgrm, the service's Prometheus metrics and its log). With
+ * loadtest.app.pinning-check=true the service also runs under a flight recording, and the run
+ * fails if any of its virtual threads was pinned.
+ * <p>
+ * If loadtest.baseline exists the run is compared with it, and fails on a regression; with
+ * loadtest.baseline.write=true the run replaces it instead.
+ */
+@Slf4j
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.load();
+        LocalDateTime startedAt = LocalDateTime.now().withNano(0);
+        Path reportDir = settings.path("loadtest.output-dir")
+                .resolve(startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Files.createDirectories(reportDir);
+
+        List<OperationResult> results;
+        try (LoadTestDatabase database = LoadTestDatabase.start(settings);
+             DigitStubs stubs = new DigitStubs(settings)) {
+            stubs.start();
+            stubs.stub(settings);
+            try (PgrApp app = PgrApp.start(settings, database, stubs, reportDir)) {
+                results = drive(settings, app);
+                app.savePrometheus(reportDir.resolve("prometheus.txt"));
+            }
+        }
+
+        for (OperationResult result : results) {
+            try (PrintStream out = new PrintStream(reportDir.resolve(result.name() + ".hgrm").toFile(), StandardCharsets.UTF_8)) {
+                // Recorded in microseconds, written in milliseconds
+                result.latency().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+
+        Map<String, Object> downstreams = new LinkedHashMap<>();
+        for (String downstream : LoadTestSettings.DOWNSTREAMS) {
+            downstreams.put(downstream, settings.downstream(downstream));
+        }
+        LoadReport report = new LoadReport(startedAt.toString(), settings.get("loadtest.profile"), gitRevision(settings),
+                settings.getInt("loadtest.warmup-seconds"), settings.getInt("loadtest.duration-seconds"),
+                downstreams, results.stream().map(OperationResult::summary).toList());
+        report.write(reportDir.resolve("report.json"));
+
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(text, true, StandardCharsets.UTF_8);
+        report.print(out);
+
+        long pinned = 0;
+        if (settings.getBoolean("loadtest.app.pinning-check")) {
+            pinned = PinnedThreads.report(reportDir.resolve("app.jfr"), reportDir.resolve("pinned.txt"));
+            out.printf("%nPinned virtual threads: %s%n",
+                    pinned < 0 ? "not recorded, the service must run on JDK 21+" : pinned + ", see pinned.txt");
+        }
+
+        Path baseline = settings.path("loadtest.baseline");
+        List<String> regressions = List.of();
+        if (settings.getBoolean("loadtest.baseline.write")) {
+            report.write(baseline);
+            out.printf("%nWrote baseline %s%n", baseline);
+        } else if (Files.isRegularFile(baseline)) {
+            regressions = report.compare(LoadReport.read(baseline), settings, out);
+        } else {
+            out.printf("%nNo baseline at %s; -Dloadtest.baseline.write=true makes this run the baseline%n", baseline);
+        }
+
+        String summary = text.toString(StandardCharsets.UTF_8);
+        Files.writeString(reportDir.resolve("report.txt"), summary);
+        log.info("Report in {}{}{}", reportDir, System.lineSeparator(), summary);
+
+        if (!regressions.isEmpty() && settings.getBoolean("loadtest.baseline.fail-on-regression")) {
+            throw new IllegalStateException("Regressed against the baseline: " + String.join("; ", regressions));
+        }
+        if (pinned > 0) {
+            throw new IllegalStateException(pinned + " virtual threads were pinned, see " + reportDir.resolve("pinned.txt"));
+        }
+    }
+
+    private static List<OperationResult> drive(LoadTestSettings settings, PgrApp app) throws InterruptedException {
+        ExecutorService responses = Executors.newFixedThreadPool(8);
+        try {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(responses)
+                    .build();
+            PgrScenario scenario = new PgrScenario(app.baseUrl(), settings);
+            LoadGenerator generator = new LoadGenerator(httpClient, settings.getInt("loadtest.max-in-flight"));
+
+            return generator.run(List.of(
+                            new Operation("create", settings.getDouble("loadtest.rate.create"), scenario::create, scenario::onCreated),
+                            new Operation("update", settings.getDouble("loadtest.rate.update"), scenario::update, response -> { }),
+                            new Operation("search", settings.getDouble("loadtest.rate.search"), scenario::search, response -> { })),
+                    Duration.ofSeconds(settings.getInt("loadtest.warmup-seconds")),
+                    Duration.ofSeconds(settings.getInt("loadtest.duration-seconds")));
+        } finally {
+            responses.shutdownNow();
+            responses.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    // Which build the numbers belong to, so a baseline says what it was taken from
+    private static String gitRevision(LoadTestSettings settings) {
+        String revision = settings.getOrEmpty("loadtest.revision");
+        if (!revision.isEmpty()) return revision;
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .directory(settings.baseDir().toFile())
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 ? output : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
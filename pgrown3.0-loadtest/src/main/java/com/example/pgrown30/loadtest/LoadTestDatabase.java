@@ -0,0 +1,62 @@
+package com.example.pgrown30.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * The service's database: a throwaway Testcontainers Postgres, or the one at loadtest.jdbc-url.
+ * An external database should be empty; Flyway migrates it when the service starts.
+ */
+@Slf4j
+final class LoadTestDatabase implements AutoCloseable {
+
+    private final PostgreSQLContainer<?> container;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    private LoadTestDatabase(PostgreSQLContainer<?> container, String jdbcUrl, String username, String password) {
+        this.container = container;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    static LoadTestDatabase start(LoadTestSettings settings) {
+        String jdbcUrl = settings.getOrEmpty("loadtest.jdbc-url");
+        if (!jdbcUrl.isEmpty()) {
+            log.info("Using database {}", jdbcUrl);
+            return new LoadTestDatabase(null, jdbcUrl,
+                    settings.get("loadtest.jdbc-username"), settings.get("loadtest.jdbc-password"));
+        }
+
+        PostgreSQLContainer<?> container = new PostgreSQLContainer<>(
+                DockerImageName.parse(settings.get("loadtest.postgres-image")).asCompatibleSubstituteFor("postgres"))
+                .withDatabaseName("pgrown")
+                .withUsername(settings.get("loadtest.jdbc-username"))
+                .withPassword(settings.get("loadtest.jdbc-password"));
+        container.start();
+        log.info("Started {} at {}", container.getDockerImageName(), container.getJdbcUrl());
+        // As in application.properties, so multi-row inserts are batched as they are in production
+        String url = container.getJdbcUrl() + (container.getJdbcUrl().contains("?") ? "&" : "?") + "reWriteBatchedInserts=true";
+        return new LoadTestDatabase(container, url, container.getUsername(), container.getPassword());
+    }
+
+    String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String password() {
+        return password;
+    }
+
+    @Override
+    public void close() {
+        if (container != null) container.stop();
+    }
+}
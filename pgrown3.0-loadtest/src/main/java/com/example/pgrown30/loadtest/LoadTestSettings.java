@@ -0,0 +1,106 @@
+package com.example.pgrown30.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a run: loadtest.properties, then the selected profile, then -D system properties.
+ * Relative paths resolve against loadtest.basedir (the module directory under exec:java).
+ */
+final class LoadTestSettings {
+
+    static final List<String> DOWNSTREAMS = List.of("idgen", "boundary", "filestore", "workflow", "notification");
+
+    private static final String APP_PROPERTY_PREFIX = "loadtest.app.property.";
+
+    private final Properties properties;
+    private final Path baseDir;
+
+    private LoadTestSettings(Properties properties) {
+        this.properties = properties;
+        this.baseDir = Path.of(properties.getProperty("loadtest.basedir", ".")).toAbsolutePath().normalize();
+    }
+
+    static LoadTestSettings load() {
+        Properties properties = new Properties();
+        read(properties, "loadtest.properties");
+        String profile = System.getProperty("loadtest.profile", properties.getProperty("loadtest.profile"));
+        read(properties, "profiles/" + profile + ".properties");
+        properties.putAll(System.getProperties());
+        properties.setProperty("loadtest.profile", profile);
+        return new LoadTestSettings(properties);
+    }
+
+    private static void read(Properties properties, String resource) {
+        try (InputStream in = LoadTestSettings.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalArgumentException("No such load test resource: " + resource);
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + resource, e);
+        }
+    }
+
+    String get(String key) {
+        String value = properties.getProperty(key);
+        if (value == null) throw new IllegalArgumentException("Missing load test setting " + key);
+        return value.trim();
+    }
+
+    String getOrEmpty(String key) {
+        return properties.getProperty(key, "").trim();
+    }
+
+    int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    double getDouble(String key) {
+        return Double.parseDouble(get(key));
+    }
+
+    boolean getBoolean(String key) {
+        return Boolean.parseBoolean(get(key));
+    }
+
+    Path baseDir() {
+        return baseDir;
+    }
+
+    Path path(String key) {
+        return baseDir.resolve(get(key)).normalize();
+    }
+
+    List<String> list(String key) {
+        String value = getOrEmpty(key);
+        return value.isEmpty() ? List.of() : Arrays.asList(value.split("\\s+"));
+    }
+
+    DownstreamProfile downstream(String name) {
+        String prefix = "loadtest.downstream." + name + ".";
+        return new DownstreamProfile(name,
+                getInt(prefix + "median-ms"), getDouble(prefix + "sigma"), getDouble(prefix + "error-rate"));
+    }
+
+    // loadtest.app.property.<name>=<value> entries, passed to the service as --<name>=<value>
+    Map<String, String> appProperties() {
+        Map<String, String> result = new LinkedHashMap<>();
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(APP_PROPERTY_PREFIX))
+                .sorted()
+                .forEach(key -> result.put(key.substring(APP_PROPERTY_PREFIX.length()), get(key)));
+        return result;
+    }
+
+    /**
+     * How a stand-in answers: a log-normal delay around the median (none if it is 0) and a
+     * share of 503 responses.
+     */
+    record DownstreamProfile(String name, int medianMs, double sigma, double errorRate) {
+    }
+}
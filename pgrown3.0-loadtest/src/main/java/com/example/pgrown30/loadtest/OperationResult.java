@@ -0,0 +1,51 @@
+package com.example.pgrown30.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What one operation measured: latency of its 2xx responses in microseconds, responses by
+ * status, and requests that got no response (failed), were never sent (dropped) or had
+ * nothing to send (skipped).
+ */
+record OperationResult(String name, double targetRate, double seconds, Histogram latency,
+                       Map<Integer, Long> statuses, long failed, long dropped, long skipped) {
+
+    long succeeded() {
+        return statuses.entrySet().stream().filter(e -> e.getKey() / 100 == 2).mapToLong(Map.Entry::getValue).sum();
+    }
+
+    // Due requests that were not skipped: the ones the service was expected to serve
+    long requests() {
+        return statuses.values().stream().mapToLong(Long::longValue).sum() + failed + dropped;
+    }
+
+    LoadReport.OperationSummary summary() {
+        long requests = requests();
+        long succeeded = succeeded();
+        Map<String, Double> latencyMs = new LinkedHashMap<>();
+        latencyMs.put("p50", millis(latency.getValueAtPercentile(50)));
+        latencyMs.put("p90", millis(latency.getValueAtPercentile(90)));
+        latencyMs.put("p99", millis(latency.getValueAtPercentile(99)));
+        latencyMs.put("p999", millis(latency.getValueAtPercentile(99.9)));
+        latencyMs.put("max", millis(latency.getMaxValue()));
+        latencyMs.put("mean", round(latency.getMean() / 1000.0));
+
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        statuses.forEach((status, count) -> byStatus.put(String.valueOf(status), count));
+
+        return new LoadReport.OperationSummary(name, targetRate, requests, succeeded,
+                round(succeeded / seconds), requests == 0 ? 0 : round((double) (requests - succeeded) / requests),
+                byStatus, failed, dropped, skipped, latencyMs);
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.pgrown30.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The service under test, started from its exec jar in a JVM of its own and pointed at the
+ * database and the DIGIT stand-ins. Its console output goes to app.log in the report directory.
+ */
+@Slf4j
+final class PgrApp implements AutoCloseable {
+
+    private final Process process;
+    private final int port;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private PgrApp(Process process, int port) {
+        this.process = process;
+        this.port = port;
+    }
+
+    static PgrApp start(LoadTestSettings settings, LoadTestDatabase database, DigitStubs stubs, Path reportDir) throws IOException {
+        Path jar = settings.path("loadtest.app.jar");
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("Service jar not found at " + jar
+                    + "; build it with mvn -pl pgrown3.0_copy package -DskipTests, or set loadtest.app.jar");
+        }
+        int port = freePort();
+
+        List<String> command = new ArrayList<>();
+        String javaHome = settings.getOrEmpty("loadtest.app.java-home");
+        command.add(Path.of(javaHome.isEmpty() ? System.getProperty("java.home") : javaHome, "bin", "java").toString());
+        command.addAll(settings.list("loadtest.app.jvm-args"));
+        if (settings.getBoolean("loadtest.app.pinning-check")) {
+            command.addAll(PinnedThreads.recordingArgs(reportDir.resolve("app.jfr")));
+        }
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=" + database.jdbcUrl());
+        command.add("--spring.datasource.username=" + database.username());
+        command.add("--spring.datasource.password=" + database.password());
+        for (String downstream : LoadTestSettings.DOWNSTREAMS) {
+            command.add("--" + downstream + ".host=" + stubs.baseUrl(downstream));
+            command.add("--digit.services." + downstream + ".base-url=" + stubs.baseUrl(downstream));
+        }
+        for (Map.Entry<String, String> property : settings.appProperties().entrySet()) {
+            command.add("--" + property.getKey() + "=" + property.getValue());
+        }
+
+        Path appLog = reportDir.resolve("app.log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(appLog.toFile())
+                .start();
+        log.info("Started service (pid {}) on port {}, log in {}", process.pid(), port, appLog);
+
+        PgrApp app = new PgrApp(process, port);
+        try {
+            app.awaitHealthy(Duration.ofSeconds(settings.getInt("loadtest.app.startup-timeout-seconds")));
+        } catch (RuntimeException e) {
+            app.close();
+            throw e;
+        }
+        return app;
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    /**
+     * The service's own view of the run (request, downstream, JDBC and pool metrics), saved next
+     * to the report.
+     */
+    void savePrometheus(Path file) {
+        try {
+            HttpResponse<Path> response = httpClient.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/prometheus")).timeout(Duration.ofSeconds(10)).build(),
+                    HttpResponse.BodyHandlers.ofFile(file));
+            if (response.statusCode() != 200) log.warn("Prometheus scrape answered {}", response.statusCode());
+        } catch (IOException e) {
+            log.warn("Could not save Prometheus metrics: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitHealthy(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2)).build();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Service exited with " + process.exitValue() + " during startup, see app.log");
+            }
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    log.info("Service is up");
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the service", e);
+            }
+            sleep(500);
+        }
+        throw new IllegalStateException("Service not healthy after " + timeout.toSeconds() + "s, see app.log");
+    }
+
+    // SIGTERM first, so the service drains and stops as it would in a deployment
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                log.warn("Service did not stop within 30s, killing it");
+                process.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pgrown30.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The requests of a run: creates across a spread of service codes and boundaries, blind updates
+ * (no version, so the service retries conflicts) of requests this run created, and first-page
+ * searches by tenant and service code.
+ */
+@Slf4j
+final class PgrScenario {
+
+    private static final List<String> SERVICE_CODES = List.of(
+            "StreetLightNotWorking", "GarbageNeedsTobeCleared", "WaterLogging", "BrokenPipe", "NoWaterSupply");
+    private static final int BOUNDARIES = 200;
+    // Recently created ids; updates pick from these
+    private static final int CREATED_IDS = 10_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String tenant;
+    private final int searchLimit;
+    private final Duration timeout;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicReferenceArray<String> createdIds = new AtomicReferenceArray<>(CREATED_IDS);
+    private final AtomicLong createdCount = new AtomicLong();
+
+    PgrScenario(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.tenant = settings.get("loadtest.tenant");
+        this.searchLimit = settings.getInt("loadtest.search.limit");
+        this.timeout = Duration.ofMillis(settings.getInt("loadtest.request-timeout-ms"));
+    }
+
+    HttpRequest create() {
+        long n = sequence.incrementAndGet();
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("CitizenService")
+                .put("tenantId", tenant)
+                .put("serviceCode", serviceCode(n))
+                .put("description", "Load test request " + n)
+                .put("accountId", "lt-account-" + (n % 1000))
+                .put("source", "web")
+                .put("boundaryCode", "LT-LOC-" + (n % BOUNDARIES))
+                .put("fileStoreId", UUID.randomUUID().toString())
+                .put("email", "citizen" + (n % 1000) + "@example.org")
+                .put("mobile", String.valueOf(9_000_000_000L + n % 1000));
+        body.putObject("Workflow").put("action", "APPLY");
+        return post("/citizen-service/create", body);
+    }
+
+    /**
+     * An update of a request created earlier in the run, or null if none has been yet.
+     */
+    HttpRequest update() {
+        long created = createdCount.get();
+        if (created == 0) return null;
+        long n = sequence.incrementAndGet();
+        String id = createdIds.get((int) (ThreadLocalRandom.current().nextLong(Math.min(created, CREATED_IDS))));
+
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("CitizenService")
+                .put("serviceRequestId", id)
+                .put("tenantId", tenant)
+                .put("description", "Load test update " + n)
+                // The update notification goes to the email given with the update
+                .put("email", "citizen" + (n % 1000) + "@example.org");
+        body.putObject("Workflow").put("action", "ASSIGN");
+        return post("/citizen-service/update", body);
+    }
+
+    HttpRequest search() {
+        long n = sequence.incrementAndGet();
+        ObjectNode body = objectMapper.createObjectNode();
+        body.putObject("CitizenService")
+                .put("tenantId", tenant)
+                .put("serviceCode", serviceCode(n));
+        body.putObject("Pagination").put("limit", searchLimit);
+        return post("/citizen-service/search", body);
+    }
+
+    void onCreated(HttpResponse<String> response) {
+        try {
+            JsonNode id = objectMapper.readTree(response.body()).path("services").path(0).path("serviceRequestId");
+            if (id.isTextual()) {
+                long index = createdCount.getAndIncrement();
+                createdIds.set((int) (index % CREATED_IDS), id.asText());
+            }
+        } catch (Exception e) {
+            log.warn("Unreadable create response: {}", e.getMessage());
+        }
+    }
+
+    private HttpRequest post(String path, ObjectNode body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-Tenant-ID", tenant)
+                .header("X-Correlation-ID", UUID.randomUUID().toString())
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private static String serviceCode(long n) {
+        return SERVICE_CODES.get((int) (n % SERVICE_CODES.size()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pgrown30.loadtest;
+
+import jdk.jfr.EventType;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Pinning check for virtual-thread runs: reads the service's flight recording (app.jfr) and
+ * reports every jdk.VirtualThreadPinned event, grouped by where the thread was pinned. The
+ * event exists from JDK 21 and is recorded for pins longer than 20 ms (default.jfc).
+ */
+@Slf4j
+final class PinnedThreads {
+
+    static final String EVENT = "jdk.VirtualThreadPinned";
+
+    // Frames shown per pinned stack
+    private static final int FRAMES = 8;
+
+    private PinnedThreads() {
+    }
+
+    /**
+     * JVM options that make the service record to the given file, written when it exits.
+     */
+    static List<String> recordingArgs(Path recording) {
+        return List.of("-XX:StartFlightRecording=settings=default,dumponexit=true,filename=" + recording);
+    }
+
+    /**
+     * Writes pinned.txt next to the recording and returns the number of pinned events, or -1 when
+     * the recording cannot show pinning (missing, or made on a JDK without the event).
+     */
+    static long report(Path recording, Path output) throws IOException {
+        if (!Files.isRegularFile(recording)) {
+            log.warn("No flight recording at {}; did the service exit cleanly?", recording);
+            return -1;
+        }
+
+        Map<String, Long> pinnedAt = new LinkedHashMap<>();
+        boolean eventKnown;
+        try (RecordingFile file = new RecordingFile(recording)) {
+            eventKnown = file.readEventTypes().stream().map(EventType::getName).anyMatch(EVENT::equals);
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (event.getEventType().getName().equals(EVENT)) {
+                    pinnedAt.merge(stack(event), 1L, Long::sum);
+                }
+            }
+        }
+        if (!eventKnown) {
+            log.warn("{} has no {} events: the service ran on a JDK before 21", recording, EVENT);
+            return -1;
+        }
+
+        long pinned = pinnedAt.values().stream().mapToLong(Long::longValue).sum();
+        StringBuilder text = new StringBuilder().append(pinned).append(" pinned virtual threads\n");
+        pinnedAt.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> text.append('\n').append(entry.getValue()).append("x\n").append(entry.getKey()));
+        Files.writeString(output, text);
+        return pinned;
+    }
+
+    private static String stack(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "    (no stack trace)\n";
+        }
+        return event.getStackTrace().getFrames().stream()
+                .limit(FRAMES)
+                .map(PinnedThreads::frame)
+                .collect(Collectors.joining());
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return "    at " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + " line " + frame.getLineNumber() + "\n";
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.pgrown30.config;
+
+import com.example.pgrown30.util.RequestContextSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * The service's executors. With spring.threads.virtual.enabled on Java 21+ each one starts a
+ * virtual thread per task instead of pooling platform threads, like Tomcat and the scheduler
+ * do in that mode; concurrency towards each downstream is then capped by its bulkhead and
+ * connection pool only.
+ */
+@Configuration
+public class AsyncConfig implements AsyncConfigurer {
+
+    private final boolean virtualThreads;
+
+    public AsyncConfig(Environment environment) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+    }
+
+    @Value("${pgr.executor.core-pool-size:16}")
+    private int corePoolSize;
+
+    @Value("${pgr.executor.max-pool-size:64}")
+    private int maxPoolSize;
+
+    @Value("${pgr.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${pgr.notification.outbox.dispatcher-threads:4}")
+    private int dispatcherThreads;
+
+    /**
+     * Pool for downstream calls fanned out from a request. Tasks run with a copy of the
+     * submitting request's headers so digit-client header propagation keeps working. When
+     * saturated it rejects rather than running the task on the request thread, where a create
+     * stage's deadline could not apply; the create pipeline and bulk operations handle the rejection.
+     */
+    @Bean("pgrTaskExecutor")
+    public AsyncTaskExecutor pgrTaskExecutor() {
+        if (virtualThreads) return virtualThreadExecutor("pgr-exec-", RequestContextSnapshot::wrap, 0);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pgr-exec-");
+        executor.setTaskDecorator(RequestContextSnapshot::wrap);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Pool that sends notifications drained from the outbox, kept apart from request work so a
+     * slow notification service cannot starve createService. The dispatcher never submits more
+     * than one batch at a time, so the queue is sized to a batch.
+     */
+    @Bean("notificationDispatchExecutor")
+    public AsyncTaskExecutor notificationDispatchExecutor(
+            @Value("${pgr.notification.outbox.batch-size:100}") int batchSize) {
+        // Still at most dispatcher-threads sends at a time; the dispatcher waits for a free one
+        if (virtualThreads) return virtualThreadExecutor("pgr-notify-", null, dispatcherThreads);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(dispatcherThreads);
+        executor.setMaxPoolSize(dispatcherThreads);
+        executor.setQueueCapacity(batchSize);
+        executor.setThreadNamePrefix("pgr-notify-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * Pool that resolves the boundary and file checks of requests accepted with
+     * pgr.create.accept-fast, after the create has already answered. Tasks carry the creating
+     * request's headers. When the queue is full the task is dropped: the request stays pending
+     * and PendingValidationWorker's next poll resolves it, so create never waits on this pool.
+     * On virtual threads nothing is dropped here; checks the boundary or filestore bulkhead
+     * refuses stay pending instead.
+     */
+    @Bean("validationExecutor")
+    public AsyncTaskExecutor validationExecutor(
+            @Value("${pgr.validation.threads:4}") int threads,
+            @Value("${pgr.validation.queue-capacity:1000}") int queueCapacity) {
+        if (virtualThreads) return virtualThreadExecutor("pgr-validate-", RequestContextSnapshot::wrap, 0);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pgr-validate-");
+        executor.setTaskDecorator(RequestContextSnapshot::wrap);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    /**
+     * @Async methods use the same pool. Set explicitly because the scheduler that comes with
+     * @EnableScheduling is also a TaskExecutor, which would otherwise make the default ambiguous.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return pgrTaskExecutor();
+    }
+
+    // A virtual thread per task; with a concurrency limit, submitters wait while that many run
+    private static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, TaskDecorator taskDecorator,
+                                                                 int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        if (taskDecorator != null) executor.setTaskDecorator(taskDecorator);
+        if (concurrencyLimit > 0) executor.setConcurrencyLimit(concurrencyLimit);
+        // Running tasks get the same 10 seconds to finish on shutdown as the pools
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pgrown30.config;
+
+import com.digit.config.PropagationProperties;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Sends the headers bound by {@link RequestContextSnapshot} on outbound calls, filtered by the
+ * digit.propagate.headers settings. Registered after the digit-client interceptor so a bound
+ * header replaces the value that one copied from the live request, e.g. X-Tenant-ID for a call
+ * made on behalf of another tenant.
+ */
+class BoundHeadersInterceptor implements ClientHttpRequestInterceptor, Ordered {
+
+    private final PropagationProperties propagationProperties;
+
+    BoundHeadersInterceptor(PropagationProperties propagationProperties) {
+        this.propagationProperties = propagationProperties;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Map<String, String> bound = RequestContextSnapshot.boundHeaders();
+        if (bound != null) {
+            HttpHeaders headers = request.getHeaders();
+            bound.forEach((name, value) -> {
+                if (value != null && propagationProperties.shouldPropagate(name)) {
+                    headers.set(name, value);
+                }
+            });
+        }
+        return execution.execute(request, body);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.pgrown30.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One pooled Apache HttpClient per DIGIT downstream, so a slow service can only exhaust
+ * its own connections. Pool usage is published as the httpcomponents.httpclient.pool.*
+ * metrics, tagged with the downstream name.
+ * <p>
+ * Timeouts, most specific first: pgr.http.downstreams.&lt;name&gt;.*, pgr.http.defaults.*, the
+ * digit-client's digit.services.timeout.connect/read, then the standard pool settings.
+ */
+@Slf4j
+@Component
+public class DownstreamHttpClients implements DisposableBean {
+
+    public static final String WORKFLOW = "workflow";
+    public static final String FILESTORE = "filestore";
+    public static final String BOUNDARY = "boundary";
+    public static final String IDGEN = "idgen";
+    public static final String NOTIFICATION = "notification";
+    // Anything the digit-client calls that is not one of the above (e.g. account)
+    public static final String DEFAULT = "default";
+
+    private static final List<String> DOWNSTREAMS = List.of(WORKFLOW, FILESTORE, BOUNDARY, IDGEN, NOTIFICATION, DEFAULT);
+
+    private final Map<String, HttpClientProperties.Pool> settings = new LinkedHashMap<>();
+    private final Map<String, CloseableHttpClient> clients = new LinkedHashMap<>();
+    private final Map<String, ClientHttpRequestFactory> factories = new LinkedHashMap<>();
+    private final Map<String, String> downstreamByAuthority = new LinkedHashMap<>();
+
+    public DownstreamHttpClients(HttpClientProperties properties,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${digit.services.workflow.base-url}") String workflowUrl,
+                                 @Value("${filestore.host}") String fileStoreUrl,
+                                 @Value("${digit.services.boundary.base-url}") String boundaryUrl,
+                                 @Value("${digit.services.idgen.base-url}") String idGenUrl,
+                                 @Value("${digit.services.notification.base-url}") String notificationUrl,
+                                 @Value("${digit.services.timeout.connect:#{null}}") Integer digitConnectTimeoutMs,
+                                 @Value("${digit.services.timeout.read:#{null}}") Integer digitReadTimeoutMs) {
+        HttpClientProperties.Pool base = HttpClientProperties.Pool.standard().withTimeouts(digitConnectTimeoutMs, digitReadTimeoutMs);
+        warnIfOverridden("connect", digitConnectTimeoutMs, properties.getDefaults().getConnectTimeoutMs());
+        warnIfOverridden("read", digitReadTimeoutMs, properties.getDefaults().getReadTimeoutMs());
+
+        for (String name : DOWNSTREAMS) {
+            HttpClientProperties.Pool pool = properties.forDownstream(name, base);
+            settings.put(name, pool);
+            PoolingHttpClientConnectionManager connectionManager = connectionManager(pool);
+            CloseableHttpClient client = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectionRequestTimeout(Timeout.ofMilliseconds(pool.getConnectionRequestTimeoutMs()))
+                            .setResponseTimeout(Timeout.ofMilliseconds(pool.getReadTimeoutMs()))
+                            .build())
+                    .evictExpiredConnections()
+                    .evictIdleConnections(TimeValue.ofSeconds(pool.getIdleEvictSeconds()))
+                    .build();
+
+            new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, name).bindTo(meterRegistry);
+            clients.put(name, client);
+            factories.put(name, new HttpComponentsClientHttpRequestFactory(client));
+            log.info("HTTP pool for downstream={}: maxConnections={} connectTimeoutMs={} readTimeoutMs={}",
+                    name, pool.getMaxConnections(), pool.getConnectTimeoutMs(), pool.getReadTimeoutMs());
+        }
+
+        downstreamByAuthority.put(authority(workflowUrl), WORKFLOW);
+        downstreamByAuthority.put(authority(fileStoreUrl), FILESTORE);
+        downstreamByAuthority.put(authority(boundaryUrl), BOUNDARY);
+        downstreamByAuthority.put(authority(idGenUrl), IDGEN);
+        downstreamByAuthority.put(authority(notificationUrl), NOTIFICATION);
+    }
+
+    /**
+     * The pool and timeout settings in effect for a downstream.
+     */
+    public HttpClientProperties.Pool settings(String downstream) {
+        HttpClientProperties.Pool pool = settings.get(downstream);
+        if (pool == null) {
+            throw new IllegalArgumentException("Unknown downstream: " + downstream);
+        }
+        return pool;
+    }
+
+    /**
+     * Request factory bound to a single downstream's pool.
+     */
+    public ClientHttpRequestFactory requestFactory(String downstream) {
+        ClientHttpRequestFactory factory = factories.get(downstream);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown downstream: " + downstream);
+        }
+        return factory;
+    }
+
+    /**
+     * Request factory that picks the pool from the request's host and port. Used for the shared
+     * digit-client RestTemplate, which talks to every DIGIT service.
+     */
+    public ClientHttpRequestFactory routingRequestFactory() {
+        return new ClientHttpRequestFactory() {
+            @Override
+            public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+                String downstream = downstreamByAuthority.getOrDefault(authority(uri), DEFAULT);
+                return factories.get(downstream).createRequest(uri, httpMethod);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        for (CloseableHttpClient client : clients.values()) {
+            client.close();
+        }
+    }
+
+    private static void warnIfOverridden(String timeout, Integer digitValue, Integer poolDefault) {
+        if (digitValue != null && poolDefault != null && !digitValue.equals(poolDefault)) {
+            log.warn("digit.services.timeout.{}={} is overridden by pgr.http.defaults.{}-timeout-ms={}",
+                    timeout, digitValue, timeout, poolDefault);
+        }
+    }
+
+    private static PoolingHttpClientConnectionManager connectionManager(HttpClientProperties.Pool pool) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                // Every pool serves a single host, so the per-route cap is the pool size
+                .setMaxConnTotal(pool.getMaxConnections())
+                .setMaxConnPerRoute(pool.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(pool.getConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(pool.getReadTimeoutMs()))
+                        .setTimeToLive(TimeValue.ofSeconds(pool.getTimeToLiveSeconds()))
+                        .build())
+                .build();
+    }
+
+    private static String authority(String url) {
+        return authority(URI.create(url));
+    }
+
+    private static String authority(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return (uri.getHost() != null ? uri.getHost().toLowerCase() : "") + ":" + port;
+    }
+}
@@ -11,10 +11,12 @@ public class FlywayConfig {
     @Bean
     public FlywayConfigurationCustomizer flywayCustomizer() {
         return (FluentConfiguration configuration) -> {
+            // Checksums and missing/unapplied migrations are validated before migrating;
+            // drift stops startup instead of being ignored. Baselining is left to
+            // spring.flyway.baseline-on-migrate, so it stays an explicit choice per database.
             configuration
                 .schemas("public")
-                .baselineOnMigrate(true)
-                .ignoreMigrationPatterns("*:*");  // ✅ Ignore unsupported db version checks
+                .validateOnMigrate(true);
         };
     }
 }
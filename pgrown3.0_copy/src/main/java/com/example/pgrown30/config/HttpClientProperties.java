@@ -0,0 +1,75 @@
+package com.example.pgrown30.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Connection pool and timeout settings per DIGIT downstream (pgr.http.downstreams.&lt;name&gt;.*).
+ * Any setting left out falls back to pgr.http.defaults, then to the base settings passed to
+ * {@link #forDownstream}: the digit-client timeouts (digit.services.timeout.connect/read) where
+ * set, else {@link Pool#standard()}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "pgr.http")
+public class HttpClientProperties {
+
+    private Pool defaults = new Pool();
+
+    private Map<String, Pool> downstreams = new LinkedHashMap<>();
+
+    public Pool forDownstream(String name, Pool base) {
+        Pool merged = defaults.withDefaults(base);
+        Pool pool = downstreams.get(name);
+        return pool != null ? pool.withDefaults(merged) : merged;
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private Integer maxConnections;
+        private Integer connectTimeoutMs;
+        private Integer readTimeoutMs;
+        // How long a request waits for a free pooled connection
+        private Integer connectionRequestTimeoutMs;
+        private Integer idleEvictSeconds;
+        private Integer timeToLiveSeconds;
+
+        public static Pool standard() {
+            Pool pool = new Pool();
+            pool.maxConnections = 50;
+            pool.connectTimeoutMs = 2000;
+            pool.readTimeoutMs = 10000;
+            pool.connectionRequestTimeoutMs = 1000;
+            pool.idleEvictSeconds = 30;
+            pool.timeToLiveSeconds = 300;
+            return pool;
+        }
+
+        /**
+         * These settings with the given timeouts in place of the standard ones; null keeps the standard value.
+         */
+        public Pool withTimeouts(Integer connectTimeoutMs, Integer readTimeoutMs) {
+            Pool pool = withDefaults(this);
+            if (connectTimeoutMs != null) pool.connectTimeoutMs = connectTimeoutMs;
+            if (readTimeoutMs != null) pool.readTimeoutMs = readTimeoutMs;
+            return pool;
+        }
+
+        Pool withDefaults(Pool fallback) {
+            Pool merged = new Pool();
+            merged.maxConnections = maxConnections != null ? maxConnections : fallback.maxConnections;
+            merged.connectTimeoutMs = connectTimeoutMs != null ? connectTimeoutMs : fallback.connectTimeoutMs;
+            merged.readTimeoutMs = readTimeoutMs != null ? readTimeoutMs : fallback.readTimeoutMs;
+            merged.connectionRequestTimeoutMs = connectionRequestTimeoutMs != null
+                    ? connectionRequestTimeoutMs : fallback.connectionRequestTimeoutMs;
+            merged.idleEvictSeconds = idleEvictSeconds != null ? idleEvictSeconds : fallback.idleEvictSeconds;
+            merged.timeToLiveSeconds = timeToLiveSeconds != null ? timeToLiveSeconds : fallback.timeToLiveSeconds;
+            return merged;
+        }
+    }
+}
@@ -12,6 +12,39 @@ public class PgrConfig {
     @Value("${pgr.workflow.processId}")
     private String workflowProcessId;
 
+    @Value("${pgr.create.stage-timeout-ms:10000}")
+    private long createStageTimeoutMs;
+
+    @Value("${pgr.create.accept-fast:false}")
+    private boolean createAcceptFast;
+
+    @Value("${pgr.search.default-page-size:50}")
+    private int searchDefaultPageSize;
+
+    @Value("${pgr.search.max-page-size:500}")
+    private int searchMaxPageSize;
+
+    @Value("${pgr.search.stream-fetch-size:500}")
+    private int searchStreamFetchSize;
+
+    @Value("${pgr.search.projection.enabled:true}")
+    private boolean searchProjectionEnabled;
+
+    @Value("${pgr.search.default-window-days:0}")
+    private int searchDefaultWindowDays;
+
+    @Value("${pgr.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${pgr.bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    @Value("${pgr.bulk.parallelism:8}")
+    private int bulkParallelism;
+
+    @Value("${pgr.update.conflict-retries:3}")
+    private int updateConflictRetries;
+
     public String getWorkflowHost() {
         return workflowHost;
     }
@@ -20,4 +53,48 @@ public class PgrConfig {
     public String getProcessId() {
         return workflowProcessId;
     }
+
+    public long getCreateStageTimeoutMs() {
+        return createStageTimeoutMs;
+    }
+
+    public boolean isCreateAcceptFast() {
+        return createAcceptFast;
+    }
+
+    public int getSearchDefaultPageSize() {
+        return searchDefaultPageSize;
+    }
+
+    public int getSearchMaxPageSize() {
+        return searchMaxPageSize;
+    }
+
+    public int getSearchStreamFetchSize() {
+        return searchStreamFetchSize;
+    }
+
+    public boolean isSearchProjectionEnabled() {
+        return searchProjectionEnabled;
+    }
+
+    public int getSearchDefaultWindowDays() {
+        return searchDefaultWindowDays;
+    }
+
+    public int getBulkChunkSize() {
+        return bulkChunkSize;
+    }
+
+    public int getBulkMaxItems() {
+        return bulkMaxItems;
+    }
+
+    public int getBulkParallelism() {
+        return bulkParallelism;
+    }
+
+    public int getUpdateConflictRetries() {
+        return updateConflictRetries;
+    }
 }
@@ -1,13 +1,73 @@
 package com.example.pgrown30.config;
 
+import com.digit.config.PropagationProperties;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
 public class RestTemplateConfig {
+
+    // Name of the RestTemplate bean created by the digit-client ApiConfig and shared by all its clients
+    private static final String DIGIT_REST_TEMPLATE = "restTemplate";
+
+    // Each RestTemplate is observed: a client span per call, with its W3C traceparent header sent along
     @Bean("pgrRestTemplate")
-    public RestTemplate pgrRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate pgrRestTemplate(DownstreamHttpClients httpClients, ObservationRegistry observationRegistry) {
+        RestTemplate restTemplate = new RestTemplate(httpClients.requestFactory(DownstreamHttpClients.WORKFLOW));
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
+    }
+
+    @Bean("fileStoreRestTemplate")
+    public RestTemplate fileStoreRestTemplate(DownstreamHttpClients httpClients, ObservationRegistry observationRegistry) {
+        RestTemplate restTemplate = new RestTemplate(httpClients.requestFactory(DownstreamHttpClients.FILESTORE));
+        restTemplate.setObservationRegistry(observationRegistry);
+        return restTemplate;
+    }
+
+    /**
+     * Moves the digit-client RestTemplate off its default SimpleClientHttpRequestFactory
+     * (no pooling) onto the per-downstream pools, and observes it like the ones above.
+     * Interceptors and error handler are kept.
+     */
+    @Bean
+    public static BeanPostProcessor digitRestTemplatePoolingPostProcessor(ObjectProvider<DownstreamHttpClients> httpClients,
+                                                                          ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DIGIT_REST_TEMPLATE.equals(beanName) && bean instanceof RestTemplate restTemplate) {
+                    restTemplate.setRequestFactory(httpClients.getObject().routingRequestFactory());
+                    restTemplate.setObservationRegistry(observationRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Appends {@link BoundHeadersInterceptor} to every RestTemplate once all of them have their
+     * other interceptors, so it runs after the digit-client one the auto-configuration adds.
+     */
+    @Bean
+    public SmartInitializingSingleton boundHeadersInterceptorRegistrar(ObjectProvider<RestTemplate> restTemplates,
+                                                                      PropagationProperties propagationProperties) {
+        BoundHeadersInterceptor interceptor = new BoundHeadersInterceptor(propagationProperties);
+        return () -> restTemplates.forEach(restTemplate -> {
+            List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>(restTemplate.getInterceptors());
+            interceptors.add(interceptor);
+            restTemplate.setInterceptors(interceptors);
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,37 @@
+package com.example.pgrown30.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Headers for DIGIT calls the service makes on its own behalf rather than for the user whose
+ * request set them off: ID lease refills, notification dispatch. They carry the tenant and, when
+ * {@code pgr.service-auth.token} is set, the service's own bearer token; never a user's
+ * Authorization header.
+ */
+@Component
+public class ServiceCredentials {
+
+    private static final String TENANT_HEADER = "X-Tenant-ID";
+
+    private final String token;
+
+    public ServiceCredentials(@Value("${pgr.service-auth.token:}") String token) {
+        this.token = token != null ? token.trim() : "";
+    }
+
+    public Map<String, String> headersFor(String tenantId) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (tenantId != null && !tenantId.isBlank()) {
+            headers.put(TENANT_HEADER, tenantId);
+        }
+        if (!token.isEmpty()) {
+            headers.put(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return headers;
+    }
+}
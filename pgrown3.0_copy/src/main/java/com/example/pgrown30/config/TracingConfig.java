@@ -0,0 +1,22 @@
+package com.example.pgrown30.config;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Span export. Spans go to an OTLP collector when management.otlp.tracing.endpoint is set
+ * (auto-configured by Spring Boot); with pgr.tracing.log-spans=true they are also written to the
+ * application log, for local runs without a collector.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "pgr.tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.pgrown30.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable in-memory view of the boundary hierarchy of each loaded tenant.
+ * A new index is built on every refresh and swapped in whole, so readers never block.
+ */
+public final class BoundaryIndex {
+
+    public static final BoundaryIndex EMPTY = new BoundaryIndex(Map.of());
+
+    private final Map<String, Map<String, Node>> tenants;
+
+    private BoundaryIndex(Map<String, Map<String, Node>> tenants) {
+        this.tenants = tenants;
+    }
+
+    /**
+     * Returns a copy of this index with the given tenant's boundaries replaced.
+     */
+    public BoundaryIndex withTenant(String tenantId, List<Node> nodes) {
+        Map<String, Node> byCode = new HashMap<>(nodes.size() * 2);
+        for (Node node : nodes) {
+            byCode.put(node.code(), node);
+        }
+        Map<String, Map<String, Node>> copy = new HashMap<>(tenants);
+        copy.put(tenantId, Collections.unmodifiableMap(byCode));
+        return new BoundaryIndex(Collections.unmodifiableMap(copy));
+    }
+
+    public boolean isLoaded(String tenantId) {
+        return tenantId != null && tenants.containsKey(tenantId);
+    }
+
+    public boolean contains(String tenantId, String code) {
+        Map<String, Node> nodes = tenantId != null ? tenants.get(tenantId) : null;
+        return nodes != null && nodes.containsKey(code);
+    }
+
+    /**
+     * The code followed by its parent, grandparent and so on up to the root.
+     * Empty when the code is unknown.
+     */
+    public List<String> parentChain(String tenantId, String code) {
+        Map<String, Node> nodes = tenants.getOrDefault(tenantId, Map.of());
+        List<String> chain = new ArrayList<>();
+        Node node = nodes.get(code);
+        while (node != null && !chain.contains(node.code())) {
+            chain.add(node.code());
+            node = node.parent() != null ? nodes.get(node.parent()) : null;
+        }
+        return chain;
+    }
+
+    /**
+     * All descendants of the code grouped by boundary type (ward, locality, ...),
+     * in breadth-first order.
+     */
+    public Map<String, List<String>> childrenByLevel(String tenantId, String code) {
+        Map<String, Node> nodes = tenants.getOrDefault(tenantId, Map.of());
+        Map<String, List<String>> levels = new LinkedHashMap<>();
+        Node root = nodes.get(code);
+        if (root == null) return levels;
+
+        List<String> frontier = root.children();
+        int guard = nodes.size();
+        while (!frontier.isEmpty() && guard-- > 0) {
+            List<String> next = new ArrayList<>();
+            for (String childCode : frontier) {
+                Node child = nodes.get(childCode);
+                if (child == null) continue;
+                levels.computeIfAbsent(child.type(), t -> new ArrayList<>()).add(child.code());
+                next.addAll(child.children());
+            }
+            frontier = next;
+        }
+        return levels;
+    }
+
+    /**
+     * Number of boundaries loaded per tenant.
+     */
+    public Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        tenants.forEach((tenantId, nodes) -> sizes.put(tenantId, nodes.size()));
+        return sizes;
+    }
+
+    public record Node(String code, String type, String parent, List<String> children) {
+        public Node {
+            children = children != null ? List.copyOf(children) : List.of();
+        }
+    }
+}
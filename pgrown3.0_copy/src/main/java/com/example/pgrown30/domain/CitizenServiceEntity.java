@@ -5,6 +5,7 @@ import lombok.*;
 
 @Entity
 @Table(name = "citizen_service")
+@IdClass(CitizenServiceKey.class)
 @Getter
 @Setter
 @Builder             // ← Adds the builder() method
@@ -47,12 +48,19 @@ public class CitizenServiceEntity {
     @Column(name = "action")
     private String action;
 
-    @Column(name = "created_time")
+    // Partition key of citizen_service, and so part of its primary key
+    @Id
+    @Column(name = "created_time", nullable = false, updatable = false)
     private Long createdTime;
 
     @Column(name = "last_modified_time")
     private Long lastModifiedTime;
 
+    // Optimistic lock; null until first saved, so save() persists new requests without a select
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     // **Add these fields**
     @Column
     private String email;
@@ -67,10 +75,11 @@ public class CitizenServiceEntity {
     private Boolean boundaryValid;
     
     public boolean isBoundaryValid() {
-    return boundaryValid;
+    return Boolean.TRUE.equals(boundaryValid);
 }
 
-public void setBoundaryValid(boolean boundaryValid) {
+// null while the boundary check is pending
+public void setBoundaryValid(Boolean boundaryValid) {
     this.boundaryValid = boundaryValid;
 }
 
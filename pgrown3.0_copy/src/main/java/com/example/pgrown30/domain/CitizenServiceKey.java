@@ -0,0 +1,22 @@
+package com.example.pgrown30.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Primary key of citizen_service: the request ID plus created_time, the partition key, which
+ * PostgreSQL requires in every unique constraint of a partitioned table. Updates and deletes by
+ * this key touch only the partition holding the row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CitizenServiceKey implements Serializable {
+
+    private String serviceRequestId;
+
+    private Long createdTime;
+}
@@ -0,0 +1,87 @@
+package com.example.pgrown30.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A notification waiting to be sent, written in the same transaction as the
+ * service request it belongs to and drained by the notification dispatcher.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutboxEntity {
+
+    public static final String CHANNEL_EMAIL = "EMAIL";
+    public static final String CHANNEL_SMS = "SMS";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id")
+    private UUID id;
+
+    @Column(name = "service_request_id")
+    private String serviceRequestId;
+
+    @Column(name = "tenant_id")
+    private String tenantId;
+
+    @Column(name = "channel")
+    private String channel;
+
+    @Column(name = "template_id")
+    private String templateId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "recipients")
+    private List<String> recipients;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "payload")
+    private Map<String, Object> payload;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "attachments")
+    private List<String> attachments;
+
+    @Column(name = "category")
+    private String category;
+
+    // Request headers replayed when sending (tenant, correlation ids); cleared once sent or dead
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "headers")
+    private Map<String, String> headers;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private OutboxStatus status;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    // Set by the dispatcher that claimed the entry; its outcome is only recorded while this still matches
+    @Column(name = "claim_token")
+    private UUID claimToken;
+
+    @Column(name = "next_attempt_time")
+    private Long nextAttemptTime;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    @Column(name = "created_time")
+    private Long createdTime;
+
+    @Column(name = "last_modified_time")
+    private Long lastModifiedTime;
+}
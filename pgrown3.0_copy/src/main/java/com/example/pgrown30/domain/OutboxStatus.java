@@ -0,0 +1,7 @@
+package com.example.pgrown30.domain;
+
+public enum OutboxStatus {
+    PENDING,
+    SENT,
+    DEAD
+}
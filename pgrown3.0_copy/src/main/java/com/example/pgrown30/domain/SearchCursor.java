@@ -0,0 +1,39 @@
+package com.example.pgrown30.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the search order (created_time desc, service_request_id desc), encoded
+ * as an opaque token for clients.
+ */
+public record SearchCursor(long createdTime, String serviceRequestId) {
+
+    public static SearchCursor of(CitizenServiceEntity entity) {
+        return at(entity.getCreatedTime(), entity.getServiceRequestId());
+    }
+
+    public static SearchCursor at(Long createdTime, String serviceRequestId) {
+        return new SearchCursor(createdTime != null ? createdTime : 0L, serviceRequestId);
+    }
+
+    public String encode() {
+        String raw = createdTime + ":" + serviceRequestId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String time = raw.substring(0, separator);
+            String id = raw.substring(separator + 1);
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("missing serviceRequestId");
+            }
+            return new SearchCursor(Long.parseLong(time), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid pagination cursor: " + token);
+        }
+    }
+}
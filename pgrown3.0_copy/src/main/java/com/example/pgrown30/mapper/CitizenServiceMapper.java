@@ -20,7 +20,7 @@ public class CitizenServiceMapper {
                 ? Status.valueOf(dto.getApplicationStatus()) 
                 : Status.INITIATED);
         entity.setFileStoreId(dto.getFileStoreId());
-        entity.setFileValid(dto.isFileValid());
+        entity.setFileValid(Boolean.TRUE.equals(dto.getFileValid()));
         entity.setBoundaryCode(dto.getBoundaryCode());
         entity.setAction(dto.getAction());
         entity.setWorkflowInstanceId(dto.getWorkflowInstanceId());
@@ -45,15 +45,25 @@ public class CitizenServiceMapper {
                 ? entity.getApplicationStatus().name() 
                 : null);
         dto.setFileStoreId(entity.getFileStoreId());
-        dto.setFileValid(entity.getFileValid());
+        dto.setFileValid(validity(entity.getFileStoreId(), entity.getFileValid()));
         dto.setBoundaryCode(entity.getBoundaryCode());
         dto.setAction(entity.getAction());
         dto.setWorkflowInstanceId(entity.getWorkflowInstanceId());
         dto.setCreatedTime(entity.getCreatedTime());
         dto.setLastModifiedTime(entity.getLastModifiedTime());
-        dto.setBoundaryValid(entity.isBoundaryValid());
+        dto.setBoundaryValid(validity(entity.getBoundaryCode(), entity.getBoundaryValid()));
         dto.setEmail(entity.getEmail());       // Add email
         dto.setMobile(entity.getMobile());     // Add mobile
+        dto.setVersion(entity.getVersion());
         return dto;
     }
+
+    /**
+     * Validity as shown to clients: null (pending) when there is a file or boundary to check and
+     * it hasn't been checked yet, otherwise true or false, with nothing to check reading as false.
+     */
+    public static Boolean validity(String checked, Boolean valid) {
+        if (checked != null && valid == null) return null;
+        return Boolean.TRUE.equals(valid);
+    }
 }
@@ -0,0 +1,109 @@
+package com.example.pgrown30.repository;
+
+import com.digit.services.boundary.BoundaryClient;
+import com.digit.services.boundary.model.BoundarySearchResponse;
+import com.example.pgrown30.domain.BoundaryIndex;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads each configured tenant's boundary hierarchy into a {@link BoundaryIndex}
+ * at startup and refreshes it in the background.
+ */
+@Slf4j
+@Repository
+public class BoundaryIndexRepository {
+
+    private static final String DOWNSTREAM = "boundary";
+
+    private final BoundaryClient boundaryClient;
+    private final DownstreamGuard downstreamGuard;
+    private final Executor pgrTaskExecutor;
+    private final AtomicReference<BoundaryIndex> index = new AtomicReference<>(BoundaryIndex.EMPTY);
+
+    @Value("${boundary.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${boundary.index.tenants:}")
+    private List<String> tenants;
+
+    @Value("${boundary.index.hierarchy-type:ADMIN}")
+    private String hierarchyType;
+
+    public BoundaryIndexRepository(BoundaryClient boundaryClient,
+                                   DownstreamGuard downstreamGuard,
+                                   @Qualifier("pgrTaskExecutor") Executor pgrTaskExecutor) {
+        this.boundaryClient = boundaryClient;
+        this.downstreamGuard = downstreamGuard;
+        this.pgrTaskExecutor = pgrTaskExecutor;
+    }
+
+    public BoundaryIndex getIndex() {
+        return index.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            // Off the startup thread: the app serves requests (via the remote path) while the index loads
+            pgrTaskExecutor.execute(this::refresh);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${boundary.index.refresh-ms:3600000}",
+            initialDelayString = "${boundary.index.refresh-ms:3600000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    public void refresh() {
+        for (String tenantId : tenants) {
+            if (tenantId.isBlank()) continue;
+            try {
+                List<BoundaryIndex.Node> nodes = loadTenant(tenantId.trim());
+                index.updateAndGet(current -> current.withTenant(tenantId.trim(), nodes));
+                log.info("Boundary index loaded for tenant={} hierarchyType={}: {} boundaries",
+                        tenantId, hierarchyType, nodes.size());
+            } catch (Exception e) {
+                // Keep serving the previous snapshot for this tenant
+                log.error("Boundary index refresh failed for tenant={}: {}", tenantId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private List<BoundaryIndex.Node> loadTenant(String tenantId) {
+        List<BoundaryIndex.Node> nodes = new ArrayList<>();
+
+        // No incoming request here, so the tenant header is supplied explicitly for propagation
+        RequestContextSnapshot.runWithHeaders(Map.of("X-Tenant-ID", tenantId), () -> {
+            // Shares the boundary breaker and bulkhead with the per-request lookups
+            List<BoundarySearchResponse.HierarchyRelation> relations = downstreamGuard.call(DOWNSTREAM,
+                    "searchBoundaryRelationships", () -> boundaryClient.searchBoundaryRelationships(hierarchyType, null, true));
+            if (relations == null) return;
+
+            for (BoundarySearchResponse.HierarchyRelation relation : relations) {
+                if (relation.getBoundary() == null) continue;
+                for (BoundarySearchResponse.EnrichedBoundary boundary : relation.getBoundary()) {
+                    if (boundary.getCode() == null) continue;
+                    nodes.add(new BoundaryIndex.Node(
+                            boundary.getCode(), boundary.getType(), boundary.getParent(), boundary.getChildren()));
+                }
+            }
+        });
+        return nodes;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.pgrown30.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Coalesces single-code boundary lookups from concurrent requests into one batched search.
+ * <p>
+ * Lookups are grouped per tenant. The first caller of a batch becomes its leader: it waits
+ * up to the window (or until the batch holds max-codes codes), runs the search for the batch's
+ * tenant on its own thread, and completes every waiting caller. Callers that
+ * arrive after the batch is sealed start the next one.
+ */
+@Slf4j
+class BoundaryLookupCoalescer {
+
+    private final BiFunction<String, List<String>, Set<String>> search;
+    private final long windowNanos;
+    private final int maxCodes;
+    private final DistributionSummary batchSizes;
+    private final Map<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    /**
+     * @param search returns the subset of the given codes that exist for the given tenant
+     */
+    BoundaryLookupCoalescer(BiFunction<String, List<String>, Set<String>> search, long windowMs, int maxCodes,
+                            MeterRegistry meterRegistry) {
+        this.search = search;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxCodes = maxCodes;
+        this.batchSizes = DistributionSummary.builder("pgr.boundary.lookup.batch.size")
+                .description("Boundary codes per coalesced boundary search")
+                .register(meterRegistry);
+    }
+
+    boolean isValid(String tenantId, String boundaryCode) {
+        String tenantKey = tenantId != null ? tenantId : "";
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(tenantKey, key -> new Batch());
+            CompletableFuture<Boolean> result = batch.add(boundaryCode);
+            if (result == null) {
+                // Sealed between lookup and add; its leader removes it, the next attempt opens a new one
+                openBatches.remove(tenantKey, batch);
+                continue;
+            }
+            if (batch.isLeader()) {
+                lead(tenantKey, batch);
+            }
+            return await(result);
+        }
+    }
+
+    private void lead(String tenantKey, Batch batch) {
+        List<String> codes = batch.awaitAndSeal();
+        openBatches.remove(tenantKey, batch);
+
+        try {
+            Set<String> found = search.apply(tenantKey, codes);
+            batchSizes.record(codes.size());
+            log.debug("Coalesced boundary search for tenant={}: {} codes", tenantKey, codes.size());
+            batch.complete(found);
+        } catch (RuntimeException e) {
+            batch.fail(e);
+        }
+    }
+
+    private static boolean await(CompletableFuture<Boolean> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private class Batch {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition full = lock.newCondition();
+        private final Map<String, CompletableFuture<Boolean>> waiting = new LinkedHashMap<>();
+        private final Thread leader = Thread.currentThread();
+        private boolean sealed;
+
+        CompletableFuture<Boolean> add(String boundaryCode) {
+            lock.lock();
+            try {
+                if (sealed) return null;
+                CompletableFuture<Boolean> result = waiting.computeIfAbsent(boundaryCode, code -> new CompletableFuture<>());
+                if (waiting.size() >= maxCodes) {
+                    full.signal();
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // The batch is created inside computeIfAbsent by the thread that then adds to it first
+        boolean isLeader() {
+            return leader == Thread.currentThread();
+        }
+
+        List<String> awaitAndSeal() {
+            lock.lock();
+            try {
+                long remaining = windowNanos;
+                while (waiting.size() < maxCodes && remaining > 0) {
+                    remaining = full.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sealed = true;
+                lock.unlock();
+            }
+            return new ArrayList<>(waiting.keySet());
+        }
+
+        void complete(Set<String> found) {
+            waiting.forEach((code, result) -> result.complete(found.contains(code)));
+        }
+
+        void fail(RuntimeException e) {
+            waiting.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+}
@@ -2,43 +2,167 @@ package com.example.pgrown30.repository;
 
 import com.digit.services.boundary.BoundaryClient;
 import com.digit.services.boundary.model.Boundary;
-import lombok.RequiredArgsConstructor;
+import com.example.pgrown30.domain.BoundaryIndex;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import com.example.pgrown30.util.ValidityExpiry;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Repository
-@RequiredArgsConstructor
 public class BoundaryRepository {
 
+    private static final String KEY_SEPARATOR = "|";
+
+    private static final String DOWNSTREAM = "boundary";
+
     private final BoundaryClient boundaryClient;
+    private final BoundaryIndexRepository boundaryIndexRepository;
+    private final DownstreamGuard downstreamGuard;
+    private final DownstreamMetrics downstreamMetrics;
+
+    // Answer for codes the boundary service couldn't check
+    private final ValidationFallback fallback;
+
+    // Valid and invalid codes per tenant; key is tenantId|boundaryCode
+    private final LoadingCache<String, Boolean> validityCache;
+
+    // Most codes sent in one boundary search
+    private final int maxCodesPerSearch;
+
+    // Batches concurrent cache misses into one search; null when boundary.coalesce.window-ms is 0
+    private final BoundaryLookupCoalescer coalescer;
+
+    public BoundaryRepository(BoundaryClient boundaryClient,
+                              BoundaryIndexRepository boundaryIndexRepository,
+                              DownstreamGuard downstreamGuard,
+                              DownstreamMetrics downstreamMetrics,
+                              @Qualifier("pgrTaskExecutor") Executor pgrTaskExecutor,
+                              MeterRegistry meterRegistry,
+                              @Value("${boundary.cache.max-size:50000}") long maxSize,
+                              @Value("${boundary.cache.ttl-minutes:60}") long ttlMinutes,
+                              @Value("${boundary.cache.negative-ttl-minutes:5}") long negativeTtlMinutes,
+                              @Value("${boundary.cache.refresh-minutes:15}") long refreshMinutes,
+                              @Value("${boundary.search.max-codes:100}") int maxCodesPerSearch,
+                              @Value("${boundary.coalesce.window-ms:5}") long coalesceWindowMs,
+                              @Value("${boundary.fallback:PENDING}") ValidationFallback fallback) {
+        this.boundaryClient = boundaryClient;
+        this.boundaryIndexRepository = boundaryIndexRepository;
+        this.downstreamGuard = downstreamGuard;
+        this.downstreamMetrics = downstreamMetrics;
+        this.fallback = fallback;
+        this.maxCodesPerSearch = maxCodesPerSearch;
+        this.coalescer = coalesceWindowMs > 0
+                ? new BoundaryLookupCoalescer(this::searchCodes, coalesceWindowMs, maxCodesPerSearch, meterRegistry)
+                : null;
+        this.validityCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ValidityExpiry<>(Duration.ofMinutes(ttlMinutes), Duration.ofMinutes(negativeTtlMinutes)))
+                // Entries older than this are reloaded in the background on their next read
+                .refreshAfterWrite(Duration.ofMinutes(refreshMinutes))
+                .executor(pgrTaskExecutor)
+                .recordStats()
+                .build(this::lookupBoundary);
+        CaffeineCacheMetrics.monitor(meterRegistry, validityCache, "boundaryValidity");
+    }
+
+    public boolean isBoundaryValid(String tenantId, String boundaryCode) {
+        return Boolean.TRUE.equals(checkBoundary(tenantId, boundaryCode));
+    }
+
+    /**
+     * Like {@link #isBoundaryValid}, but a code the boundary service couldn't check gets the
+     * configured {@code boundary.fallback} answer: null (pending) or false.
+     */
+    public Boolean checkBoundary(String tenantId, String boundaryCode) {
+        long start = System.nanoTime();
+        Boolean valid = lookupValidity(tenantId, boundaryCode);
+        downstreamMetrics.recordOperation(DOWNSTREAM, "isBoundaryValid", tenantId, DownstreamMetrics.validity(valid), start);
+        return valid;
+    }
 
-    public boolean isBoundaryValid(String boundaryCode) {
+    private Boolean lookupValidity(String tenantId, String boundaryCode) {
         if (boundaryCode == null || boundaryCode.isBlank()) return false;
 
+        // Codes in the preloaded hierarchy are valid without a lookup; anything else
+        // (unloaded tenant, boundary added since the last refresh) goes through the cache
+        if (boundaryIndexRepository.getIndex().contains(tenantId, boundaryCode)) {
+            return true;
+        }
+
+        String key = cacheKey(tenantId, boundaryCode);
+        Boolean cached = validityCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
         try {
-            // Use digit-client library for boundary search
-            // Headers are automatically propagated via HeaderPropagationInterceptor
-            List<Boundary> boundaries = boundaryClient.searchBoundariesByCodes(List.of(boundaryCode));
-            
-            boolean isValid = boundaries != null && !boundaries.isEmpty() &&
-                    boundaries.stream().anyMatch(b -> boundaryCode.equals(b.getCode()));
-            
-            log.info("Boundary validation for code={}: {}", boundaryCode, isValid ? "VALID" : "INVALID");
-            return isValid;
+            // Looked up outside the cache: a cache loader runs under the cache's map lock, which
+            // pins a virtual thread to its carrier for the whole boundary search
+            boolean valid = lookupBoundary(key);
+            validityCache.put(key, valid);
+            return valid;
+        } catch (Exception e) {
+            // Lookup failures are not cached, so the next request retries the boundary service
+            log.warn("Boundary validation failed for boundary={}, answering {}: {}", boundaryCode, fallback, e.getMessage());
+            return fallback.answer();
+        }
+    }
+
+    /**
+     * Validates many codes of one tenant at once: indexed and cached codes need no lookup,
+     * and the rest are checked with as few boundary searches as possible. Returns validity per
+     * code; codes whose lookup failed get the {@code boundary.fallback} answer and are not cached.
+     */
+    public Map<String, Boolean> validateBoundaries(String tenantId, Collection<String> boundaryCodes) {
+        Map<String, Boolean> result = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        BoundaryIndex index = boundaryIndexRepository.getIndex();
+
+        for (String boundaryCode : boundaryCodes) {
+            if (boundaryCode == null || boundaryCode.isBlank()) continue;
+            if (index.contains(tenantId, boundaryCode)) {
+                result.put(boundaryCode, true);
+            } else {
+                keys.add(cacheKey(tenantId, boundaryCode));
+            }
+        }
+        if (keys.isEmpty()) return result;
 
+        try {
+            validityCache.getAll(keys, this::lookupBoundaries)
+                    .forEach((key, valid) -> result.put(codeOf(key), valid));
         } catch (Exception e) {
-            log.warn("Boundary validation failed for boundary={}: {}", boundaryCode, e.getMessage());
-            return false;
+            log.warn("Batch boundary validation failed for tenant={} ({} codes): {}", tenantId, keys.size(), e.getMessage());
+            keys.forEach(key -> result.putIfAbsent(codeOf(key), fallback.answer()));
         }
+        return result;
     }
 
     public List<Boundary> searchBoundariesByCodes(List<String> codes) {
         try {
             log.info("Searching boundaries for codes: {}", codes);
-            List<Boundary> boundaries = boundaryClient.searchBoundariesByCodes(codes);
+            List<Boundary> boundaries = downstreamGuard.call(DOWNSTREAM, "searchBoundariesByCodes", () -> boundaryClient.searchBoundariesByCodes(codes));
             log.info("Found {} boundaries", boundaries != null ? boundaries.size() : 0);
             return boundaries;
         } catch (Exception e) {
@@ -46,4 +170,87 @@ public class BoundaryRepository {
             throw e;
         }
     }
+
+    // --- Cache administration ---
+
+    public void evictAll() {
+        validityCache.invalidateAll();
+        log.info("Boundary validity cache cleared");
+    }
+
+    public void evictTenant(String tenantId) {
+        String prefix = tenantId + KEY_SEPARATOR;
+        validityCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        log.info("Boundary validity cache cleared for tenant={}", tenantId);
+    }
+
+    public void evict(String tenantId, String boundaryCode) {
+        validityCache.invalidate(cacheKey(tenantId, boundaryCode));
+        log.info("Boundary validity cache entry removed for tenant={} code={}", tenantId, boundaryCode);
+    }
+
+    public Map<String, Object> cacheStats() {
+        CacheStats stats = validityCache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", validityCache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("indexedBoundaries", boundaryIndexRepository.getIndex().sizes());
+        return result;
+    }
+
+    private Boolean lookupBoundary(String key) {
+        String boundaryCode = codeOf(key);
+
+        boolean isValid = coalescer != null
+                ? coalescer.isValid(tenantOf(key), boundaryCode)
+                : searchCodes(tenantOf(key), List.of(boundaryCode)).contains(boundaryCode);
+
+        log.info("Boundary validation for code={}: {}", boundaryCode, isValid ? "VALID" : "INVALID");
+        return isValid;
+    }
+
+    // Bulk loader for validateBoundaries: the cache misses, searched per tenant
+    private Map<String, Boolean> lookupBoundaries(Set<? extends String> keys) {
+        Map<String, Boolean> result = new HashMap<>();
+        keys.stream().collect(Collectors.groupingBy(BoundaryRepository::tenantOf)).forEach((tenantId, tenantKeys) -> {
+            List<String> codes = tenantKeys.stream().map(BoundaryRepository::codeOf).distinct().toList();
+            Set<String> found = searchCodes(tenantId, codes);
+            tenantKeys.forEach(key -> result.put(key, found.contains(codeOf(key))));
+            log.info("Boundary validation for tenant={}, {} codes: {} valid", tenantId, codes.size(), found.size());
+        });
+        return result;
+    }
+
+    // The codes that exist for the tenant, searched max-codes at a time
+    private Set<String> searchCodes(String tenantId, List<String> codes) {
+        // The tenant comes from the cache key, not the request: loads also run for refreshes,
+        // batches shared by several requests and bulk imports spanning tenants
+        Map<String, String> headers = RequestContextSnapshot.headersForTenant(tenantId);
+        Set<String> found = new HashSet<>();
+        for (int from = 0; from < codes.size(); from += maxCodesPerSearch) {
+            List<String> batch = codes.subList(from, Math.min(from + maxCodesPerSearch, codes.size()));
+            List<Boundary> boundaries = RequestContextSnapshot.callWithHeaders(headers, () -> downstreamGuard.call(
+                    DOWNSTREAM, "searchBoundariesByCodes", () -> boundaryClient.searchBoundariesByCodes(batch)));
+            if (boundaries != null) {
+                boundaries.stream().map(Boundary::getCode).filter(Objects::nonNull).forEach(found::add);
+            }
+        }
+        return found;
+    }
+
+    private static String tenantOf(String key) {
+        return key.substring(0, key.indexOf(KEY_SEPARATOR));
+    }
+
+    private static String codeOf(String key) {
+        return key.substring(key.indexOf(KEY_SEPARATOR) + 1);
+    }
+
+    private static String cacheKey(String tenantId, String boundaryCode) {
+        return (tenantId != null ? tenantId : "") + KEY_SEPARATOR + boundaryCode;
+    }
 }
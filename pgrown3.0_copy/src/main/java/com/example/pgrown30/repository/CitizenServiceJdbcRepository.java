@@ -0,0 +1,248 @@
+package com.example.pgrown30.repository;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.SearchCursor;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.mapper.CitizenServiceMapper;
+import com.example.pgrown30.web.models.CitizenService;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Read-only search over citizen_service that projects rows straight into
+ * {@link CitizenService} DTOs. Nothing passes through the persistence context, so
+ * there is no entity hydration, dirty-checking snapshot or flush. Also holds the
+ * batched writes used by bulk create.
+ */
+@Repository
+public class CitizenServiceJdbcRepository {
+
+    // Only the columns the DTO exposes
+    private static final String COLUMNS = "service_request_id, tenant_id, service_code, description, account_id, "
+            + "source, application_status, file_store_id, file_valid, boundary_code, boundary_valid, action, "
+            + "workflow_instance_id, created_time, last_modified_time, email, mobile, version";
+
+    // Search order: created_time desc, ties broken by the request ID
+    private static final String ORDER_BY = " ORDER BY created_time DESC, service_request_id DESC";
+
+    private static final String INSERT = "INSERT INTO citizen_service (service_request_id, tenant_id, service_code, "
+            + "description, account_id, source, application_status, file_store_id, file_valid, boundary_code, "
+            + "boundary_valid, action, workflow_instance_id, process_id, created_time, last_modified_time, email, mobile, "
+            + "version) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // SQL types of one INSERT_ROW, so null values are bound with the column's type
+    private static final int[] INSERT_ROW_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.VARCHAR, Types.BOOLEAN,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR};
+
+    // Keeps one multi-row INSERT well under PostgreSQL's 32767 bind parameters
+    private static final int MAX_ROWS_PER_INSERT = 1000;
+
+    private static final RowMapper<CitizenService> DTO_MAPPER = CitizenServiceJdbcRepository::mapDto;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CitizenServiceJdbcRepository(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * One keyset page in search order: up to {@code limit} rows after the cursor (from the
+     * start when null), optionally bounded to createdFrom &lt;= created_time &lt; createdTo.
+     */
+    public List<CitizenService> searchPage(String tenantId, String serviceCode, Status applicationStatus,
+                                           Long createdFrom, Long createdTo, SearchCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = selectWhere(tenantId, serviceCode, applicationStatus, createdFrom, createdTo, params);
+
+        if (after != null) {
+            // Row comparison rather than the equivalent OR: PostgreSQL turns it into an index
+            // condition and seeks straight to the cursor instead of filtering from the first row
+            sql.append(" AND (created_time, service_request_id) < (?, ?)");
+            params.add(after.createdTime());
+            params.add(after.serviceRequestId());
+        }
+        sql.append(ORDER_BY).append(" LIMIT ?");
+        params.add(limit);
+
+        return readOnlyTransaction.execute(status ->
+                jdbcTemplate.query(sql.toString(), DTO_MAPPER, params.toArray()));
+    }
+
+    /**
+     * Streams every matching row to the consumer in search order. The PostgreSQL driver only
+     * uses a server-side cursor (honouring the fetch size) inside a transaction, so the query
+     * runs in a read-only one; memory use is bounded by the fetch size, not the result size.
+     */
+    public void streamByFilter(String tenantId, String serviceCode, Status applicationStatus,
+                               Long createdFrom, Long createdTo, int fetchSize, Consumer<CitizenService> consumer) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = selectWhere(tenantId, serviceCode, applicationStatus, createdFrom, createdTo, params)
+                .append(ORDER_BY);
+
+        JdbcTemplate streamingTemplate = new JdbcTemplate(dataSource);
+        streamingTemplate.setFetchSize(fetchSize);
+
+        readOnlyTransaction.executeWithoutResult(status ->
+                streamingTemplate.query(sql.toString(),
+                        rs -> { consumer.accept(DTO_MAPPER.mapRow(rs, 0)); },
+                        params.toArray()));
+    }
+
+    /**
+     * Inserts the services that are not stored yet and returns the IDs it inserted. Joins the
+     * caller's transaction. A service whose ID is already in its created_time partition is
+     * skipped by that partition's unique index rather than failing the statement, so this is
+     * safe against a concurrent insert of the same ID. IDs stored in other partitions are not
+     * seen here; check them with {@link #existingIds} first.
+     */
+    public Set<String> insertNew(List<CitizenServiceEntity> services) {
+        Set<String> inserted = new HashSet<>();
+        for (int from = 0; from < services.size(); from += MAX_ROWS_PER_INSERT) {
+            List<CitizenServiceEntity> rows = services.subList(from, Math.min(from + MAX_ROWS_PER_INSERT, services.size()));
+            String sql = INSERT + String.join(", ", Collections.nCopies(rows.size(), INSERT_ROW))
+                    + " ON CONFLICT DO NOTHING RETURNING service_request_id";
+
+            List<Object> params = new ArrayList<>(rows.size() * INSERT_ROW_TYPES.length);
+            for (CitizenServiceEntity service : rows) {
+                params.add(service.getServiceRequestId());
+                params.add(service.getTenantId());
+                params.add(service.getServiceCode());
+                params.add(service.getDescription());
+                params.add(service.getAccountId());
+                params.add(service.getSource());
+                params.add(service.getApplicationStatus() != null ? service.getApplicationStatus().name() : null);
+                params.add(service.getFileStoreId());
+                params.add(service.getFileValid());
+                params.add(service.getBoundaryCode());
+                params.add(service.getBoundaryValid());
+                params.add(service.getAction());
+                params.add(service.getWorkflowInstanceId());
+                params.add(service.getProcessId());
+                params.add(service.getCreatedTime());
+                params.add(service.getLastModifiedTime());
+                params.add(service.getEmail());
+                params.add(service.getMobile());
+            }
+            inserted.addAll(jdbcTemplate.query(sql, params.toArray(), insertTypes(rows.size()),
+                    (rs, rowNum) -> rs.getString(1)));
+        }
+        return inserted;
+    }
+
+    /**
+     * Records the workflow each service was started in, as one JDBC batch. Joins the caller's
+     * transaction.
+     */
+    public void updateWorkflow(List<CitizenServiceEntity> services) {
+        jdbcTemplate.batchUpdate("UPDATE citizen_service SET workflow_instance_id = ?, action = ?, application_status = ? "
+                + "WHERE service_request_id = ? AND created_time = ?", services, services.size(), (ps, service) -> {
+            ps.setString(1, service.getWorkflowInstanceId());
+            ps.setString(2, service.getAction());
+            ps.setString(3, service.getApplicationStatus() != null ? service.getApplicationStatus().name() : null);
+            ps.setString(4, service.getServiceRequestId());
+            ps.setLong(5, service.getCreatedTime());
+        });
+    }
+
+    /**
+     * Deletes the given services by primary key, as one JDBC batch. Joins the caller's transaction.
+     */
+    public void delete(List<CitizenServiceEntity> services) {
+        jdbcTemplate.batchUpdate("DELETE FROM citizen_service WHERE service_request_id = ? AND created_time = ?",
+                services, services.size(), (ps, service) -> {
+                    ps.setString(1, service.getServiceRequestId());
+                    ps.setLong(2, service.getCreatedTime());
+                });
+    }
+
+    /**
+     * The subset of the given IDs that already exist, in any partition.
+     */
+    public Set<String> existingIds(Collection<String> serviceRequestIds) {
+        if (serviceRequestIds.isEmpty()) return Set.of();
+
+        String placeholders = String.join(", ", Collections.nCopies(serviceRequestIds.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT service_request_id FROM citizen_service WHERE service_request_id IN (" + placeholders + ")",
+                String.class, serviceRequestIds.toArray()));
+    }
+
+    private static int[] insertTypes(int rows) {
+        int[] types = new int[rows * INSERT_ROW_TYPES.length];
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(INSERT_ROW_TYPES, 0, types, row * INSERT_ROW_TYPES.length, INSERT_ROW_TYPES.length);
+        }
+        return types;
+    }
+
+    private StringBuilder selectWhere(String tenantId, String serviceCode, Status applicationStatus,
+                                      Long createdFrom, Long createdTo, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                .append(" FROM citizen_service WHERE tenant_id = ?");
+        params.add(tenantId);
+
+        if (serviceCode != null) {
+            sql.append(" AND service_code = ?");
+            params.add(serviceCode);
+        }
+        if (applicationStatus != null) {
+            sql.append(" AND application_status = ?");
+            params.add(applicationStatus.name());
+        }
+        // Bounds on the partition key let PostgreSQL prune partitions
+        if (createdFrom != null) {
+            sql.append(" AND created_time >= ?");
+            params.add(createdFrom);
+        }
+        if (createdTo != null) {
+            sql.append(" AND created_time < ?");
+            params.add(createdTo);
+        }
+        return sql;
+    }
+
+    private static CitizenService mapDto(ResultSet rs, int rowNum) throws SQLException {
+        CitizenService dto = new CitizenService();
+        dto.setServiceRequestId(rs.getString("service_request_id"));
+        dto.setTenantId(rs.getString("tenant_id"));
+        dto.setServiceCode(rs.getString("service_code"));
+        dto.setDescription(rs.getString("description"));
+        dto.setAccountId(rs.getString("account_id"));
+        dto.setSource(rs.getString("source"));
+        dto.setApplicationStatus(rs.getString("application_status"));
+        dto.setFileStoreId(rs.getString("file_store_id"));
+        dto.setFileValid(CitizenServiceMapper.validity(dto.getFileStoreId(), rs.getObject("file_valid", Boolean.class)));
+        dto.setBoundaryCode(rs.getString("boundary_code"));
+        dto.setBoundaryValid(CitizenServiceMapper.validity(dto.getBoundaryCode(), rs.getObject("boundary_valid", Boolean.class)));
+        dto.setAction(rs.getString("action"));
+        dto.setWorkflowInstanceId(rs.getString("workflow_instance_id"));
+        dto.setCreatedTime(rs.getObject("created_time", Long.class));
+        dto.setLastModifiedTime(rs.getObject("last_modified_time", Long.class));
+        dto.setEmail(rs.getString("email"));
+        dto.setMobile(rs.getString("mobile"));
+        dto.setVersion(rs.getObject("version", Long.class));
+        return dto;
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.pgrown30.repository;
 
 import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.CitizenServiceKey;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.pgrown30.domain.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface CitizenServiceRepository extends JpaRepository<CitizenServiceEntity, String>, JpaSpecificationExecutor<CitizenServiceEntity> {
+public interface CitizenServiceRepository extends JpaRepository<CitizenServiceEntity, CitizenServiceKey>, JpaSpecificationExecutor<CitizenServiceEntity> {
+
+    // By request ID alone: probes the unique service_request_id index of every partition
+    Optional<CitizenServiceEntity> findByServiceRequestId(String serviceRequestId);
+
+    boolean existsByServiceRequestId(String serviceRequestId);
+
     List<CitizenServiceEntity> findByTenantId(String tenantId);
 
     List<CitizenServiceEntity> findByTenantIdAndServiceCode(String tenantId, String serviceCode);
@@ -18,4 +29,11 @@ public interface CitizenServiceRepository extends JpaRepository<CitizenServiceEn
     List<CitizenServiceEntity> findByTenantIdAndServiceCodeAndApplicationStatus(
     String tenantId, String serviceCode, Status applicationStatus
 );
+
+    // Requests created since the given time whose boundary or file check is still pending, oldest first
+    @Query("SELECT s FROM CitizenServiceEntity s WHERE s.createdTime >= :since AND "
+            + "((s.boundaryCode IS NOT NULL AND s.boundaryValid IS NULL) "
+            + "OR (s.fileStoreId IS NOT NULL AND s.fileValid IS NULL)) "
+            + "ORDER BY s.createdTime")
+    List<CitizenServiceEntity> findPendingValidation(@Param("since") long since, Pageable pageable);
 }
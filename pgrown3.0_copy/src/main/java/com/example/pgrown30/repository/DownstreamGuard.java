@@ -0,0 +1,87 @@
+package com.example.pgrown30.repository;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs calls to a DIGIT downstream behind that downstream's circuit breaker and bulkhead.
+ * <p>
+ * Both are looked up by downstream name (boundary, filestore, workflow, idgen, notification)
+ * and configured under {@code resilience4j.circuitbreaker.instances.<name>} and
+ * {@code resilience4j.bulkhead.instances.<name>}. The bulkhead caps how many request threads
+ * can wait on one downstream at a time, so a slow service can't take all of them; the breaker
+ * stops calling a failing or slow service at all until it has recovered. A call that is
+ * refused by either fails straight away with {@link DownstreamUnavailableException}.
+ * <p>
+ * Every call, refused ones included, is timed as {@code pgr.downstream.call} (see {@link DownstreamMetrics})
+ * and traced as a span named {@code <downstream> <operation>}. The HTTP client span of the call
+ * itself, if it gets that far, is its child.
+ */
+@Component
+public class DownstreamGuard {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final DownstreamMetrics downstreamMetrics;
+    private final Tracer tracer;
+
+    public DownstreamGuard(CircuitBreakerRegistry circuitBreakerRegistry,
+                           BulkheadRegistry bulkheadRegistry,
+                           DownstreamMetrics downstreamMetrics,
+                           Tracer tracer) {
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.downstreamMetrics = downstreamMetrics;
+        this.tracer = tracer;
+    }
+
+    public <T> T call(String downstream, String operation, Supplier<T> call) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(downstream);
+        Bulkhead bulkhead = bulkheadRegistry.bulkhead(downstream);
+        Span span = tracer.nextSpan().name(downstream + " " + operation)
+                .tag("pgr.downstream", downstream)
+                .tag("pgr.operation", operation)
+                .start();
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            T result = CircuitBreaker.decorateSupplier(circuitBreaker, Bulkhead.decorateSupplier(bulkhead, call)).get();
+            outcome = "success";
+            return result;
+        } catch (CallNotPermittedException e) {
+            outcome = "rejected";
+            span.error(e);
+            throw new DownstreamUnavailableException(downstream, "circuit breaker is open", e);
+        } catch (BulkheadFullException e) {
+            outcome = "rejected";
+            span.error(e);
+            throw new DownstreamUnavailableException(downstream, "too many concurrent calls", e);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.tag("pgr.outcome", outcome).end();
+            downstreamMetrics.recordCall(downstream, operation, outcome, start);
+        }
+    }
+
+    public void run(String downstream, String operation, Runnable call) {
+        call(downstream, operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public CircuitBreaker.State state(String downstream) {
+        return circuitBreakerRegistry.circuitBreaker(downstream).getState();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.pgrown30.repository;
+
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Timers for the DIGIT downstreams, both tagged by tenant and outcome:
+ * <ul>
+ *   <li>{@code pgr.downstream.call} (downstream, operation): every remote call, recorded by
+ *   {@link DownstreamGuard}; outcome is success, failure or rejected (breaker open, bulkhead full)</li>
+ *   <li>{@code pgr.repository.operation} (repository, operation): what the service layer waits for,
+ *   cache hits and leased IDs included; outcomes are per operation, e.g. valid/invalid/pending</li>
+ * </ul>
+ * The tenant tag is off by default ({@code pgr.metrics.tenant-tag=false}): every series is tagged
+ * tenant=all, since each tenant multiplies the number of series. When it is on, the tenant comes
+ * from the X-Tenant-ID header of the request being served; listing tenants in
+ * {@code pgr.metrics.tenants} keeps their own tag and tags every other tenant "other".
+ */
+@Component
+public class DownstreamMetrics {
+
+    private static final String TENANT_HEADER = "X-Tenant-ID";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean tenantTagEnabled;
+
+    // Tenants tagged by name; empty tags any tenant
+    private final Set<String> taggedTenants;
+
+    public DownstreamMetrics(MeterRegistry meterRegistry,
+                             @Value("${pgr.metrics.tenant-tag:false}") boolean tenantTagEnabled,
+                             @Value("${pgr.metrics.tenants:}") Set<String> taggedTenants) {
+        this.meterRegistry = meterRegistry;
+        this.tenantTagEnabled = tenantTagEnabled;
+        this.taggedTenants = taggedTenants.stream()
+                .map(String::trim)
+                .filter(tenant -> !tenant.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    void recordCall(String downstream, String operation, String outcome, long startNanos) {
+        Timer.builder("pgr.downstream.call")
+                .description("Duration of a call to a DIGIT downstream")
+                .tag("downstream", downstream)
+                .tag("operation", operation)
+                .tag("tenant", tenantTag(null))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordOperation(String repository, String operation, String tenantId, String outcome, long startNanos) {
+        Timer.builder("pgr.repository.operation")
+                .description("Duration of a repository operation backed by a DIGIT downstream")
+                .tag("repository", repository)
+                .tag("operation", operation)
+                .tag("tenant", tenantTag(tenantId))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tenant tag value: the given tenant, else the current request's X-Tenant-ID, else "none".
+     * A tenant missing from a configured {@code pgr.metrics.tenants} list reads "other".
+     */
+    public String tenantTag(String tenantId) {
+        if (!tenantTagEnabled) return "all";
+        String tenant = tenantId != null && !tenantId.isBlank() ? tenantId : requestTenant();
+        if (tenant == null) return "none";
+        return taggedTenants.isEmpty() || taggedTenants.contains(tenant) ? tenant : "other";
+    }
+
+    private static String requestTenant() {
+        String header = RequestContextSnapshot.currentHeader(TENANT_HEADER);
+        return header != null && !header.isBlank() ? header : null;
+    }
+
+    // valid / invalid / pending, for the boolean-or-unknown answers of the validity checks
+    static String validity(Boolean valid) {
+        return valid == null ? "pending" : valid ? "valid" : "invalid";
+    }
+}
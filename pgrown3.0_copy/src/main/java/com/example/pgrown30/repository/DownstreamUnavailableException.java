@@ -0,0 +1,19 @@
+package com.example.pgrown30.repository;
+
+/**
+ * A call refused without reaching the downstream: {@link DownstreamGuard} found its circuit
+ * breaker open or its bulkhead full, or no executor thread was free to make it.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    private final String downstream;
+
+    public DownstreamUnavailableException(String downstream, String reason, Throwable cause) {
+        super(downstream + " service unavailable: " + reason, cause);
+        this.downstream = downstream;
+    }
+
+    public String getDownstream() {
+        return downstream;
+    }
+}
@@ -1,12 +1,26 @@
 package com.example.pgrown30.repository;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.pgrown30.util.ValidityExpiry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+
 @Slf4j
 @Repository
 public class FileStoreRepository {
@@ -14,26 +28,143 @@ public class FileStoreRepository {
     @Value("${filestore.host}")
     private String fileStoreHost;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Value("${filestore.file.endpoint}")
+    private String metadataEndpoint;
+
+    private static final String DOWNSTREAM = "filestore";
+
+    private final RestTemplate restTemplate;
+    private final DownstreamGuard downstreamGuard;
+    private final DownstreamMetrics downstreamMetrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // Validity per tenantId|fileStoreId; a stored file doesn't change, so valid results live long
+    private final Cache<String, Boolean> validityCache;
+
+    // Answer for files the filestore couldn't check
+    private final ValidationFallback fallback;
+
+    public FileStoreRepository(@Qualifier("fileStoreRestTemplate") RestTemplate restTemplate,
+                               DownstreamGuard downstreamGuard,
+                               DownstreamMetrics downstreamMetrics,
+                               MeterRegistry meterRegistry,
+                               @Value("${filestore.cache.max-size:100000}") long cacheMaxSize,
+                               @Value("${filestore.cache.ttl-minutes:1440}") long cacheTtlMinutes,
+                               @Value("${filestore.cache.negative-ttl-seconds:60}") long cacheNegativeTtlSeconds,
+                               @Value("${filestore.fallback:PENDING}") ValidationFallback fallback) {
+        this.restTemplate = restTemplate;
+        this.downstreamGuard = downstreamGuard;
+        this.downstreamMetrics = downstreamMetrics;
+        this.fallback = fallback;
+        this.validityCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new ValidityExpiry<>(Duration.ofMinutes(cacheTtlMinutes), Duration.ofSeconds(cacheNegativeTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validityCache, "fileValidity");
+    }
+
     public boolean isFileValid(String tenantId, String fileStoreId) {
-    try {
+        return Boolean.TRUE.equals(checkFile(tenantId, fileStoreId));
+    }
+
+    /**
+     * Like {@link #isFileValid}, but a file the filestore couldn't check gets the configured
+     * {@code filestore.fallback} answer: null (pending) or false.
+     */
+    public Boolean checkFile(String tenantId, String fileStoreId) {
+        long start = System.nanoTime();
+        Boolean valid = lookupValidity(tenantId, fileStoreId);
+        downstreamMetrics.recordOperation(DOWNSTREAM, "isFileValid", tenantId, DownstreamMetrics.validity(valid), start);
+        return valid;
+    }
+
+    private Boolean lookupValidity(String tenantId, String fileStoreId) {
+        String key = tenantId + "|" + fileStoreId;
+        Boolean cached = validityCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            boolean valid = downstreamGuard.call(DOWNSTREAM, "checkMetadata", () -> checkMetadata(tenantId, fileStoreId));
+            validityCache.put(key, valid);
+            return valid;
+        } catch (HttpClientErrorException.NotFound e) {
+            // The filestore answered: no such file for this tenant
+            log.warn("File not found for fileStoreId={} tenantId={}", fileStoreId, tenantId);
+            validityCache.put(key, false);
+            return false;
+        } catch (DownstreamUnavailableException e) {
+            log.warn("File validation skipped for fileStoreId={} tenantId={}, answering {}: {}",
+                    fileStoreId, tenantId, fallback, e.getMessage());
+            return fallback.answer();
+        } catch (Exception e) {
+            // Not cached: the next create/update retries the filestore. Other 4xx answers (auth,
+            // rate limits) say nothing about the file, so they land here too
+            log.error("File validation failed for fileStoreId={} tenantId={}, answering {}", fileStoreId, tenantId, fallback, e);
+            return fallback.answer();
+        }
+    }
+
+    /**
+     * Validates through the filestore metadata endpoint, so the file itself is never downloaded.
+     * Falls back to a one-byte read of the file only when the metadata lookup answers 404 (no
+     * metadata for the file, or no such endpoint) or 405; any other failure goes to the caller
+     * and counts against the filestore's circuit breaker.
+     */
+    private boolean checkMetadata(String tenantId, String fileStoreId) {
+        String url = String.format(
+            "%s%s?tenantId=%s&fileStoreId=%s",
+            fileStoreHost, metadataEndpoint, tenantId, fileStoreId
+        );
+
+        try {
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                    url, HttpMethod.GET, null, new ParameterizedTypeReference<Map<String, Object>>() {});
+
+            Map<String, Object> metadata = response.getBody();
+            if (!response.getStatusCode().is2xxSuccessful() || metadata == null || metadata.isEmpty()) {
+                return false;
+            }
+            Long size = fileSize(metadata);
+            return size == null || size > 0;
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            log.warn("Metadata lookup failed for fileStoreId={}, checking file content instead: {}", fileStoreId, e.getMessage());
+            return checkContent(tenantId, fileStoreId);
+        }
+    }
+
+    /**
+     * Streams the file and stops after the first byte. The Range header lets the filestore send
+     * just that byte; nothing beyond it is buffered in memory either way.
+     */
+    private boolean checkContent(String tenantId, String fileStoreId) {
         String url = String.format(
             "%s/filestore/v1/files/%s?tenantId=%s",
             fileStoreHost, fileStoreId, tenantId
         );
 
-        ResponseEntity<byte[]> response = restTemplate.getForEntity(url, byte[].class);
-
-        // If 200 OK and body has some content → valid
-        return response.getStatusCode().is2xxSuccessful()
-                && response.getBody() != null
-                && response.getBody().length > 0;
+        Boolean valid = restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().set(HttpHeaders.RANGE, "bytes=0-0"),
+                response -> {
+                    if (!response.getStatusCode().is2xxSuccessful()) {
+                        return false;
+                    }
+                    try (InputStream body = response.getBody()) {
+                        return body.read() != -1;
+                    }
+                });
+        return Boolean.TRUE.equals(valid);
+    }
 
-    } catch (Exception e) {
-        log.error("File validation failed for fileStoreId={} tenantId={}", fileStoreId, tenantId, e);
-        return false;
+    private static Long fileSize(Map<String, Object> metadata) {
+        for (String field : new String[]{"fileSize", "size", "contentLength"}) {
+            Object value = metadata.get(field);
+            if (value instanceof Number number) {
+                return number.longValue();
+            }
+        }
+        return null;
     }
 }
-}
\ No newline at end of file
@@ -3,25 +3,180 @@ package com.example.pgrown30.repository;
 import com.digit.services.idgen.IdGenClient;
 import com.digit.services.idgen.model.IdGenGenerateRequest;
 import com.digit.services.idgen.model.GenerateIDResponse;
-import lombok.RequiredArgsConstructor;
+import com.example.pgrown30.config.ServiceCredentials;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Slf4j
 @Repository
-@RequiredArgsConstructor
 public class IdGenRepository {
 
+    private static final String DOWNSTREAM = "idgen";
+
     private final IdGenClient idGenClient;
+    private final DownstreamGuard downstreamGuard;
+    private final DownstreamMetrics downstreamMetrics;
+    private final ServiceCredentials serviceCredentials;
 
     @Value("${idgen.templateId}")
     private String templateId;
 
-    public String generateId(String orgCode) {
+    // Leasing mode: IDs are reserved from IdGen ahead of time and handed out from memory
+    @Value("${idgen.lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    @Value("${idgen.lease.block-size:50}")
+    private int leaseBlockSize;
+
+    @Value("${idgen.lease.low-water-mark:10}")
+    private int leaseLowWaterMark;
+
+    // After a failed refill, the lease isn't refilled again for this long, doubling up to the max
+    @Value("${idgen.lease.refill-backoff-ms:1000}")
+    private long refillBackoffMs;
+
+    @Value("${idgen.lease.refill-backoff-max-ms:60000}")
+    private long refillBackoffMaxMs;
+
+    // One lease per tenant and orgCode, so a pool only ever holds IDs generated for its own tenant
+    private final Map<String, IdLease> leases = new ConcurrentHashMap<>();
+
+    // A lease has at most one refill running or queued, so its IDs are still fetched one after
+    // another and stay in IdGen sequence order; a slow tenant holds up one thread, not all refills
+    private final ExecutorService refillExecutor;
+
+    public IdGenRepository(IdGenClient idGenClient,
+                           DownstreamGuard downstreamGuard,
+                           DownstreamMetrics downstreamMetrics,
+                           ServiceCredentials serviceCredentials,
+                           @Value("${idgen.lease.refill-threads:4}") int refillThreads) {
+        this.idGenClient = idGenClient;
+        this.downstreamGuard = downstreamGuard;
+        this.downstreamMetrics = downstreamMetrics;
+        this.serviceCredentials = serviceCredentials;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refillExecutor = Executors.newFixedThreadPool(Math.max(1, refillThreads), r -> {
+            Thread thread = new Thread(r, "idgen-lease-refill-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String generateId(String tenantId, String orgCode) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            IdLease lease = leaseEnabled
+                    ? leases.computeIfAbsent(leaseKey(tenantId, orgCode), key -> new IdLease(tenantId, orgCode))
+                    : null;
+            String id;
+
+            if (lease == null) {
+                id = requestId(RequestContextSnapshot.headersForTenant(tenantId), orgCode);
+                outcome = "direct";
+            } else {
+                boolean direct = false;
+                id = lease.poll();
+                if (id == null) {
+                    // Pool ran dry (cold start or demand outran the refill). The refill holds the fetch
+                    // lock for each ID it fetches, so an ID still on its way into the pool is taken
+                    // here rather than handed out after a newer one fetched directly.
+                    lease.fetchLock.lock();
+                    try {
+                        id = lease.poll();
+                        if (id == null) {
+                            log.warn("IdGen lease pool empty for tenantId={} orgCode={}, requesting ID synchronously",
+                                    tenantId, orgCode);
+                            id = requestId(RequestContextSnapshot.headersForTenant(tenantId), orgCode);
+                            direct = true;
+                        }
+                    } finally {
+                        lease.fetchLock.unlock();
+                    }
+                }
+                outcome = direct ? "direct" : "leased";
+                if (lease.size() < leaseLowWaterMark) {
+                    scheduleRefill(lease);
+                }
+            }
+            return id;
+        } finally {
+            downstreamMetrics.recordOperation(DOWNSTREAM, "generateId", tenantId, outcome, start);
+        }
+    }
+
+    /**
+     * Number of leased IDs currently available for the given tenant and orgCode.
+     */
+    public int leasedIdCount(String tenantId, String orgCode) {
+        IdLease lease = leases.get(leaseKey(tenantId, orgCode));
+        return lease != null ? lease.size() : 0;
+    }
+
+    private void scheduleRefill(IdLease lease) {
+        if (System.currentTimeMillis() < lease.refillNotBefore.get()
+                || !lease.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // The IDs are for whoever comes next, so the refill goes out with the service's own
+            // headers for the tenant, not those of the request that happened to cross the mark
+            Map<String, String> headers = serviceCredentials.headersFor(lease.tenantId);
+            refillExecutor.execute(() -> refill(lease, headers));
+        } catch (Exception e) {
+            lease.refilling.set(false);
+            log.warn("Could not schedule IdGen lease refill for tenantId={} orgCode={}: {}",
+                    lease.tenantId, lease.orgCode, e.getMessage());
+        }
+    }
+
+    private void refill(IdLease lease, Map<String, String> headers) {
+        try {
+            int needed = leaseBlockSize - lease.size();
+            for (int i = 0; i < needed; i++) {
+                lease.fetchLock.lock();
+                try {
+                    lease.offer(requestId(headers, lease.orgCode));
+                } finally {
+                    lease.fetchLock.unlock();
+                }
+            }
+            lease.failedRefills.set(0);
+            lease.refillNotBefore.set(0);
+            log.info("IdGen lease refilled for tenantId={} orgCode={}, available={}",
+                    lease.tenantId, lease.orgCode, lease.size());
+        } catch (Exception e) {
+            // Already logged by requestId; generateId below the low-water mark retries after the backoff
+            int failures = lease.failedRefills.incrementAndGet();
+            long backoff = Math.min(refillBackoffMaxMs, refillBackoffMs << Math.min(failures - 1, 16));
+            lease.refillNotBefore.set(System.currentTimeMillis() + backoff);
+            log.warn("IdGen lease refill stopped for tenantId={} orgCode={} with {} IDs available, next try in {} ms",
+                    lease.tenantId, lease.orgCode, lease.size(), backoff);
+        } finally {
+            lease.refilling.set(false);
+        }
+    }
+
+    private static String leaseKey(String tenantId, String orgCode) {
+        return tenantId + "|" + orgCode;
+    }
+
+    private String requestId(Map<String, String> headers, String orgCode) {
         try {
             Map<String, Object> variables = new HashMap<>();
             variables.put("ORG", orgCode); // e.g. "PGX"
@@ -37,8 +192,9 @@ public class IdGenRepository {
             log.info("Requesting ID from IdGen with templateId={} and orgCode={}", templateId, orgCode);
 
             // Use digit-client library for ID generation
-            // Headers are automatically propagated via HeaderPropagationInterceptor
-            GenerateIDResponse response = idGenClient.generateId(request);
+            // Headers are propagated by HeaderPropagationInterceptor from the request context set up here
+            GenerateIDResponse response = RequestContextSnapshot.callWithHeaders(headers,
+                    () -> downstreamGuard.call(DOWNSTREAM, "generateId", () -> idGenClient.generateId(request)));
 
             if (response == null || response.getId() == null) {
                 throw new RuntimeException("IdGen did not return a valid ID");
@@ -51,4 +207,43 @@ public class IdGenRepository {
             throw e;
         }
     }
+
+    @PreDestroy
+    public void shutdown() {
+        // Unused leased IDs are abandoned, never reused: IdGen has already moved past them,
+        // so IDs issued after a restart still sort after everything handed out before it.
+        refillExecutor.shutdownNow();
+    }
+
+    private static class IdLease {
+        private final String tenantId;
+        private final String orgCode;
+        private final Queue<String> ids = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private final AtomicInteger failedRefills = new AtomicInteger();
+        private final AtomicLong refillNotBefore = new AtomicLong();
+        // Held while an ID is fetched from IdGen and queued, by the refill and by direct calls alike
+        private final ReentrantLock fetchLock = new ReentrantLock();
+
+        IdLease(String tenantId, String orgCode) {
+            this.tenantId = tenantId;
+            this.orgCode = orgCode;
+        }
+
+        String poll() {
+            String id = ids.poll();
+            if (id != null) available.decrementAndGet();
+            return id;
+        }
+
+        void offer(String id) {
+            ids.offer(id);
+            available.incrementAndGet();
+        }
+
+        int size() {
+            return available.get();
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.example.pgrown30.repository;
+
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.domain.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntity, UUID> {
+
+    /**
+     * Locks up to a page of entries that are due. Rows already locked by another
+     * dispatcher are skipped (lock timeout -2 = SKIP LOCKED), so instances never block each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select o from NotificationOutboxEntity o where o.status = :status and o.nextAttemptTime <= :now order by o.nextAttemptTime")
+    List<NotificationOutboxEntity> findDueForUpdate(@Param("status") OutboxStatus status,
+                                                    @Param("now") long now,
+                                                    Pageable pageable);
+
+    /**
+     * Records a final outcome (SENT or DEAD) if the caller still holds the claim: the entry carries
+     * its claim token and the attempt count it was claimed with. Stored headers are dropped with
+     * the claim. Returns 0 when the claim timed out and another dispatcher took the entry over.
+     */
+    @Modifying
+    @Query("update NotificationOutboxEntity o set o.status = :status, o.attempts = :attempts, o.lastError = :lastError, "
+            + "o.lastModifiedTime = :now, o.headers = null, o.claimToken = null "
+            + "where o.id = :id and o.claimToken = :claimToken and o.attempts = :claimedAttempts")
+    int completeClaim(@Param("id") UUID id,
+                      @Param("claimToken") UUID claimToken,
+                      @Param("claimedAttempts") int claimedAttempts,
+                      @Param("status") OutboxStatus status,
+                      @Param("attempts") int attempts,
+                      @Param("lastError") String lastError,
+                      @Param("now") long now);
+
+    /**
+     * Schedules a retry if the caller still holds the claim, see {@link #completeClaim}.
+     */
+    @Modifying
+    @Query("update NotificationOutboxEntity o set o.attempts = :attempts, o.lastError = :lastError, "
+            + "o.nextAttemptTime = :nextAttemptTime, o.lastModifiedTime = :now, o.claimToken = null "
+            + "where o.id = :id and o.claimToken = :claimToken and o.attempts = :claimedAttempts")
+    int releaseClaim(@Param("id") UUID id,
+                     @Param("claimToken") UUID claimToken,
+                     @Param("claimedAttempts") int claimedAttempts,
+                     @Param("attempts") int attempts,
+                     @Param("lastError") String lastError,
+                     @Param("nextAttemptTime") long nextAttemptTime,
+                     @Param("now") long now);
+
+    long countByStatus(OutboxStatus status);
+}
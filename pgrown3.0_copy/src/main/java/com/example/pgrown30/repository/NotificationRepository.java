@@ -7,20 +7,25 @@ import com.digit.services.notification.model.SendSMSRequest;
 import com.digit.services.notification.model.SendSMSResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Sends email/SMS through the notification service. Called by the outbox dispatcher;
+ * failures are rethrown so the outbox entry is retried.
+ */
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class NotificationRepository {
 
+    private static final String DOWNSTREAM = "notification";
+
     private final NotificationClient notificationClient;
+    private final DownstreamGuard downstreamGuard;
 
-    @Async
     public void sendEmail(String templateId, List<String> emailIds, Map<String, Object> payload, List<String> attachments) {
         try {
             SendEmailRequest request = SendEmailRequest.builder()
@@ -34,16 +39,16 @@ public class NotificationRepository {
 
             // Use digit-client library for email sending
             // Headers are automatically propagated via HeaderPropagationInterceptor
-            SendEmailResponse response = notificationClient.sendEmail(request);
+            SendEmailResponse response = downstreamGuard.call(DOWNSTREAM, "sendEmail", () -> notificationClient.sendEmail(request));
 
             log.info("Email notification sent [{}] to {}: {}", templateId, emailIds, 
                     response != null ? response.getStatus() : "SUCCESS");
         } catch (Exception e) {
             log.error("Failed to send email [{}] to {}: {}", templateId, emailIds, e.getMessage());
+            throw e;
         }
     }
 
-    @Async
     public void sendSms(String templateId, List<String> mobileNumbers, Map<String, Object> payload, String category) {
         try {
             // Use default SMS category - let's check what values are available
@@ -61,12 +66,13 @@ public class NotificationRepository {
 
             // Use digit-client library for SMS sending
             // Headers are automatically propagated via HeaderPropagationInterceptor
-            SendSMSResponse response = notificationClient.sendSMS(request);
+            SendSMSResponse response = downstreamGuard.call(DOWNSTREAM, "sendSms", () -> notificationClient.sendSMS(request));
 
             log.info("SMS notification sent [{}] to {}: {}", templateId, mobileNumbers, 
                     response != null ? response.getStatus() : "SUCCESS");
         } catch (Exception e) {
             log.error("Failed to send SMS [{}] to {}: {}", templateId, mobileNumbers, e.getMessage());
+            throw e;
         }
     }
 }
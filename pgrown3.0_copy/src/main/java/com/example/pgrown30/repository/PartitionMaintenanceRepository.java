@@ -0,0 +1,87 @@
+package com.example.pgrown30.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Keeps the monthly created_time partitions (V8__partition_by_created_time.sql) ahead of
+ * the clock, so inserts never fall into the default partition, and optionally detaches
+ * partitions older than the retention window. Rows that reached the default partition while
+ * maintenance was behind are moved into their month's partition when it is created.
+ * Detached partitions are left in place as ordinary tables for archiving.
+ */
+@Slf4j
+@Repository
+public class PartitionMaintenanceRepository {
+
+    private static final List<String> PARTITIONED_TABLES = List.of(
+            "citizen_service", "citizen_address", "citizen_workflow", "citizen_document", "citizen_audit");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${pgr.partition.maintenance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pgr.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${pgr.partition.retention-months:0}")
+    private int retentionMonths;
+
+    public PartitionMaintenanceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pgr.partition.maintenance.interval-ms:21600000}",
+            initialDelayString = "${pgr.partition.maintenance.interval-ms:21600000}")
+    public void scheduledMaintenance() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    public void maintain() {
+        LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                Integer created = jdbcTemplate.queryForObject(
+                        "SELECT pgr_ensure_monthly_partitions(?, ?, ?)", Integer.class,
+                        table, currentMonth, monthsAhead);
+                if (created != null && created > 0) {
+                    log.info("Created {} monthly partitions for {}", created, table);
+                }
+
+                if (retentionMonths > 0) {
+                    long cutoff = currentMonth.minusMonths(retentionMonths)
+                            .atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+                    List<String> detached = jdbcTemplate.queryForList(
+                            "SELECT pgr_detach_partitions_before(?, ?)", String.class, table, cutoff);
+                    if (!detached.isEmpty()) {
+                        log.info("Detached partitions of {} older than {} months: {}", table, retentionMonths, detached);
+                    }
+                }
+            } catch (Exception e) {
+                // Existing partitions keep serving; the next run retries
+                log.error("Partition maintenance failed for {}: {}", table, e.getMessage(), e);
+            }
+        }
+    }
+}
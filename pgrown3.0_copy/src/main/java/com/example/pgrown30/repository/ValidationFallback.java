@@ -0,0 +1,18 @@
+package com.example.pgrown30.repository;
+
+/**
+ * What a boundary or file check answers when the downstream can't: breaker open, bulkhead
+ * full, timeout or error.
+ */
+public enum ValidationFallback {
+
+    // Unknown (null): stored as pending and revalidated in the background
+    PENDING,
+
+    // Invalid, the behaviour before breakers were added
+    INVALID;
+
+    Boolean answer() {
+        return this == PENDING ? null : Boolean.FALSE;
+    }
+}
@@ -3,7 +3,10 @@ package com.example.pgrown30.repository;
 import com.digit.services.workflow.WorkflowClient;
 import com.digit.services.workflow.model.WorkflowTransitionRequest;
 import com.digit.services.workflow.model.WorkflowTransitionResponse;
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,20 +15,44 @@ import org.springframework.stereotype.Repository;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Repository
 public class WorkflowRepository {
 
+    private static final String DOWNSTREAM = "workflow";
+
     private final WorkflowClient workflowClient;
     private final RestTemplate restTemplate;
+    private final DownstreamGuard downstreamGuard;
+
+    // Process definitions (states, actions, SLA) keyed by tenantId|processId
+    private final LoadingCache<String, Map<String, Object>> processCache;
 
     public WorkflowRepository(WorkflowClient workflowClient, 
-                             @Qualifier("pgrRestTemplate") RestTemplate restTemplate) {
+                             @Qualifier("pgrRestTemplate") RestTemplate restTemplate,
+                             DownstreamGuard downstreamGuard,
+                             @Qualifier("pgrTaskExecutor") Executor pgrTaskExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${workflow.process.cache.max-size:1000}") long cacheMaxSize,
+                             @Value("${workflow.process.cache.ttl-minutes:60}") long cacheTtlMinutes,
+                             @Value("${workflow.process.cache.refresh-minutes:10}") long cacheRefreshMinutes) {
         this.workflowClient = workflowClient;
         this.restTemplate = restTemplate;
+        this.downstreamGuard = downstreamGuard;
+        this.processCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                // Reloaded in the background on the first read after this, callers keep the old copy meanwhile
+                .refreshAfterWrite(Duration.ofMinutes(cacheRefreshMinutes))
+                .executor(pgrTaskExecutor)
+                .recordStats()
+                .build(this::loadProcess);
+        CaffeineCacheMetrics.monitor(meterRegistry, processCache, "workflowProcess");
     }
 
     @Value("${workflow.host}")
@@ -71,7 +98,7 @@ public class WorkflowRepository {
 
             // Use digit-client library for workflow transition
             // Headers are automatically propagated via HeaderPropagationInterceptor
-            WorkflowTransitionResponse response = workflowClient.executeTransition(request);
+            WorkflowTransitionResponse response = downstreamGuard.call(DOWNSTREAM, "transition", () -> workflowClient.executeTransition(request));
             
             log.info("Workflow transition completed successfully for entityId={} processId={} action={}", 
                     entityId, processId, action);
@@ -101,7 +128,7 @@ public class WorkflowRepository {
 
             // Use digit-client library for workflow transition
             // Headers are automatically propagated via HeaderPropagationInterceptor
-            WorkflowTransitionResponse response = workflowClient.executeTransition(request);
+            WorkflowTransitionResponse response = downstreamGuard.call(DOWNSTREAM, "updateProcessInstance", () -> workflowClient.executeTransition(request));
             
             boolean success = response != null && response.getId() != null;
             log.info("Process instance update for workflowInstanceId={}, processId={}, action={}: {}", 
@@ -120,8 +147,8 @@ public class WorkflowRepository {
                                                  String entityId) {
         String url = base() + "/transition?entityId=" + entityId + "&processId=" + processId;
         try {
-            ResponseEntity<Map> resp = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class);
+            ResponseEntity<Map> resp = downstreamGuard.call(DOWNSTREAM, "getLatestInstance", () -> restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class));
             return resp.getBody();
         } catch (RestClientException e) {
             log.error("Get latest instance failed for entityId={} processId={}: {}", entityId, processId, e.getMessage(), e);
@@ -134,8 +161,8 @@ public class WorkflowRepository {
                                                   String entityId) {
         String url = base() + "/transition?entityId=" + entityId + "&processId=" + processId + "&history=true";
         try {
-            ResponseEntity<Map> resp = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class);
+            ResponseEntity<Map> resp = downstreamGuard.call(DOWNSTREAM, "getInstanceHistory", () -> restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class));
             return resp.getBody();
         } catch (RestClientException e) {
             log.error("Get instance history failed for entityId={} processId={}: {}", entityId, processId, e.getMessage(), e);
@@ -158,9 +185,13 @@ public class WorkflowRepository {
                 "sla", slaSeconds
         );
         try {
-            ResponseEntity<Map> resp = restTemplate.exchange(
-                    url, HttpMethod.POST, new HttpEntity<>(body, defaultHeaders(tenantId)), Map.class);
-            return resp.getBody();
+            ResponseEntity<Map> resp = downstreamGuard.call(DOWNSTREAM, "createProcess", () -> restTemplate.exchange(
+                    url, HttpMethod.POST, new HttpEntity<>(body, defaultHeaders(tenantId)), Map.class));
+            Map<String, Object> created = resp.getBody();
+            if (created != null && created.get("id") != null) {
+                processCache.invalidate(processKey(tenantId, String.valueOf(created.get("id"))));
+            }
+            return created;
         } catch (RestClientException e) {
             log.error("createProcess failed: {}", e.getMessage(), e);
             throw e;
@@ -170,8 +201,8 @@ public class WorkflowRepository {
     public List<Map<String, Object>> getAllProcesses(String tenantId) {
         String url = base() + "/process";
         try {
-            ResponseEntity<List> resp = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), List.class);
+            ResponseEntity<List> resp = downstreamGuard.call(DOWNSTREAM, "getAllProcesses", () -> restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), List.class));
             return resp.getBody();
         } catch (RestClientException e) {
             log.error("getAllProcesses failed: {}", e.getMessage(), e);
@@ -182,8 +213,8 @@ public class WorkflowRepository {
     public Map<String, Object> getProcessById(String tenantId, String processId) {
         String url = base() + "/process/" + processId;
         try {
-            ResponseEntity<Map> resp = restTemplate.exchange(
-                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class);
+            ResponseEntity<Map> resp = downstreamGuard.call(DOWNSTREAM, "getProcessById", () -> restTemplate.exchange(
+                    url, HttpMethod.GET, new HttpEntity<>(defaultHeaders(tenantId)), Map.class));
             return resp.getBody();
         } catch (RestClientException e) {
             log.error("getProcessById failed: {}", e.getMessage(), e);
@@ -205,8 +236,9 @@ public class WorkflowRepository {
                 "sla", slaSeconds
         );
         try {
-            ResponseEntity<Map> resp = restTemplate.exchange(
-                    url, HttpMethod.PUT, new HttpEntity<>(body, defaultHeaders(tenantId)), Map.class);
+            ResponseEntity<Map> resp = downstreamGuard.call(DOWNSTREAM, "updateProcess", () -> restTemplate.exchange(
+                    url, HttpMethod.PUT, new HttpEntity<>(body, defaultHeaders(tenantId)), Map.class));
+            processCache.invalidate(processKey(tenantId, processId));
             return resp.getBody();
         } catch (RestClientException e) {
             log.error("updateProcess failed: {}", e.getMessage(), e);
@@ -217,16 +249,33 @@ public class WorkflowRepository {
     public void deleteProcess(String tenantId, String processId) {
         String url = base() + "/process/" + processId;
         try {
-            restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(defaultHeaders(tenantId)), Void.class);
+            downstreamGuard.call(DOWNSTREAM, "deleteProcess", () -> restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(defaultHeaders(tenantId)), Void.class));
+            processCache.invalidate(processKey(tenantId, processId));
         } catch (RestClientException e) {
             log.error("deleteProcess failed: {}", e.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * Cached process definition; loaded with {@link #getProcessById} on a miss and kept
+     * until it expires or the process is changed through this repository.
+     */
+    public Map<String, Object> getProcessDefinition(String tenantId, String processId) {
+        String key = processKey(tenantId, processId);
+        Map<String, Object> cached = processCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Loaded outside the cache's map lock, as in BoundaryRepository
+        Map<String, Object> process = loadProcess(key);
+        processCache.put(key, process);
+        return process;
+    }
+
     public boolean processExists(String tenantId, String processId) {
         try {
-            Map<String, Object> process = getProcessById(tenantId, processId);
+            Map<String, Object> process = getProcessDefinition(tenantId, processId);
             return process != null && !process.isEmpty();
         } catch (Exception e) {
             log.warn("Process {} does not exist for tenant {}: {}", processId, tenantId, e.getMessage());
@@ -234,5 +283,19 @@ public class WorkflowRepository {
         }
     }
 
+    private Map<String, Object> loadProcess(String key) {
+        int separator = key.indexOf('|');
+        Map<String, Object> process = getProcessById(key.substring(0, separator), key.substring(separator + 1));
+        // Empty bodies are not cached, so a process created elsewhere is picked up on the next call
+        if (process == null || process.isEmpty()) {
+            throw new IllegalStateException("Empty process definition for " + key);
+        }
+        return process;
+    }
+
+    private static String processKey(String tenantId, String processId) {
+        return tenantId + "|" + processId;
+    }
+
 }
 
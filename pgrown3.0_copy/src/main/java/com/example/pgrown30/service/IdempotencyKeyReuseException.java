@@ -0,0 +1,12 @@
+package com.example.pgrown30.service;
+
+/**
+ * An Idempotency-Key was sent again with a different request body. Mapped to 422: the key
+ * identifies one request, so the client must use a new key for a new request.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
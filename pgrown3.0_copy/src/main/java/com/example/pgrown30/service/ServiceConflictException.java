@@ -0,0 +1,17 @@
+package com.example.pgrown30.service;
+
+/**
+ * The service request was changed by someone else since the caller read it, or a new request
+ * reused an existing ID. Mapped to 409; the caller should re-read the request and retry with
+ * its current version.
+ */
+public class ServiceConflictException extends RuntimeException {
+
+    public ServiceConflictException(String message) {
+        super(message);
+    }
+
+    public ServiceConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
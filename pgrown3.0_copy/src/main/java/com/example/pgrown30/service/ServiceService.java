@@ -1,10 +1,17 @@
 package com.example.pgrown30.service;
 
+import com.example.pgrown30.web.models.BulkCreateResponse;
+import com.example.pgrown30.web.models.CitizenService;
 import com.example.pgrown30.web.models.ServiceResponse;
 import com.example.pgrown30.web.models.ServiceWrapper;
 
+import java.util.Iterator;
+import java.util.function.Consumer;
+
 public interface ServiceService {
     ServiceResponse createService(ServiceWrapper wrapper);
     ServiceResponse updateService(ServiceWrapper wrapper);
     ServiceResponse searchServices(ServiceWrapper wrapper);
+    void streamServices(ServiceWrapper wrapper, Consumer<CitizenService> consumer);
+    BulkCreateResponse bulkCreate(Iterator<ServiceWrapper> wrappers);
 }
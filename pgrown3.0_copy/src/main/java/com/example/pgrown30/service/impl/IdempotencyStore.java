@@ -0,0 +1,131 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.service.IdempotencyKeyReuseException;
+import com.example.pgrown30.service.ServiceConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of requests sent with an Idempotency-Key, so a client retry gets the
+ * original response instead of running the operation (IdGen, workflow, DB, notifications) again.
+ * <p>
+ * A key is held from the first request's start: a duplicate arriving while it is still running
+ * waits for its result. Failed requests are forgotten, so a retry after a failure runs again.
+ * The store is local to the instance; retries must reach the same instance to be deduplicated.
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entry> entries;
+    private final boolean enabled;
+    private final long waitTimeoutMs;
+
+    public IdempotencyStore(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${pgr.idempotency.enabled:true}") boolean enabled,
+                            @Value("${pgr.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${pgr.idempotency.max-size:10000}") long maxSize,
+                            @Value("${pgr.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency");
+    }
+
+    /**
+     * Runs the action once per scope and key. Without a key (or when disabled) the action
+     * simply runs.
+     *
+     * @param scope   what the key is unique within, e.g. operation and tenant
+     * @param request the request body; a replay with a different body is rejected
+     */
+    public <T> Outcome<T> execute(String scope, String key, Object request, Supplier<T> action) {
+        if (!enabled || key == null || key.isBlank()) {
+            return new Outcome<>(action.get(), false);
+        }
+
+        String cacheKey = scope + "|" + key;
+        Entry entry = new Entry(fingerprint(request), new CompletableFuture<>());
+        Entry previous = entries.asMap().putIfAbsent(cacheKey, entry);
+
+        if (previous != null) {
+            if (!previous.fingerprint().equals(entry.fingerprint())) {
+                throw new IdempotencyKeyReuseException("Idempotency-Key " + key + " was already used for a different request");
+            }
+            log.info("Replaying response for Idempotency-Key {} ({})", key, scope);
+            return new Outcome<>(await(previous, key), true);
+        }
+
+        try {
+            T response = action.get();
+            entry.response().complete(response);
+            return new Outcome<>(response, false);
+        } catch (Throwable e) {
+            // Errors too: a key left registered would make every retry wait on a future that never completes
+            entries.asMap().remove(cacheKey, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T await(Entry entry, String key) {
+        try {
+            return (T) entry.response().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceConflictException("Request with Idempotency-Key " + key + " is still in progress");
+        } catch (ExecutionException | CompletionException e) {
+            // The original attempt failed; the duplicate reports the same failure
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for Idempotency-Key " + key, e);
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("Could not fingerprint request", e);
+        }
+    }
+
+    private record Entry(String fingerprint, CompletableFuture<Object> response) {
+    }
+
+    /**
+     * The response, and whether it was replayed from an earlier request with the same key.
+     */
+    public record Outcome<T>(T response, boolean replayed) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.config.ServiceCredentials;
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.domain.OutboxStatus;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import com.example.pgrown30.repository.NotificationRepository;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the notification outbox: claims due entries in batches, sends them on the
+ * dispatcher pool and records the outcome. Failed sends are retried with exponential
+ * backoff and dead-lettered (status DEAD) once they run out of attempts.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor dispatchExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ServiceCredentials serviceCredentials;
+
+    @Value("${pgr.notification.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pgr.notification.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${pgr.notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${pgr.notification.outbox.backoff-initial-ms:2000}")
+    private long backoffInitialMs;
+
+    @Value("${pgr.notification.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    // How long a claimed entry stays invisible to other pollers; covers a dispatcher dying mid-send
+    @Value("${pgr.notification.outbox.claim-timeout-ms:60000}")
+    private long claimTimeoutMs;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationRepository notificationRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Qualifier("notificationDispatchExecutor") Executor dispatchExecutor,
+                                  MeterRegistry meterRegistry,
+                                  ServiceCredentials serviceCredentials) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.dispatchExecutor = dispatchExecutor;
+        this.meterRegistry = meterRegistry;
+        this.serviceCredentials = serviceCredentials;
+    }
+
+    @Scheduled(fixedDelayString = "${pgr.notification.outbox.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled) return;
+
+        try {
+            // Keep draining while full batches come back, so a backlog is not limited to one batch per interval
+            while (dispatchBatch() == batchSize) {
+                log.debug("Notification outbox batch full, draining next batch");
+            }
+        } catch (Exception e) {
+            log.error("Notification outbox poll failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims and sends one batch of due entries. Returns the number of entries claimed.
+     */
+    public int dispatchBatch() {
+        List<NotificationOutboxEntity> batch = claimBatch();
+        if (batch.isEmpty()) return 0;
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (NotificationOutboxEntity entry : batch) {
+            sends.add(CompletableFuture.runAsync(() -> dispatch(entry), dispatchExecutor));
+        }
+        // Wait for the batch so the next poll doesn't claim faster than the pool can send
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).join();
+        return batch.size();
+    }
+
+    private List<NotificationOutboxEntity> claimBatch() {
+        List<NotificationOutboxEntity> batch = transactionTemplate.execute(status -> {
+            long now = Instant.now().toEpochMilli();
+            UUID claimToken = UUID.randomUUID();
+            List<NotificationOutboxEntity> due = outboxRepository.findDueForUpdate(
+                    OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+
+            // Push the entries out of the due window before releasing the row locks
+            for (NotificationOutboxEntity entry : due) {
+                entry.setNextAttemptTime(now + claimTimeoutMs);
+                entry.setLastModifiedTime(now);
+                entry.setClaimToken(claimToken);
+            }
+            return outboxRepository.saveAll(due);
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    void dispatch(NotificationOutboxEntity entry) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome;
+        int claimedAttempts = entry.getAttempts();
+        try {
+            RequestContextSnapshot.runWithHeaders(sendHeaders(entry), () -> send(entry));
+            outcome = markSent(entry, claimedAttempts);
+        } catch (Exception e) {
+            outcome = markFailed(entry, claimedAttempts, e);
+        }
+
+        sample.stop(meterRegistry.timer("pgr.notification.outbox.send", "channel", entry.getChannel()));
+        meterRegistry.counter("pgr.notification.outbox.dispatched",
+                "channel", entry.getChannel(), "outcome", outcome).increment();
+    }
+
+    // The stored tenant and correlation headers, sent with the service's credentials rather than a user's
+    private Map<String, String> sendHeaders(NotificationOutboxEntity entry) {
+        Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+        if (entry.getHeaders() != null) {
+            headers.putAll(entry.getHeaders());
+        }
+        headers.remove(HttpHeaders.AUTHORIZATION);
+        headers.putAll(serviceCredentials.headersFor(entry.getTenantId()));
+        return headers;
+    }
+
+    private void send(NotificationOutboxEntity entry) {
+        if (NotificationOutboxEntity.CHANNEL_EMAIL.equals(entry.getChannel())) {
+            notificationRepository.sendEmail(entry.getTemplateId(), entry.getRecipients(),
+                    entry.getPayload(), entry.getAttachments());
+        } else if (NotificationOutboxEntity.CHANNEL_SMS.equals(entry.getChannel())) {
+            notificationRepository.sendSms(entry.getTemplateId(), entry.getRecipients(),
+                    entry.getPayload(), entry.getCategory());
+        } else {
+            throw new IllegalStateException("Unknown notification channel: " + entry.getChannel());
+        }
+    }
+
+    private String markSent(NotificationOutboxEntity entry, int claimedAttempts) {
+        entry.setStatus(OutboxStatus.SENT);
+        entry.setAttempts(claimedAttempts + 1);
+        entry.setLastError(null);
+        entry.setLastModifiedTime(Instant.now().toEpochMilli());
+        Integer updated = transactionTemplate.execute(status -> outboxRepository.completeClaim(
+                entry.getId(), entry.getClaimToken(), claimedAttempts,
+                OutboxStatus.SENT, entry.getAttempts(), null, entry.getLastModifiedTime()));
+        return claimHeld(entry, updated) ? "sent" : "claim_lost";
+    }
+
+    private String markFailed(NotificationOutboxEntity entry, int claimedAttempts, Exception error) {
+        long now = Instant.now().toEpochMilli();
+        int attempts = claimedAttempts + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(error.getMessage()));
+        entry.setLastModifiedTime(now);
+
+        String outcome;
+        if (attempts >= maxAttempts) {
+            entry.setStatus(OutboxStatus.DEAD);
+            outcome = "dead";
+            log.error("Notification {} [{}] for serviceRequestId={} dead-lettered after {} attempts: {}",
+                    entry.getId(), entry.getChannel(), entry.getServiceRequestId(), attempts, error.getMessage());
+        } else {
+            entry.setNextAttemptTime(now + backoffDelayMs(attempts));
+            outcome = "retry";
+            log.warn("Notification {} [{}] for serviceRequestId={} failed (attempt {}/{}), retrying at {}: {}",
+                    entry.getId(), entry.getChannel(), entry.getServiceRequestId(), attempts, maxAttempts,
+                    entry.getNextAttemptTime(), error.getMessage());
+        }
+
+        try {
+            Integer updated = transactionTemplate.execute(status -> entry.getStatus() == OutboxStatus.DEAD
+                    ? outboxRepository.completeClaim(entry.getId(), entry.getClaimToken(), claimedAttempts,
+                            OutboxStatus.DEAD, attempts, entry.getLastError(), now)
+                    : outboxRepository.releaseClaim(entry.getId(), entry.getClaimToken(), claimedAttempts,
+                            attempts, entry.getLastError(), entry.getNextAttemptTime(), now));
+            if (!claimHeld(entry, updated)) {
+                outcome = "claim_lost";
+            }
+        } catch (Exception e) {
+            // The claim timeout makes the entry due again, so it is retried anyway
+            log.error("Could not record failed notification {}: {}", entry.getId(), e.getMessage());
+        }
+        return outcome;
+    }
+
+    // False when the claim timed out and another dispatcher took the entry over; that one records the outcome
+    private boolean claimHeld(NotificationOutboxEntity entry, Integer updated) {
+        if (updated != null && updated > 0) {
+            return true;
+        }
+        log.warn("Notification {} [{}] for serviceRequestId={} was reclaimed by another dispatcher, outcome not recorded",
+                entry.getId(), entry.getChannel(), entry.getServiceRequestId());
+        return false;
+    }
+
+    /**
+     * Exponential backoff with jitter: initial * 2^(attempts-1), capped, randomised by up to 20%.
+     */
+    long backoffDelayMs(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 20);
+        delay = Math.min(delay, backoffMaxMs);
+        long jitter = (long) (delay * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return delay - jitter;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return null;
+        return message.length() > 512 ? message.substring(0, 512) : message;
+    }
+}
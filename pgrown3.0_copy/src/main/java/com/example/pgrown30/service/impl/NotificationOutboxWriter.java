@@ -0,0 +1,140 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.domain.OutboxStatus;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a saved service request into outbox entries (one per channel). Called inside
+ * the transaction that saves the request, so the notifications commit or roll back with it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxWriter {
+
+    // Headers replayed by the dispatcher. Never Authorization: the dispatcher sends with the service's own credentials
+    private static final List<String> PERSISTED_HEADERS =
+            List.of("X-Tenant-ID", "X-Correlation-ID", "X-Request-ID", "X-Client-ID");
+
+    // Map workflow actions to SMS templates
+    private static final Map<String, String> SMS_TEMPLATES = Map.of(
+            "APPLY", "service-initiated",
+            "ASSIGN", "service-assigned",
+            "RESOLVE", "service-resolved",
+            "CLOSE", "service-closed"
+    );
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    public void enqueue(CitizenServiceEntity service) {
+        List<NotificationOutboxEntity> entries = buildEntries(service);
+        if (entries.isEmpty()) return;
+
+        notificationOutboxRepository.saveAll(entries);
+        log.info("Queued {} notification(s) for serviceRequestId={}", entries.size(), service.getServiceRequestId());
+    }
+
+    /**
+     * Queues the notifications of many services with one saveAll, so Hibernate can batch the inserts.
+     */
+    public void enqueueAll(Collection<CitizenServiceEntity> services) {
+        List<NotificationOutboxEntity> entries = new ArrayList<>();
+        services.forEach(service -> entries.addAll(buildEntries(service)));
+        if (entries.isEmpty()) return;
+
+        notificationOutboxRepository.saveAll(entries);
+        log.info("Queued {} notification(s) for {} service requests", entries.size(), services.size());
+    }
+
+    public List<NotificationOutboxEntity> buildEntries(CitizenServiceEntity service) {
+        if (service.getTenantId() == null) return Collections.emptyList();
+
+        // Determine workflow action for dynamic templates
+        String workflowAction = service.getAction() != null ? service.getAction() : "APPLY";
+        String statusLabel = service.getApplicationStatus() != null ? service.getApplicationStatus().name() : null;
+        Map<String, String> headers = requestHeaders(service.getTenantId());
+        long now = Instant.now().toEpochMilli();
+
+        List<NotificationOutboxEntity> entries = new ArrayList<>(2);
+
+        // --- Email Notification ---
+        if (service.getEmail() != null && !service.getEmail().isEmpty()) {
+            // Not Map.of: accountId and description may be null
+            Map<String, Object> emailPayload = new LinkedHashMap<>();
+            emailPayload.put("applicationNo", service.getServiceRequestId());
+            emailPayload.put("citizenName", service.getAccountId());
+            emailPayload.put("serviceName", service.getDescription());
+            emailPayload.put("statusLabel", statusLabel);
+            emailPayload.put("action", workflowAction);
+            emailPayload.put("trackUrl", "https://pgr.digit.org/track/" + service.getServiceRequestId());
+            emailPayload.put("ulbName", "Hyderabad Municipal Corporation");
+
+            List<String> attachments = service.getFileStoreId() != null ? List.of(service.getFileStoreId()) : Collections.emptyList();
+
+            entries.add(entry(service, NotificationOutboxEntity.CHANNEL_EMAIL, "service-request-received-new",
+                    List.of(service.getEmail()), emailPayload, headers, now)
+                    .attachments(attachments)
+                    .build());
+        }
+
+        // --- SMS Notification ---
+        if (service.getMobile() != null && !service.getMobile().isEmpty()) {
+            Map<String, Object> smsPayload = new LinkedHashMap<>();
+            smsPayload.put("applicationNo", service.getServiceRequestId());
+            smsPayload.put("serviceName", service.getDescription());
+            smsPayload.put("statusLabel", statusLabel);
+            smsPayload.put("action", workflowAction);
+
+            entries.add(entry(service, NotificationOutboxEntity.CHANNEL_SMS,
+                    SMS_TEMPLATES.getOrDefault(workflowAction, "service-update"),
+                    List.of(service.getMobile()), smsPayload, headers, now)
+                    .category("INFO")
+                    .build());
+        }
+
+        return entries;
+    }
+
+    private NotificationOutboxEntity.NotificationOutboxEntityBuilder entry(
+            CitizenServiceEntity service, String channel, String templateId, List<String> recipients,
+            Map<String, Object> payload, Map<String, String> headers, long now) {
+        return NotificationOutboxEntity.builder()
+                .serviceRequestId(service.getServiceRequestId())
+                .tenantId(service.getTenantId())
+                .channel(channel)
+                .templateId(templateId)
+                .recipients(recipients)
+                .payload(payload)
+                .headers(headers)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptTime(now)
+                .createdTime(now)
+                .lastModifiedTime(now);
+    }
+
+    private Map<String, String> requestHeaders(String tenantId) {
+        Map<String, String> headers = new HashMap<>();
+        for (String name : PERSISTED_HEADERS) {
+            String value = RequestContextSnapshot.currentHeader(name);
+            if (value != null) headers.put(name, value);
+        }
+        headers.putIfAbsent("X-Tenant-ID", tenantId);
+        return headers;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.repository.BoundaryRepository;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.repository.FileStoreRepository;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves service requests whose boundary or file validity is pending: either the boundary
+ * service or filestore was unavailable when they were created, or they were accepted with
+ * pgr.create.accept-fast and not checked at all. Once every check has an answer the request is
+ * saved with it, and if it turned out valid its notifications, which were held back at create
+ * time, are queued.
+ * <p>
+ * Accept-fast creates are {@link #submit submitted} straight after they are saved; the
+ * scheduled poll picks up everything else, and anything a submit didn't resolve.
+ */
+@Slf4j
+@Component
+public class PendingValidationWorker {
+
+    private final CitizenServiceRepository citizenServiceRepository;
+    private final BoundaryRepository boundaryRepository;
+    private final FileStoreRepository fileStoreRepository;
+    private final NotificationOutboxWriter notificationOutboxWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor validationExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${pgr.revalidation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${pgr.revalidation.batch-size:100}")
+    private int batchSize;
+
+    // Older pending requests are left alone (rows from before boundary_valid existed read as pending too)
+    @Value("${pgr.revalidation.max-age-hours:72}")
+    private long maxAgeHours;
+
+    public PendingValidationWorker(CitizenServiceRepository citizenServiceRepository,
+                                   BoundaryRepository boundaryRepository,
+                                   FileStoreRepository fileStoreRepository,
+                                   NotificationOutboxWriter notificationOutboxWriter,
+                                   TransactionTemplate transactionTemplate,
+                                   @Qualifier("validationExecutor") Executor validationExecutor,
+                                   MeterRegistry meterRegistry) {
+        this.citizenServiceRepository = citizenServiceRepository;
+        this.boundaryRepository = boundaryRepository;
+        this.fileStoreRepository = fileStoreRepository;
+        this.notificationOutboxWriter = notificationOutboxWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.validationExecutor = validationExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Scheduled(fixedDelayString = "${pgr.revalidation.interval-ms:60000}",
+            initialDelayString = "${pgr.revalidation.interval-ms:60000}")
+    public void poll() {
+        if (!enabled) return;
+
+        try {
+            revalidateBatch();
+        } catch (Exception e) {
+            log.error("Pending validation run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks a just-saved request on the validation pool, with the current request's headers.
+     * The caller must be done with the instance: it is updated and saved again in the background.
+     */
+    public void submit(CitizenServiceEntity service) {
+        validationExecutor.execute(() -> {
+            try {
+                recheck(service);
+            } catch (Exception e) {
+                // Still pending, so the scheduled poll retries it
+                log.warn("Validation of serviceRequestId={} failed: {}", service.getServiceRequestId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Re-checks one batch of pending requests. Returns how many of them were resolved.
+     */
+    public int revalidateBatch() {
+        long since = Instant.now().minus(Duration.ofHours(maxAgeHours)).toEpochMilli();
+        List<CitizenServiceEntity> pending = citizenServiceRepository.findPendingValidation(since, PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) return 0;
+
+        int resolved = 0;
+        for (CitizenServiceEntity service : pending) {
+            if (revalidate(service)) resolved++;
+        }
+        log.info("Revalidated {} pending service requests, {} resolved", pending.size(), resolved);
+        return resolved;
+    }
+
+    private boolean revalidate(CitizenServiceEntity service) {
+        AtomicBoolean resolved = new AtomicBoolean();
+        // No incoming request here; the tenant header is what the boundary and filestore calls need
+        RequestContextSnapshot.runWithHeaders(Map.of("X-Tenant-ID", service.getTenantId()),
+                () -> resolved.set(recheck(service)));
+        return resolved.get();
+    }
+
+    private boolean recheck(CitizenServiceEntity service) {
+        boolean changed = false;
+        if (service.getBoundaryCode() != null && service.getBoundaryValid() == null) {
+            Boolean valid = boundaryRepository.checkBoundary(service.getTenantId(), service.getBoundaryCode());
+            service.setBoundaryValid(valid);
+            changed = valid != null;
+        }
+        if (service.getFileStoreId() != null && service.getFileValid() == null) {
+            Boolean valid = fileStoreRepository.checkFile(service.getTenantId(), service.getFileStoreId());
+            service.setFileValid(valid);
+            changed |= valid != null;
+        }
+        if (!changed) {
+            meterRegistry.counter("pgr.validation.revalidated", "outcome", "pending").increment();
+            return false;
+        }
+
+        try {
+            boolean valid = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                CitizenServiceEntity saved = citizenServiceRepository.save(service);
+                if (!ServiceServiceImpl.isServiceValid(saved)) return false;
+                notificationOutboxWriter.enqueue(saved);
+                return true;
+            }));
+            // One check answered, the other still pending: saved, and picked up again next run
+            boolean stillPending = isPending(service);
+            meterRegistry.counter("pgr.validation.revalidated",
+                    "outcome", stillPending ? "pending" : valid ? "valid" : "invalid").increment();
+            log.info("Pending validation of serviceRequestId={}: boundaryValid={} fileValid={}",
+                    service.getServiceRequestId(), service.getBoundaryValid(), service.getFileValid());
+            return !stillPending;
+        } catch (OptimisticLockingFailureException e) {
+            // Updated meanwhile; still pending, so the next run picks it up again
+            log.info("Pending validation of serviceRequestId={} skipped, modified concurrently", service.getServiceRequestId());
+            return false;
+        }
+    }
+
+    static boolean isPending(CitizenServiceEntity service) {
+        return (service.getBoundaryCode() != null && service.getBoundaryValid() == null)
+                || (service.getFileStoreId() != null && service.getFileValid() == null);
+    }
+}
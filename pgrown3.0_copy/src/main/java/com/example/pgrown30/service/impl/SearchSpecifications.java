@@ -0,0 +1,66 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.SearchCursor;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.web.models.CitizenService;
+import jakarta.persistence.criteria.Expression;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Specifications of the JPA entity search path (pgr.search.projection.enabled=false): the
+ * search filters, the keyset order and the condition for rows after a cursor.
+ */
+final class SearchSpecifications {
+
+    private SearchSpecifications() {
+    }
+
+    // Tenant, plus service code and status when given; createdTime in [from, to) where bounded
+    static Specification<CitizenServiceEntity> filters(CitizenService dto, Long from, Long to) {
+        Specification<CitizenServiceEntity> spec = Specification.where(
+            (root, query, cb) -> cb.equal(root.get("tenantId"), dto.getTenantId())
+        );
+
+        if (dto.getServiceCode() != null && !dto.getServiceCode().isEmpty()) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("serviceCode"), dto.getServiceCode()));
+        }
+
+        if (dto.getApplicationStatus() != null && !dto.getApplicationStatus().isEmpty()) {
+            spec = spec.and((root, query, cb) ->
+                cb.equal(root.get("applicationStatus"), Status.valueOf(dto.getApplicationStatus()))
+            );
+        }
+
+        if (from != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdTime"), from));
+        }
+        if (to != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.get("createdTime"), to));
+        }
+        return spec;
+    }
+
+    // Search order: created_time desc, ties broken by the request ID.
+    // Set on the criteria query so the order travels with the other specifications.
+    static Specification<CitizenServiceEntity> keysetOrder() {
+        return (root, query, cb) -> {
+            query.orderBy(
+                    cb.desc(root.get("createdTime")),
+                    cb.desc(root.get("serviceRequestId")));
+            return null;
+        };
+    }
+
+    // Rows strictly after the cursor in search order
+    static Specification<CitizenServiceEntity> after(SearchCursor cursor) {
+        return (root, query, cb) -> {
+            Expression<Long> createdTime = root.get("createdTime");
+            return cb.or(
+                    cb.lessThan(createdTime, cursor.createdTime()),
+                    cb.and(
+                            cb.equal(createdTime, cursor.createdTime()),
+                            cb.lessThan(root.get("serviceRequestId"), cursor.serviceRequestId())));
+        };
+    }
+}
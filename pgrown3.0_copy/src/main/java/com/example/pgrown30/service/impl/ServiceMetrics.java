@@ -0,0 +1,190 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.repository.DownstreamMetrics;
+import com.example.pgrown30.repository.DownstreamUnavailableException;
+import com.example.pgrown30.service.ServiceConflictException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Request-level metrics of the service operations (create, update, search, search_stream).
+ * <p>
+ * Every call is timed as {@code pgr.service.request} (tags: operation, tenant, outcome), where
+ * outcome is success, client_error (a version conflict, or an invalid argument such as a malformed
+ * search cursor), unavailable (a downstream refused the call) or error. Each operation also gets
+ * SLO gauges over a rolling window of {@code pgr.slo.window-minutes}:
+ * <ul>
+ *   <li>{@code pgr.slo.requests}: requests in the window</li>
+ *   <li>{@code pgr.slo.latency.threshold}: the latency objective in seconds, {@code pgr.slo.<operation>.latency-ms}</li>
+ *   <li>{@code pgr.slo.latency.attainment}: share of successful requests that finished within it</li>
+ *   <li>{@code pgr.slo.availability}: share of requests that didn't fail on our side
+ *   (unavailable or error; client errors count as served)</li>
+ *   <li>{@code pgr.slo.objective}: the share both should stay above, {@code pgr.slo.<operation>.objective}</li>
+ * </ul>
+ * An empty window reads as 1, so an idle service is not in breach.
+ */
+@Component
+public class ServiceMetrics {
+
+    static final String CREATE = "create";
+    static final String UPDATE = "update";
+    static final String SEARCH = "search";
+    // Timed until the last row is written, so its latency grows with the result size
+    static final String SEARCH_STREAM = "search_stream";
+
+    private final MeterRegistry meterRegistry;
+    private final DownstreamMetrics downstreamMetrics;
+    private final Map<String, SloWindow> windows = new ConcurrentHashMap<>();
+
+    public ServiceMetrics(MeterRegistry meterRegistry,
+                          DownstreamMetrics downstreamMetrics,
+                          Environment environment,
+                          @Value("${pgr.slo.window-minutes:5}") int windowMinutes) {
+        this.meterRegistry = meterRegistry;
+        this.downstreamMetrics = downstreamMetrics;
+
+        for (String operation : new String[]{CREATE, UPDATE, SEARCH, SEARCH_STREAM}) {
+            long latencyMs = environment.getProperty("pgr.slo." + operation + ".latency-ms", Long.class, 1000L);
+            double objective = environment.getProperty("pgr.slo." + operation + ".objective", Double.class, 0.99);
+            SloWindow window = new SloWindow(Duration.ofMillis(latencyMs), windowMinutes);
+            windows.put(operation, window);
+
+            Gauge.builder("pgr.slo.requests", window, SloWindow::requests)
+                    .description("Requests in the SLO window").tag("operation", operation).register(meterRegistry);
+            Gauge.builder("pgr.slo.latency.threshold", () -> latencyMs / 1000.0)
+                    .description("Latency objective").baseUnit("seconds").tag("operation", operation).register(meterRegistry);
+            Gauge.builder("pgr.slo.latency.attainment", window, SloWindow::latencyAttainment)
+                    .description("Share of successful requests in the SLO window within the latency objective")
+                    .tag("operation", operation).register(meterRegistry);
+            Gauge.builder("pgr.slo.availability", window, SloWindow::availability)
+                    .description("Share of requests in the SLO window not failed by the service or a downstream")
+                    .tag("operation", operation).register(meterRegistry);
+            Gauge.builder("pgr.slo.objective", () -> objective)
+                    .description("Share that latency attainment and availability should stay above")
+                    .tag("operation", operation).register(meterRegistry);
+        }
+    }
+
+    <T> T record(String operation, String tenantId, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } catch (ServiceConflictException | IllegalArgumentException e) {
+            outcome = "client_error";
+            throw e;
+        } catch (DownstreamUnavailableException e) {
+            outcome = "unavailable";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("pgr.service.request")
+                    .description("Duration of a service operation")
+                    .tag("operation", operation)
+                    .tag("tenant", downstreamMetrics.tenantTag(tenantId))
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            windows.get(operation).record(outcome, elapsed);
+        }
+    }
+
+    String tenantTag(String tenantId) {
+        return downstreamMetrics.tenantTag(tenantId);
+    }
+
+    /**
+     * Request counts per minute over the last few minutes, kept in a ring of one slot per minute.
+     */
+    static class SloWindow {
+
+        private final long thresholdNanos;
+        private final Slot[] slots;
+        private final ReentrantLock rolloverLock = new ReentrantLock();
+
+        SloWindow(Duration threshold, int minutes) {
+            this.thresholdNanos = threshold.toNanos();
+            this.slots = new Slot[Math.max(1, minutes)];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = new Slot();
+            }
+        }
+
+        void record(String outcome, long elapsedNanos) {
+            Slot slot = current(System.currentTimeMillis() / 60_000);
+            slot.total.incrementAndGet();
+            if ("success".equals(outcome)) {
+                slot.succeeded.incrementAndGet();
+                if (elapsedNanos <= thresholdNanos) slot.withinThreshold.incrementAndGet();
+            } else if (!"client_error".equals(outcome)) {
+                slot.failed.incrementAndGet();
+            }
+        }
+
+        double requests() {
+            return sum(slot -> slot.total);
+        }
+
+        double latencyAttainment() {
+            double succeeded = sum(slot -> slot.succeeded);
+            return succeeded == 0 ? 1.0 : sum(slot -> slot.withinThreshold) / succeeded;
+        }
+
+        double availability() {
+            double total = sum(slot -> slot.total);
+            return total == 0 ? 1.0 : 1.0 - sum(slot -> slot.failed) / total;
+        }
+
+        private Slot current(long minute) {
+            Slot slot = slots[(int) (minute % slots.length)];
+            if (slot.minute != minute) {
+                rolloverLock.lock();
+                try {
+                    // The slot last held a minute that has left the window; start it afresh
+                    if (slot.minute != minute) {
+                        slot.total.set(0);
+                        slot.succeeded.set(0);
+                        slot.withinThreshold.set(0);
+                        slot.failed.set(0);
+                        slot.minute = minute;
+                    }
+                } finally {
+                    rolloverLock.unlock();
+                }
+            }
+            return slot;
+        }
+
+        private double sum(Function<Slot, AtomicLong> counter) {
+            long oldest = System.currentTimeMillis() / 60_000 - slots.length + 1;
+            long sum = 0;
+            for (Slot slot : slots) {
+                if (slot.minute >= oldest) sum += counter.apply(slot).get();
+            }
+            return sum;
+        }
+
+        private static class Slot {
+            private volatile long minute = -1;
+            private final AtomicLong total = new AtomicLong();
+            private final AtomicLong succeeded = new AtomicLong();
+            private final AtomicLong withinThreshold = new AtomicLong();
+            private final AtomicLong failed = new AtomicLong();
+        }
+    }
+}
@@ -2,25 +2,42 @@ package com.example.pgrown30.service.impl;
 
 import com.example.pgrown30.config.PgrConfig;
 import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.SearchCursor;
 import com.example.pgrown30.domain.Status;
 import com.example.pgrown30.mapper.CitizenServiceMapper;
 import com.example.pgrown30.repository.*;
+import com.example.pgrown30.service.ServiceConflictException;
 import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.BulkCreateResponse;
+import com.example.pgrown30.web.models.BulkCreateResult;
 import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.DateRange;
 import com.example.pgrown30.web.models.ResponseInfo;
 import com.example.pgrown30.web.models.ServiceResponse;
 import com.example.pgrown30.web.models.ServiceWrapper;
 import com.example.pgrown30.web.models.Notification;
+import com.example.pgrown30.web.models.Pagination;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.data.jpa.domain.Specification;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,34 +48,83 @@ public class ServiceServiceImpl implements ServiceService {
     private final IdGenRepository idGenRepository;
     private final FileStoreRepository fileStoreRepository;
     private final BoundaryRepository boundaryRepository;
-    private final NotificationRepository notificationRepository;
+    private final NotificationOutboxWriter notificationOutboxWriter;
+    private final PendingValidationWorker pendingValidationWorker;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
     private final WorkflowRepository workflowRepository;
+    private final CitizenServiceJdbcRepository citizenServiceJdbcRepository;
     private final PgrConfig pgrConfig;
+    private final Executor pgrTaskExecutor;
+    private final MeterRegistry meterRegistry;
+    private final ServiceMetrics serviceMetrics;
 
     public ServiceServiceImpl(
             CitizenServiceRepository citizenServiceRepository,
             IdGenRepository idGenRepository,
             FileStoreRepository fileStoreRepository,
             BoundaryRepository boundaryRepository,
-            NotificationRepository notificationRepository,
+            NotificationOutboxWriter notificationOutboxWriter,
+            PendingValidationWorker pendingValidationWorker,
+            TransactionTemplate transactionTemplate,
             WorkflowRepository workflowRepository,
-            PgrConfig pgrConfig) {
+            CitizenServiceJdbcRepository citizenServiceJdbcRepository,
+            PgrConfig pgrConfig,
+            @Qualifier("pgrTaskExecutor") Executor pgrTaskExecutor,
+            MeterRegistry meterRegistry,
+            ServiceMetrics serviceMetrics) {
 
         this.citizenServiceRepository = citizenServiceRepository;
         this.idGenRepository = idGenRepository;
         this.fileStoreRepository = fileStoreRepository;
         this.boundaryRepository = boundaryRepository;
-        this.notificationRepository = notificationRepository;
+        this.notificationOutboxWriter = notificationOutboxWriter;
+        this.pendingValidationWorker = pendingValidationWorker;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
         this.workflowRepository = workflowRepository;
+        this.citizenServiceJdbcRepository = citizenServiceJdbcRepository;
         this.pgrConfig = pgrConfig;
+        this.pgrTaskExecutor = pgrTaskExecutor;
+        this.meterRegistry = meterRegistry;
+        this.serviceMetrics = serviceMetrics;
     }
 
     @Override
 public ServiceResponse createService(ServiceWrapper wrapper) {
+    return serviceMetrics.record(ServiceMetrics.CREATE, tenantOf(wrapper), () -> create(wrapper));
+}
+
+private ServiceResponse create(ServiceWrapper wrapper) {
     CitizenService dto = wrapper.getService();
 
     CitizenServiceEntity service = CitizenServiceMapper.toEntity(dto);
-    String newId = idGenRepository.generateId("service_request");
+    String processId = pgrConfig.getProcessId();
+    String tenantId = service.getTenantId();
+
+    // Accept-fast: boundary and file checks are left pending and run in the background after the save
+    boolean acceptFast = pgrConfig.isCreateAcceptFast();
+
+    // Boundary and file checks are independent; the workflow needs the new ID, so it chains on IdGen
+    StagePipeline pipeline = new StagePipeline("create", serviceMetrics.tenantTag(tenantId), pgrTaskExecutor, meterRegistry,
+            pgrConfig.getCreateStageTimeoutMs());
+    CompletableFuture<Boolean> boundaryStage = acceptFast ? CompletableFuture.completedFuture(null)
+            : pipeline.stage("boundary", () -> validateBoundary(tenantId, service.getBoundaryCode()));
+    CompletableFuture<Boolean> fileStage = acceptFast ? CompletableFuture.completedFuture(null)
+            : pipeline.stage("filestore", () -> validateFileStore(tenantId, service.getFileStoreId()));
+    CompletableFuture<String> idStage = pipeline.stage("idgen",
+            () -> idGenRepository.generateId(tenantId, "service_request"));
+    CompletableFuture<WorkflowResult> workflowStage = pipeline.then(idStage, "workflow",
+            newId -> startWorkflow(tenantId, newId, processId));
+
+    String newId = pipeline.await(idStage);
+    WorkflowResult workflowResult = pipeline.await(workflowStage);
+    // The workflow instance exists by now, so a late or unstarted check is left pending rather than failing the create
+    Boolean boundaryValid = pipeline.awaitOrPending(boundaryStage, "boundary");
+    Boolean fileValid = pipeline.awaitOrPending(fileStage, "filestore");
+    log.info("Create pipeline for serviceRequestId={} stage timings (ms): {}", newId, pipeline.timings());
+
     long now = Instant.now().toEpochMilli();
 
     if (dto.getSource() == null || dto.getSource().isEmpty()) {
@@ -70,27 +136,22 @@ public ServiceResponse createService(ServiceWrapper wrapper) {
     service.setCreatedTime(now);
     service.setLastModifiedTime(now);
 
-    validateBoundary(service);
-    validateFileStore(service);
-
-    String processId = pgrConfig.getProcessId();
-    WorkflowResult workflowResult = startWorkflow(service, newId, processId);
+    // A null validity is pending: the downstream was unavailable and PendingValidationWorker checks it later
+    if (service.getBoundaryCode() != null) {
+        service.setBoundaryValid(boundaryValid);
+    }
+    if (service.getFileStoreId() != null) {
+        service.setFileValid(fileValid);
+    }
 
     service.setWorkflowInstanceId(workflowResult.getInstanceId());
     service.setProcessId(processId);
     service.setAction(workflowResult.getInitialAction());
     service.setApplicationStatus(workflowResult.getStatus());
 
-    citizenServiceRepository.save(service);
-
-    // Send notifications only if service is valid
-    if (isServiceValid(service)) {
-        sendNotifications(service);
-    } else {
-        log.warn("Notifications skipped for serviceRequestId={} due to validation failures", service.getServiceRequestId());
-    }
+    CitizenServiceEntity saved = saveAndQueueNotifications(service);
 
-    CitizenService responseDto = CitizenServiceMapper.toDto(service);
+    CitizenService responseDto = CitizenServiceMapper.toDto(saved);
     responseDto.setApplicationStatus(workflowResult.getStatus().name());
     responseDto.setWorkflowInstanceId(workflowResult.getInstanceId());
     responseDto.setAction(workflowResult.getInitialAction());
@@ -116,24 +177,34 @@ public ServiceResponse createService(ServiceWrapper wrapper) {
             .notification(notification)
             .build();
 
+    // Last, since the background check updates the saved instance
+    if (acceptFast && PendingValidationWorker.isPending(saved)) {
+        pendingValidationWorker.submit(saved);
+    }
+
     return new ServiceResponse(List.of(responseDto), ResponseInfo.success(), List.of(responseWrapper));
 }
 
- @Override
+    @Override
 public ServiceResponse updateService(ServiceWrapper wrapper) {
+    return serviceMetrics.record(ServiceMetrics.UPDATE, tenantOf(wrapper), () -> update(wrapper));
+}
+
+private ServiceResponse update(ServiceWrapper wrapper) {
     CitizenService dto = wrapper.getService();
     CitizenServiceEntity service = CitizenServiceMapper.toEntity(dto);
+    Long expectedVersion = dto.getVersion();
 
-    CitizenServiceEntity existing = citizenServiceRepository
-            .findById(service.getServiceRequestId())
-            .orElseThrow(() -> new RuntimeException("Service not found: " + service.getServiceRequestId()));
+    CitizenServiceEntity existing = loadForUpdate(service.getServiceRequestId(), expectedVersion);
 
     if (dto.getBoundaryCode() != null) {
-        boolean isValid = boundaryRepository.isBoundaryValid(dto.getBoundaryCode());
+        boolean isValid = boundaryRepository.isBoundaryValid(existing.getTenantId(), dto.getBoundaryCode());
         service.setBoundaryValid(isValid);
     }
 
+    // Remote side effects run once; only the database write below is retried on conflict
     String workflowAction = wrapper.getWorkflow() != null ? wrapper.getWorkflow().getAction() : null;
+    boolean workflowUpdated = false;
 
     if (existing.getWorkflowInstanceId() != null && workflowAction != null) {
         String workflowProcessId = existing.getProcessId();
@@ -152,28 +223,42 @@ public ServiceResponse updateService(ServiceWrapper wrapper) {
         if (!success) {
             throw new RuntimeException("Workflow update failed for " + existing.getWorkflowInstanceId());
         }
-
-        existing.setAction(workflowAction);
-    }
-
-    existing.setDescription(service.getDescription());
-
-    if (dto.getApplicationStatus() != null) {
-        existing.setApplicationStatus(Status.valueOf(dto.getApplicationStatus()));
+        workflowUpdated = true;
     }
 
-    existing.setLastModifiedTime(Instant.now().toEpochMilli());
+    Boolean fileValid = existing.getFileStoreId() != null
+            ? fileStoreRepository.isFileValid(existing.getTenantId(), existing.getFileStoreId())
+            : null;
 
-    if (existing.getFileStoreId() != null) {
-        existing.setFileValid(fileStoreRepository.isFileValid(existing.getTenantId(), existing.getFileStoreId()));
-    }
-
-    citizenServiceRepository.save(existing);
+    // A client that sent its version gets the conflict; blind updates are re-applied to a fresh read
+    int maxAttempts = expectedVersion != null ? 1 : Math.max(1, pgrConfig.getUpdateConflictRetries() + 1);
+    for (int attempt = 1; ; attempt++) {
+        existing.setDescription(service.getDescription());
+        if (workflowUpdated) {
+            existing.setAction(workflowAction);
+        }
+        if (dto.getApplicationStatus() != null) {
+            existing.setApplicationStatus(Status.valueOf(dto.getApplicationStatus()));
+        }
+        existing.setLastModifiedTime(Instant.now().toEpochMilli());
+        if (fileValid != null) {
+            existing.setFileValid(fileValid);
+        }
 
-    if (isServiceValid(existing)) {
-        sendNotifications(existing);
-    } else {
-        log.warn("Notifications skipped for serviceRequestId={} due to validation failures", existing.getServiceRequestId());
+        try {
+            existing = saveAndQueueNotifications(existing);
+            break;
+        } catch (OptimisticLockingFailureException e) {
+            meterRegistry.counter("pgr.service.update.conflicts",
+                    "retried", String.valueOf(attempt < maxAttempts)).increment();
+            if (attempt >= maxAttempts) {
+                throw new ServiceConflictException("Service request " + existing.getServiceRequestId()
+                        + " was modified concurrently, re-read and retry", e);
+            }
+            log.info("Update of serviceRequestId={} conflicted, re-applying (attempt {} of {})",
+                    existing.getServiceRequestId(), attempt + 1, maxAttempts);
+            existing = loadForUpdate(existing.getServiceRequestId(), null);
+        }
     }
 
     CitizenService responseDto = CitizenServiceMapper.toDto(existing);
@@ -206,60 +291,451 @@ public ServiceResponse updateService(ServiceWrapper wrapper) {
 
     @Override
 public ServiceResponse searchServices(ServiceWrapper wrapper) {
-    CitizenService dto = wrapper.getService();
-    if (dto == null || dto.getTenantId() == null || dto.getTenantId().isEmpty()) {
-        throw new RuntimeException("tenantId is required for searching services");
+    return serviceMetrics.record(ServiceMetrics.SEARCH, tenantOf(wrapper), () -> search(wrapper));
+}
+
+private ServiceResponse search(ServiceWrapper wrapper) {
+    CitizenService dto = requireSearchCriteria(wrapper);
+
+    Pagination request = wrapper.getPagination();
+    int limit = pageSize(request);
+    SearchCursor cursor = request != null && request.getCursor() != null && !request.getCursor().isEmpty()
+            ? SearchCursor.decode(request.getCursor())
+            : null;
+
+    // Keyset pagination: fetch one extra row to learn whether another page exists, no count query
+    List<CitizenService> serviceDTOs = pgrConfig.isSearchProjectionEnabled()
+            ? searchProjected(wrapper, cursor, limit + 1)
+            : searchEntities(wrapper, cursor, limit + 1);
+
+    String nextCursor = null;
+    if (serviceDTOs.size() > limit) {
+        serviceDTOs = serviceDTOs.subList(0, limit);
+        CitizenService last = serviceDTOs.get(limit - 1);
+        nextCursor = SearchCursor.at(last.getCreatedTime(), last.getServiceRequestId()).encode();
     }
 
-    Specification<CitizenServiceEntity> spec = Specification.where(
-        (root, query, cb) -> cb.equal(root.get("tenantId"), dto.getTenantId())
-    );
+    Pagination pagination = Pagination.builder().limit(limit).nextCursor(nextCursor).build();
+    return new ServiceResponse(serviceDTOs, ResponseInfo.success(), Collections.emptyList(), pagination);
+}
 
-    if (dto.getServiceCode() != null && !dto.getServiceCode().isEmpty()) {
-        spec = spec.and((root, query, cb) -> cb.equal(root.get("serviceCode"), dto.getServiceCode()));
+    @Override
+    public void streamServices(ServiceWrapper wrapper, Consumer<CitizenService> consumer) {
+        serviceMetrics.record(ServiceMetrics.SEARCH_STREAM, tenantOf(wrapper), () -> {
+            stream(wrapper, consumer);
+            return null;
+        });
     }
 
-    if (dto.getApplicationStatus() != null && !dto.getApplicationStatus().isEmpty()) {
-        spec = spec.and((root, query, cb) ->
-            cb.equal(root.get("applicationStatus"), Status.valueOf(dto.getApplicationStatus()))
-        );
+    private void stream(ServiceWrapper wrapper, Consumer<CitizenService> consumer) {
+        CitizenService dto = requireSearchCriteria(wrapper);
+
+        citizenServiceJdbcRepository.streamByFilter(
+                dto.getTenantId(),
+                emptyToNull(dto.getServiceCode()),
+                statusFilter(dto),
+                createdFrom(wrapper),
+                createdTo(wrapper),
+                pgrConfig.getSearchStreamFetchSize(),
+                consumer);
     }
 
-    List<CitizenServiceEntity> results = citizenServiceRepository.findAll(spec);
+    @Override
+    public BulkCreateResponse bulkCreate(Iterator<ServiceWrapper> wrappers) {
+        int chunkSize = pgrConfig.getBulkChunkSize();
+        List<BulkCreateResult> results = new ArrayList<>();
+        List<BulkItem> chunk = new ArrayList<>(chunkSize);
+        boolean truncated = false;
+        int index = 0;
+
+        while (wrappers.hasNext()) {
+            if (index >= pgrConfig.getBulkMaxItems()) {
+                truncated = true;
+                break;
+            }
+            ServiceWrapper wrapper;
+            try {
+                wrapper = wrappers.next();
+            } catch (RuntimeException e) {
+                // The parser cannot resync after a malformed item, so reading stops here
+                results.add(BulkItem.failed(index, "Unreadable item: " + e.getMessage()).result());
+                truncated = true;
+                break;
+            }
+            chunk.add(new BulkItem(index++, wrapper));
+            if (chunk.size() == chunkSize) {
+                results.addAll(bulkCreateChunk(chunk));
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(bulkCreateChunk(chunk));
+        }
 
-    List<CitizenService> serviceDTOs = results.stream()
-            .map(CitizenServiceMapper::toDto)
-            .collect(Collectors.toList());
+        int created = (int) results.stream().filter(r -> r.getOutcome() == BulkCreateResult.Outcome.CREATED).count();
+        meterRegistry.counter("pgr.bulk.items", "outcome", "created").increment(created);
+        meterRegistry.counter("pgr.bulk.items", "outcome", "failed").increment(results.size() - created);
+        log.info("Bulk create processed {} items: {} created, {} failed{}",
+                results.size(), created, results.size() - created, truncated ? " (truncated)" : "");
+
+        return BulkCreateResponse.builder()
+                .responseInfo(ResponseInfo.success())
+                .created(created)
+                .failed(results.size() - created)
+                .truncated(truncated)
+                .results(results)
+                .build();
+    }
 
-    return new ServiceResponse(serviceDTOs, ResponseInfo.success(), Collections.emptyList());
+    // One chunk: batched validation and IDs, one insert transaction, then the workflows of the
+    // complaints that were stored, and a second transaction recording them
+    private List<BulkCreateResult> bulkCreateChunk(List<BulkItem> chunk) {
+        long now = Instant.now().toEpochMilli();
+        for (BulkItem item : chunk) {
+            item.prepare(now, pgrConfig.getProcessId());
+        }
 
-}
+        validateBoundariesInBatch(chunk);
+        validateFilesInBatch(chunk);
+        inParallel(pending(chunk).stream().filter(item -> !item.imported).toList(), this::assignBulkId);
+        rejectDuplicateIds(pending(chunk));
 
+        List<BulkItem> inserted = insertBulkItems(pending(chunk));
 
-    // --- Helper Methods ---
+        // Workflows only for complaints that are stored; imported records keep their own state
+        List<BulkItem> started = inserted.stream().filter(item -> !item.imported).toList();
+        inParallel(started, this::startBulkWorkflow);
+        recordBulkWorkflows(started);
 
-    private void validateBoundary(CitizenServiceEntity service) {
-    if (service.getBoundaryCode() != null) {
-        boolean isValid = boundaryRepository.isBoundaryValid(
-                service.getBoundaryCode()
-        );
-        service.setBoundaryValid(isValid);
+        inserted.stream().filter(item -> item.error == null).forEach(item -> item.created = true);
+        return chunk.stream().map(BulkItem::result).toList();
+    }
+
+    // Inserts the chunk's ready items in one transaction and returns those that were inserted. An
+    // ID already stored (by a concurrent request, say) fails only its own item.
+    private List<BulkItem> insertBulkItems(List<BulkItem> ready) {
+        if (ready.isEmpty()) return List.of();
+
+        List<CitizenServiceEntity> services = ready.stream().map(item -> item.service).toList();
+        Set<String> insertedIds;
+        try {
+            insertedIds = transactionTemplate.execute(status -> citizenServiceJdbcRepository.insertNew(services));
+        } catch (RuntimeException e) {
+            log.error("Bulk insert of {} services failed: {}", services.size(), e.getMessage(), e);
+            ready.forEach(item -> item.error = "Insert failed: " + e.getMessage());
+            return List.of();
+        }
+
+        List<BulkItem> inserted = new ArrayList<>(ready.size());
+        for (BulkItem item : ready) {
+            if (insertedIds.contains(item.service.getServiceRequestId())) {
+                inserted.add(item);
+            } else {
+                item.error = "Duplicate serviceRequestId: " + item.service.getServiceRequestId();
+            }
+        }
+        return inserted;
+    }
+
+    // Stores the workflow of each started complaint and queues its notifications. A complaint
+    // whose workflow could not be started is deleted again, so it fails as a whole.
+    private void recordBulkWorkflows(List<BulkItem> started) {
+        if (started.isEmpty()) return;
+
+        List<CitizenServiceEntity> succeeded = started.stream()
+                .filter(item -> item.error == null).map(item -> item.service).toList();
+        List<CitizenServiceEntity> failed = started.stream()
+                .filter(item -> item.error != null).map(item -> item.service).toList();
+        List<CitizenServiceEntity> notify = succeeded.stream().filter(ServiceServiceImpl::isServiceValid).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                citizenServiceJdbcRepository.updateWorkflow(succeeded);
+                citizenServiceJdbcRepository.delete(failed);
+                notificationOutboxWriter.enqueueAll(notify);
+            });
+        } catch (RuntimeException e) {
+            // The rows stay without a workflow instance; report them as failed rather than created
+            log.error("Recording workflows of {} bulk services failed: {}", started.size(), e.getMessage(), e);
+            started.stream().filter(item -> item.error == null)
+                    .forEach(item -> item.error = "Workflow not recorded: " + e.getMessage());
+        }
+    }
+
+    // One boundary lookup per tenant for the chunk's distinct codes
+    private void validateBoundariesInBatch(List<BulkItem> chunk) {
+        Map<String, List<BulkItem>> byTenant = pending(chunk).stream()
+                .filter(item -> item.service.getBoundaryCode() != null)
+                .collect(Collectors.groupingBy(item -> item.service.getTenantId()));
+
+        byTenant.forEach((tenantId, items) -> {
+            Set<String> codes = items.stream().map(item -> item.service.getBoundaryCode()).collect(Collectors.toSet());
+            Map<String, Boolean> valid = boundaryRepository.validateBoundaries(tenantId, codes);
+            items.forEach(item -> item.service.setBoundaryValid(valid.get(item.service.getBoundaryCode())));
+        });
+    }
+
+    // Each distinct tenant/file pair is checked once, concurrently
+    private void validateFilesInBatch(List<BulkItem> chunk) {
+        Map<String, List<BulkItem>> byFile = pending(chunk).stream()
+                .filter(item -> item.service.getFileStoreId() != null)
+                .collect(Collectors.groupingBy(item -> item.service.getTenantId() + "|" + item.service.getFileStoreId()));
+
+        inParallel(new ArrayList<>(byFile.values()), items -> {
+            CitizenServiceEntity first = items.get(0).service;
+            Boolean valid = fileStoreRepository.checkFile(first.getTenantId(), first.getFileStoreId());
+            items.forEach(item -> item.service.setFileValid(valid));
+        });
+    }
+
+    // New complaints get an IdGen ID, as with /create
+    private void assignBulkId(BulkItem item) {
+        try {
+            item.service.setServiceRequestId(idGenRepository.generateId(item.service.getTenantId(), "service_request"));
+        } catch (RuntimeException e) {
+            item.error = e.getMessage();
+        }
+    }
+
+    // Started once the complaint is stored, so a failed insert leaves no workflow behind
+    private void startBulkWorkflow(BulkItem item) {
+        try {
+            CitizenServiceEntity service = item.service;
+            WorkflowResult workflowResult = startWorkflow(service.getTenantId(), service.getServiceRequestId(),
+                    service.getProcessId());
+
+            service.setWorkflowInstanceId(workflowResult.getInstanceId());
+            service.setAction(workflowResult.getInitialAction());
+            service.setApplicationStatus(workflowResult.getStatus());
+        } catch (RuntimeException e) {
+            item.error = "Workflow failed: " + e.getMessage();
+        }
+    }
+
+    // IDs repeated within the chunk, or stored in another created_time partition: the insert
+    // itself only skips IDs already present in the row's own partition
+    private void rejectDuplicateIds(List<BulkItem> items) {
+        Set<String> existing = citizenServiceJdbcRepository.existingIds(items.stream()
+                .map(item -> item.service.getServiceRequestId())
+                .collect(Collectors.toSet()));
+
+        Set<String> seen = new HashSet<>();
+        for (BulkItem item : items) {
+            String id = item.service.getServiceRequestId();
+            if (existing.contains(id) || !seen.add(id)) {
+                item.error = "Duplicate serviceRequestId: " + id;
+            }
+        }
+    }
 
-        if (!isValid) {
-            log.warn("Boundary code {} is invalid for tenant {}", 
-                     service.getBoundaryCode(), service.getTenantId());
+    // Runs the task over the elements on pgrTaskExecutor, at most pgr.bulk.parallelism at a time
+    private <T> void inParallel(List<T> elements, Consumer<T> task) {
+        if (elements.isEmpty()) return;
+
+        int slices = Math.min(pgrConfig.getBulkParallelism(), elements.size());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            int first = slice;
+            Runnable sliceTask = () -> {
+                for (int i = first; i < elements.size(); i += slices) {
+                    task.accept(elements.get(i));
+                }
+            };
+            try {
+                futures.add(CompletableFuture.runAsync(sliceTask, pgrTaskExecutor));
+            } catch (RejectedExecutionException e) {
+                // Pool saturated: this slice runs on the request thread instead
+                sliceTask.run();
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private static List<BulkItem> pending(List<BulkItem> chunk) {
+        return chunk.stream().filter(item -> item.error == null).toList();
+    }
+
+    // One bulk create item and how far it got
+    private static class BulkItem {
+        private final int index;
+        private final ServiceWrapper wrapper;
+        private CitizenServiceEntity service;
+        private boolean imported;
+        private boolean created;
+        private String error;
+
+        BulkItem(int index, ServiceWrapper wrapper) {
+            this.index = index;
+            this.wrapper = wrapper;
+        }
+
+        static BulkItem failed(int index, String error) {
+            BulkItem item = new BulkItem(index, null);
+            item.error = error;
+            return item;
+        }
+
+        // Items that carry a serviceRequestId are imported as they are (legacy migration); new
+        // complaints start as INITIATED until their workflow answers
+        void prepare(long now, String processId) {
+            CitizenService dto = wrapper != null ? wrapper.getService() : null;
+            if (dto == null || dto.getTenantId() == null || dto.getTenantId().isEmpty()) {
+                error = "tenantId is required";
+                return;
+            }
+            try {
+                service = CitizenServiceMapper.toEntity(dto);
+            } catch (IllegalArgumentException e) {
+                error = "Invalid applicationStatus: " + dto.getApplicationStatus();
+                return;
+            }
+            imported = dto.getServiceRequestId() != null && !dto.getServiceRequestId().isEmpty();
+            if (service.getSource() == null || service.getSource().isEmpty()) {
+                service.setSource("Citizen");
+            }
+            if (imported && service.getCreatedTime() != null
+                    && (service.getCreatedTime() <= 0 || service.getCreatedTime() > now)) {
+                // The imported time picks the row's partition, so it must be a real past time
+                error = "createdTime must be after 1970-01-01 and not in the future: " + service.getCreatedTime();
+                return;
+            }
+            if (!imported || service.getCreatedTime() == null) {
+                service.setCreatedTime(now);
+            }
+            if (!imported) {
+                service.setProcessId(processId);
+                service.setApplicationStatus(Status.INITIATED);
+            }
+            if (service.getLastModifiedTime() == null) {
+                service.setLastModifiedTime(service.getCreatedTime());
+            }
+        }
+
+        BulkCreateResult result() {
+            return BulkCreateResult.builder()
+                    .index(index)
+                    .serviceRequestId(service != null ? service.getServiceRequestId() : null)
+                    .outcome(created ? BulkCreateResult.Outcome.CREATED : BulkCreateResult.Outcome.FAILED)
+                    .error(created ? null : error)
+                    .boundaryValid(service != null ? service.getBoundaryValid() : null)
+                    .fileValid(service != null ? service.getFileValid() : null)
+                    .build();
         }
     }
+
+    // Current state of the request; fails fast when the client's version is already stale
+    private CitizenServiceEntity loadForUpdate(String serviceRequestId, Long expectedVersion) {
+        CitizenServiceEntity existing = citizenServiceRepository
+                .findByServiceRequestId(serviceRequestId)
+                .orElseThrow(() -> new RuntimeException("Service not found: " + serviceRequestId));
+
+        if (expectedVersion != null && !expectedVersion.equals(existing.getVersion())) {
+            throw new ServiceConflictException("Service request " + serviceRequestId + " is at version "
+                    + existing.getVersion() + ", not " + expectedVersion + "; re-read and retry");
+        }
+        return existing;
+    }
+
+    // Default path: SQL rows projected straight into DTOs
+    private List<CitizenService> searchProjected(ServiceWrapper wrapper, SearchCursor cursor, int rows) {
+        CitizenService dto = wrapper.getService();
+        return citizenServiceJdbcRepository.searchPage(
+                dto.getTenantId(), emptyToNull(dto.getServiceCode()), statusFilter(dto),
+                createdFrom(wrapper), createdTo(wrapper), cursor, rows);
+    }
+
+    // Entity path (pgr.search.projection.enabled=false), read-only so Hibernate skips snapshots and flush
+    private List<CitizenService> searchEntities(ServiceWrapper wrapper, SearchCursor cursor, int rows) {
+        Specification<CitizenServiceEntity> spec = SearchSpecifications
+                .filters(wrapper.getService(), createdFrom(wrapper), createdTo(wrapper))
+                .and(SearchSpecifications.keysetOrder());
+        if (cursor != null) {
+            spec = spec.and(SearchSpecifications.after(cursor));
+        }
+        Specification<CitizenServiceEntity> query = spec;
+
+        return readOnlyTransaction.execute(status -> citizenServiceRepository
+                .findBy(query, q -> q.limit(rows).all())
+                .stream()
+                .map(CitizenServiceMapper::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    private static Status statusFilter(CitizenService dto) {
+        return dto.getApplicationStatus() != null && !dto.getApplicationStatus().isEmpty()
+                ? Status.valueOf(dto.getApplicationStatus())
+                : null;
+    }
+
+    private CitizenService requireSearchCriteria(ServiceWrapper wrapper) {
+        CitizenService dto = wrapper.getService();
+        if (dto == null || dto.getTenantId() == null || dto.getTenantId().isEmpty()) {
+            throw new RuntimeException("tenantId is required for searching services");
+        }
+        DateRange range = wrapper.getDateRange();
+        if (range != null && range.getFromDate() != null && range.getToDate() != null
+                && range.getFromDate() >= range.getToDate()) {
+            throw new RuntimeException("DateRange fromDate must be before toDate");
+        }
+        return dto;
+    }
+
+    // Lower createdTime bound: the request's DateRange, else pgr.search.default-window-days back from now
+    private Long createdFrom(ServiceWrapper wrapper) {
+        DateRange range = wrapper.getDateRange();
+        if (range != null && range.getFromDate() != null) {
+            return range.getFromDate();
+        }
+        int windowDays = pgrConfig.getSearchDefaultWindowDays();
+        return windowDays > 0
+                ? Instant.now().minus(Duration.ofDays(windowDays)).toEpochMilli()
+                : null;
+    }
+
+    private Long createdTo(ServiceWrapper wrapper) {
+        DateRange range = wrapper.getDateRange();
+        return range != null ? range.getToDate() : null;
     }
 
-    private void validateFileStore(CitizenServiceEntity service) {
-        if (service.getFileStoreId() != null) {
-            service.setFileValid(fileStoreRepository.isFileValid(service.getTenantId(), service.getFileStoreId()));
+    private int pageSize(Pagination pagination) {
+        Integer requested = pagination != null ? pagination.getLimit() : null;
+        if (requested == null || requested <= 0) {
+            return pgrConfig.getSearchDefaultPageSize();
         }
+        return Math.min(requested, pgrConfig.getSearchMaxPageSize());
     }
 
-    private WorkflowResult startWorkflow(CitizenServiceEntity service, String complaintNumber, String processId) {
-        String tenantId = service.getTenantId();
+    private static String tenantOf(ServiceWrapper wrapper) {
+        return wrapper != null && wrapper.getService() != null ? wrapper.getService().getTenantId() : null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+
+    // --- Helper Methods ---
+
+    private Boolean validateBoundary(String tenantId, String boundaryCode) {
+        if (boundaryCode == null) {
+            return null;
+        }
+        Boolean isValid = boundaryRepository.checkBoundary(tenantId, boundaryCode);
+        if (isValid == null) {
+            log.warn("Boundary code {} could not be checked for tenant {}, marked pending", boundaryCode, tenantId);
+        } else if (!isValid) {
+            log.warn("Boundary code {} is invalid for tenant {}", boundaryCode, tenantId);
+        }
+        return isValid;
+    }
+
+    private Boolean validateFileStore(String tenantId, String fileStoreId) {
+        if (fileStoreId == null) {
+            return null;
+        }
+        return fileStoreRepository.checkFile(tenantId, fileStoreId);
+    }
+
+    private WorkflowResult startWorkflow(String tenantId, String complaintNumber, String processId) {
         String initialAction = "APPLY";
 
         Map<String, List<String>> attributes = new HashMap<>();
@@ -270,9 +746,18 @@ public ServiceResponse searchServices(ServiceWrapper wrapper) {
                 initialAction, "Complaint submitted", attributes
         );
 
-        Map<String, Object> latest = workflowRepository.getLatestInstance(tenantId, processId, complaintNumber);
-        String wfInstanceId = extractWorkflowInstanceId(transitionResp, latest);
-        String currentState = extractWorkflowState(latest);
+        // The transition response already carries the instance id and state; only ask for
+        // the latest instance when the workflow service left either of them out
+        String wfInstanceId = extractWorkflowInstanceId(transitionResp);
+        String currentState = extractWorkflowState(transitionResp);
+
+        if (wfInstanceId == null || currentState == null) {
+            meterRegistry.counter("pgr.workflow.latest_instance.fallback").increment();
+            log.info("Transition response for {} missing instance id or state, fetching latest instance", complaintNumber);
+            Map<String, Object> latest = workflowRepository.getLatestInstance(tenantId, processId, complaintNumber);
+            if (wfInstanceId == null) wfInstanceId = extractWorkflowInstanceId(latest);
+            if (currentState == null) currentState = extractWorkflowState(latest);
+        }
 
         if (wfInstanceId == null) {
             throw new RuntimeException("Workflow started but instance id could not be determined for " + complaintNumber);
@@ -282,27 +767,22 @@ public ServiceResponse searchServices(ServiceWrapper wrapper) {
         return new WorkflowResult(wfInstanceId, initialAction, status);
     }
 
-    private String extractWorkflowInstanceId(Map<String, Object> transitionResp, Map<String, Object> latest) {
-        if (latest != null) {
-            if (latest.get("id") != null) return String.valueOf(latest.get("id"));
-            if (latest.get("data") instanceof Map) {
-                Map<?, ?> data = (Map<?, ?>) latest.get("data");
-                if (data.get("id") != null) return String.valueOf(data.get("id"));
-            }
-        }
-        if (transitionResp != null && transitionResp.get("id") != null) {
-            return String.valueOf(transitionResp.get("id"));
-        }
-        return null;
+    private String extractWorkflowInstanceId(Map<String, Object> instance) {
+        return extractField(instance, "id");
     }
 
-    private String extractWorkflowState(Map<String, Object> latest) {
-        if (latest != null) {
-            if (latest.get("state") != null) return String.valueOf(latest.get("state"));
-            if (latest.get("data") instanceof Map) {
-                Map<?, ?> data = (Map<?, ?>) latest.get("data");
-                if (data.get("state") != null) return String.valueOf(data.get("state"));
-            }
+    private String extractWorkflowState(Map<String, Object> instance) {
+        String state = extractField(instance, "currentState");
+        return state != null ? state : extractField(instance, "state");
+    }
+
+    // Reads a field from a workflow instance, whether at the top level or nested under "data"
+    private String extractField(Map<String, Object> instance, String field) {
+        if (instance == null) return null;
+        if (instance.get(field) != null) return String.valueOf(instance.get(field));
+        if (instance.get("data") instanceof Map) {
+            Map<?, ?> data = (Map<?, ?>) instance.get("data");
+            if (data.get(field) != null) return String.valueOf(data.get(field));
         }
         return null;
     }
@@ -327,76 +807,49 @@ public ServiceResponse searchServices(ServiceWrapper wrapper) {
         public Status getStatus() { return status; }
     }
 
-private void sendNotifications(CitizenServiceEntity service) {
-    if (service.getTenantId() == null) return;
-
-    // Determine workflow action for dynamic templates
-    String workflowAction = service.getAction() != null ? service.getAction() : "APPLY";
-
-    // Map workflow actions to SMS templates
-    Map<String, String> smsTemplates = Map.of(
-        "APPLY", "service-initiated",
-        "ASSIGN", "service-assigned",
-        "RESOLVE", "service-resolved",
-        "CLOSE", "service-closed"
-    );
-    String smsTemplate = smsTemplates.getOrDefault(workflowAction, "service-update");
-
-    // --- Email Notification ---
-    if (service.getEmail() != null && !service.getEmail().isEmpty()) {
-        List<String> emails = List.of(service.getEmail());
-        Map<String, Object> emailPayload = Map.of(
-                "applicationNo", service.getServiceRequestId(),
-                "citizenName", service.getAccountId(),
-                "serviceName", service.getDescription(),
-                "statusLabel", service.getApplicationStatus().name(),
-                "action", workflowAction,
-                "trackUrl", "https://pgr.digit.org/track/" + service.getServiceRequestId(),
-                "ulbName", "Hyderabad Municipal Corporation"
-        );
-
-        List<String> attachments = service.getFileStoreId() != null ? List.of(service.getFileStoreId()) : Collections.emptyList();
-
+// Saves the service and its outbox entries in one transaction; the dispatcher sends them after commit.
+// Returns the saved instance, which carries the new version.
+private CitizenServiceEntity saveAndQueueNotifications(CitizenServiceEntity service) {
+    boolean isNew = service.getVersion() == null;
+    return transactionTemplate.execute(status -> {
+        // A duplicate ID is rejected by the insert: service_request_id is unique within each
+        // created_time partition, and two creates of one ID land in the same month. The lookup
+        // only catches an ID stored in an earlier month, and nothing stops one being inserted
+        // there between the lookup and the insert; it is a best-effort check, not a guarantee.
+        if (isNew && citizenServiceRepository.existsByServiceRequestId(service.getServiceRequestId())) {
+            throw new ServiceConflictException("Service request " + service.getServiceRequestId() + " already exists");
+        }
+        CitizenServiceEntity saved;
         try {
-            notificationRepository.sendEmail(
-                    "service-request-received-new",
-                    emails,
-                    emailPayload,
-                    attachments
-            );
-            log.info("Email notification triggered for serviceRequestId={}", service.getServiceRequestId());
-        } catch (Exception e) {
-            log.error("Failed to send email for serviceRequestId={}: {}", service.getServiceRequestId(), e.getMessage());
-        }
-    }
-
-    // --- SMS Notification ---
-    if (service.getMobile() != null && !service.getMobile().isEmpty()) {
-        List<String> mobiles = List.of(service.getMobile());
-        Map<String, Object> smsPayload = Map.of(
-                "applicationNo", service.getServiceRequestId(),
-                "serviceName", service.getDescription(),
-                "statusLabel", service.getApplicationStatus().name(),
-                "action", workflowAction
-        );
+            // Flushed here so that the insert fails inside this callback rather than at commit
+            saved = isNew ? citizenServiceRepository.saveAndFlush(service) : citizenServiceRepository.save(service);
+        } catch (DataIntegrityViolationException e) {
+            if (isNew && isUniqueViolation(e)) {
+                throw new ServiceConflictException("Service request " + service.getServiceRequestId() + " already exists", e);
+            }
+            throw e;
+        }
 
-        try {
-            notificationRepository.sendSms(
-                    smsTemplate,
-                    mobiles,
-                    smsPayload,
-                    "INFO"
-            );
-            log.info("SMS notification triggered for serviceRequestId={}", service.getServiceRequestId());
-        } catch (Exception e) {
-            log.error("Failed to send SMS for serviceRequestId={}: {}", service.getServiceRequestId(), e.getMessage());
+        // Send notifications only if service is valid
+        if (isServiceValid(saved)) {
+            notificationOutboxWriter.enqueue(saved);
+        } else {
+            log.warn("Notifications skipped for serviceRequestId={} due to validation failures", saved.getServiceRequestId());
         }
-    }
+        return saved;
+    });
 }
 
 
+// SQLSTATE 23505 (unique_violation), as both PostgreSQL and H2 report it
+private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+    return e.getMostSpecificCause() instanceof SQLException sqlException
+            && "23505".equals(sqlException.getSQLState());
+}
+
 // --- Helper Method ---
-private boolean isServiceValid(CitizenServiceEntity service) {
+// Pending (null) checks count as not valid: notifications wait for PendingValidationWorker
+static boolean isServiceValid(CitizenServiceEntity service) {
     return Boolean.TRUE.equals(service.getBoundaryValid()) &&
            (service.getFileStoreId() == null || Boolean.TRUE.equals(service.getFileValid()));
 }
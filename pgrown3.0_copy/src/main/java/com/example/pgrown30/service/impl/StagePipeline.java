@@ -0,0 +1,155 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.repository.DownstreamUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the remote calls of one service operation as concurrent stages, each with its own
+ * deadline, and records how long every stage took.
+ * <p>
+ * Stages carry the caller's request headers, MDC and trace context through the executor's
+ * TaskDecorator, so the executor must have one. A stage that misses its deadline is cancelled: it
+ * is interrupted if running (a blocked socket read still ends only at its read timeout), and
+ * never starts if it is still queued. A stage the executor rejects fails at once with
+ * {@link DownstreamUnavailableException}; the deadline only holds with an executor that rejects
+ * rather than running the stage on the caller's thread.
+ * <p>
+ * Timings are published as the {@code pgr.service.stage} timer (tags: operation, stage, tenant,
+ * outcome) and are also kept per instance for logging.
+ */
+@Slf4j
+class StagePipeline {
+
+    private final String operation;
+    private final String tenant;
+    private final Executor executor;
+    private final MeterRegistry meterRegistry;
+    private final long stageTimeoutMs;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> timings = new ConcurrentHashMap<>();
+
+    StagePipeline(String operation, String tenant, Executor executor, MeterRegistry meterRegistry, long stageTimeoutMs) {
+        this.operation = operation;
+        this.tenant = tenant;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.stageTimeoutMs = stageTimeoutMs;
+    }
+
+    /**
+     * Starts an independent stage.
+     */
+    <T> CompletableFuture<T> stage(String name, Supplier<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                result.complete(timed(name, call));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, null);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new DownstreamUnavailableException(name, "no free " + operation + " worker", e));
+            return result;
+        }
+        result.orTimeout(stageTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error instanceof TimeoutException) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Starts a stage once the stage it depends on has produced its result.
+     */
+    <T, R> CompletableFuture<R> then(CompletableFuture<T> dependency, String name, Function<T, R> call) {
+        return dependency.thenCompose(value -> stage(name, () -> call.apply(value)));
+    }
+
+    /**
+     * Waits for a stage and rethrows its failure unwrapped.
+     */
+    <T> T await(CompletableFuture<T> stage) {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException(operation + " stage exceeded deadline of " + stageTimeoutMs + " ms", cause);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(operation + " stage failed", cause);
+        }
+    }
+
+    /**
+     * Waits for a stage whose answer can be left pending: null when the stage missed its deadline
+     * or was never started, otherwise as {@link #await}.
+     */
+    <T> T awaitOrPending(CompletableFuture<T> stage, String name) {
+        try {
+            return stage.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                log.warn("{} stage {} exceeded deadline of {} ms, left pending", operation, name, stageTimeoutMs);
+                return null;
+            }
+            if (cause instanceof DownstreamUnavailableException unavailable) {
+                log.warn("{} stage {} left pending: {}", operation, name, unavailable.getMessage());
+                return null;
+            }
+            return await(stage);
+        }
+    }
+
+    /**
+     * Per-stage durations in milliseconds, plus the elapsed time of the whole pipeline as "total".
+     */
+    Map<String, Long> timings() {
+        Map<String, Long> result = new TreeMap<>(timings);
+        result.put("total", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        return result;
+    }
+
+    private <T> T timed(String name, Supplier<T> call) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timings.put(name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            Timer.builder("pgr.service.stage")
+                    .description("Duration of a remote stage within a service operation")
+                    .tag("operation", operation)
+                    .tag("stage", name)
+                    .tag("tenant", tenant)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+}
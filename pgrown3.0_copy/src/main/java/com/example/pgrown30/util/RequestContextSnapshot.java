@@ -0,0 +1,169 @@
+package com.example.pgrown30.util;
+
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.MDC;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carries the current request's headers to work handed to another thread. The headers are
+ * copied into a map bound to the task's thread, and {@code BoundHeadersInterceptor} sends the
+ * propagated ones on every outbound RestTemplate call made there. The digit-client
+ * HeaderPropagationInterceptor only reads RequestContextHolder, which is thread-bound and whose
+ * request object Tomcat recycles once the response is written, so it finds nothing off the
+ * servlet thread.
+ * <p>
+ * {@link #wrap} also carries the caller's Micrometer context (the current observation, and with
+ * it the trace) and MDC, so spans and log lines of the task belong to the request that submitted it.
+ */
+public final class RequestContextSnapshot {
+
+    private static final String TENANT_HEADER = "X-Tenant-ID";
+
+    private static final ContextSnapshotFactory CONTEXT_SNAPSHOTS = ContextSnapshotFactory.builder().build();
+
+    private static final ThreadLocal<Map<String, String>> BOUND_HEADERS = new ThreadLocal<>();
+
+    private RequestContextSnapshot() {
+    }
+
+    /**
+     * Copy of the headers bound to this thread, or else of the current request's headers (first
+     * value of each); empty when the calling thread has neither.
+     */
+    public static Map<String, String> currentHeaders() {
+        Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+        Map<String, String> bound = BOUND_HEADERS.get();
+        if (bound != null) {
+            headers.putAll(bound);
+            return headers;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            Enumeration<String> names = request.getHeaderNames();
+            while (names != null && names.hasMoreElements()) {
+                String name = names.nextElement();
+                headers.put(name, request.getHeader(name));
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * One header of {@link #currentHeaders()}, or null.
+     */
+    public static String currentHeader(String name) {
+        Map<String, String> bound = BOUND_HEADERS.get();
+        if (bound != null) {
+            return bound.get(name);
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getHeader(name);
+        }
+        return null;
+    }
+
+    /**
+     * The headers bound to this thread by {@link #wrap} or {@link #callWithHeaders}, or null.
+     */
+    public static Map<String, String> boundHeaders() {
+        return BOUND_HEADERS.get();
+    }
+
+    /**
+     * {@link #currentHeaders()} with X-Tenant-ID set to the given tenant, for calls made on behalf
+     * of a tenant other than (or without) the request's own.
+     */
+    public static Map<String, String> headersForTenant(String tenantId) {
+        Map<String, String> headers = currentHeaders();
+        if (tenantId != null && !tenantId.isBlank()) {
+            headers.put(TENANT_HEADER, tenantId);
+        }
+        return headers;
+    }
+
+    /**
+     * Wraps the task so it runs with a snapshot of the caller's request headers, MDC and trace context.
+     */
+    public static Runnable wrap(Runnable task) {
+        Map<String, String> headers = capture();
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        ContextSnapshot context = CONTEXT_SNAPSHOTS.captureAll();
+        return context.wrap(() -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            setMdc(mdc);
+            try {
+                bind(headers, () -> {
+                    task.run();
+                    return null;
+                });
+            } finally {
+                setMdc(previousMdc);
+            }
+        });
+    }
+
+    /**
+     * Runs the task with the given headers, and only those, sent on its outbound calls.
+     * Used by background jobs (no incoming request) that still need e.g. X-Tenant-ID propagated.
+     */
+    public static void runWithHeaders(Map<String, String> headers, Runnable task) {
+        callWithHeaders(headers, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * {@link #runWithHeaders} for tasks with a result.
+     */
+    public static <T> T callWithHeaders(Map<String, String> headers, Supplier<T> task) {
+        Map<String, String> copy = new LinkedCaseInsensitiveMap<>();
+        copy.putAll(headers);
+        return bind(copy, task);
+    }
+
+    // The caller's headers, or null when it is neither serving a request nor running with bound headers
+    private static Map<String, String> capture() {
+        if (BOUND_HEADERS.get() == null && !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return currentHeaders();
+    }
+
+    private static <T> T bind(Map<String, String> headers, Supplier<T> task) {
+        Map<String, String> previous = BOUND_HEADERS.get();
+        if (headers != null) {
+            BOUND_HEADERS.set(headers);
+        } else {
+            BOUND_HEADERS.remove();
+        }
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                BOUND_HEADERS.set(previous);
+            } else {
+                BOUND_HEADERS.remove();
+            }
+        }
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.pgrown30.util;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+
+/**
+ * Caffeine expiry for validity caches: positive results are kept for the full TTL,
+ * negative ones only briefly so a boundary or file that appears later is picked up
+ * without an explicit eviction.
+ */
+public class ValidityExpiry<K> implements Expiry<K, Boolean> {
+
+    private final long validNanos;
+    private final long invalidNanos;
+
+    public ValidityExpiry(Duration validTtl, Duration invalidTtl) {
+        this.validNanos = validTtl.toNanos();
+        this.invalidNanos = invalidTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(K key, Boolean valid, long currentTime) {
+        return Boolean.TRUE.equals(valid) ? validNanos : invalidNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(K key, Boolean valid, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, valid, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(K key, Boolean valid, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.pgrown30.web.actuator;
+
+import com.example.pgrown30.repository.BoundaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Admin access to the boundary validity cache:
+ * GET /actuator/boundarycache for stats, DELETE to evict everything,
+ * a tenant ({tenantId}) or a single code ({tenantId}/{boundaryCode}).
+ */
+@Component
+@Endpoint(id = "boundarycache")
+@RequiredArgsConstructor
+public class BoundaryCacheEndpoint {
+
+    private final BoundaryRepository boundaryRepository;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return boundaryRepository.cacheStats();
+    }
+
+    @DeleteOperation
+    public void evictAll() {
+        boundaryRepository.evictAll();
+    }
+
+    @DeleteOperation
+    public void evictTenant(@Selector String tenantId) {
+        boundaryRepository.evictTenant(tenantId);
+    }
+
+    @DeleteOperation
+    public void evict(@Selector String tenantId, @Selector String boundaryCode) {
+        boundaryRepository.evict(tenantId, boundaryCode);
+    }
+}
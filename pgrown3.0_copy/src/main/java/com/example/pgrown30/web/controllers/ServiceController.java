@@ -1,29 +1,63 @@
 package com.example.pgrown30.web.controllers;
 
 import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.service.impl.IdempotencyStore;
+import com.example.pgrown30.web.models.BulkCreateResponse;
+import com.example.pgrown30.web.models.CitizenService;
 import com.example.pgrown30.web.models.ServiceResponse;
 import com.example.pgrown30.web.models.ServiceWrapper;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 
 @RestController
 @RequestMapping("/citizen-service")
 @RequiredArgsConstructor
 public class ServiceController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+
     private final ServiceService serviceService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyStore idempotencyStore;
 
     @PostMapping("/create")
-    public ResponseEntity<ServiceResponse> create(@RequestBody ServiceWrapper wrapper) {
-        ServiceResponse response = serviceService.createService(wrapper);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ServiceResponse> create(@RequestBody ServiceWrapper wrapper,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        IdempotencyStore.Outcome<ServiceResponse> outcome = idempotencyStore.execute(
+                scope("create", wrapper), idempotencyKey, wrapper, () -> serviceService.createService(wrapper));
+        return respond(outcome);
+    }
+
+    /**
+     * Creates many service requests in one call. The body is either a JSON array of wrappers
+     * or NDJSON (one wrapper per line); items are read, validated and inserted in chunks, and
+     * the response reports each item's outcome by its position in the body. Items that already
+     * carry a serviceRequestId are imported as they are, without a new workflow or notification.
+     */
+    @PostMapping(value = "/_bulkcreate",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkCreateResponse> bulkCreate(InputStream body) throws IOException {
+        try (MappingIterator<ServiceWrapper> wrappers = objectMapper.readerFor(ServiceWrapper.class).readValues(body)) {
+            return ResponseEntity.ok(serviceService.bulkCreate(wrappers));
+        }
     }
 
     @PostMapping("/update")
-    public ResponseEntity<ServiceResponse> update(@RequestBody ServiceWrapper wrapper) {
-        ServiceResponse response = serviceService.updateService(wrapper);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ServiceResponse> update(@RequestBody ServiceWrapper wrapper,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        IdempotencyStore.Outcome<ServiceResponse> outcome = idempotencyStore.execute(
+                scope("update", wrapper), idempotencyKey, wrapper, () -> serviceService.updateService(wrapper));
+        return respond(outcome);
     }
 
     @PostMapping("/search")
@@ -31,4 +65,41 @@ public class ServiceController {
         ServiceResponse response = serviceService.searchServices(wrapper);
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Same filters as /search, without paging: every match is written as one JSON
+     * object per line (NDJSON) while the rows are read.
+     */
+    @PostMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> searchStream(@RequestBody ServiceWrapper wrapper) {
+        CitizenService criteria = wrapper.getService();
+        if (criteria == null || criteria.getTenantId() == null || criteria.getTenantId().isEmpty()) {
+            // Checked here: once streaming starts the status code is already sent
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> serviceService.streamServices(wrapper, service -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(service));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Keys are unique per operation and tenant
+    private static String scope(String operation, ServiceWrapper wrapper) {
+        String tenantId = wrapper.getService() != null ? wrapper.getService().getTenantId() : null;
+        return operation + "|" + tenantId;
+    }
+
+    private static ResponseEntity<ServiceResponse> respond(IdempotencyStore.Outcome<ServiceResponse> outcome) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (outcome.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED, "true");
+        }
+        return response.body(outcome.response());
+    }
 }
@@ -0,0 +1,54 @@
+package com.example.pgrown30.web.controllers;
+
+import com.example.pgrown30.repository.DownstreamUnavailableException;
+import com.example.pgrown30.service.IdempotencyKeyReuseException;
+import com.example.pgrown30.service.ServiceConflictException;
+import com.example.pgrown30.web.models.ErrorResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@Slf4j
+@RestControllerAdvice
+public class ServiceExceptionHandler {
+
+    @ExceptionHandler(ServiceConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConflict(ServiceConflictException e) {
+        log.info("Update conflict: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ErrorResponse.of(e.getMessage()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuse(IdempotencyKeyReuseException e) {
+        log.info("Rejected request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ErrorResponse.of(e.getMessage()));
+    }
+
+    // Counted as client_error by ServiceMetrics, so answered as one
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleIllegalArgument(IllegalArgumentException e) {
+        log.info("Invalid request: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ErrorResponse.of(e.getMessage()));
+    }
+
+    // A downstream's circuit breaker is open or its bulkhead is full; the call was never made
+    @ExceptionHandler(DownstreamUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleDownstreamUnavailable(DownstreamUnavailableException e) {
+        log.warn("Request refused: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(ErrorResponse.of(e.getMessage()));
+    }
+
+    // A version check that failed outside the service layer's own handling
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(OptimisticLockingFailureException e) {
+        log.info("Optimistic lock failure: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ErrorResponse.of("Service request was modified concurrently, re-read and retry"));
+    }
+}
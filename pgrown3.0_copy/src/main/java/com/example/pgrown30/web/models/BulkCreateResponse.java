@@ -0,0 +1,32 @@
+package com.example.pgrown30.web.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response of /_bulkcreate. When the request held more than pgr.bulk.max-items items, or an
+ * item could not be parsed, reading stops there: truncated is set and the items after
+ * the last result were not processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCreateResponse {
+
+    @JsonProperty("responseInfo")
+    private ResponseInfo responseInfo;
+
+    private int created;
+
+    private int failed;
+
+    private boolean truncated;
+
+    private List<BulkCreateResult> results;
+}
@@ -0,0 +1,32 @@
+package com.example.pgrown30.web.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a bulk create, identified by its position in the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCreateResult {
+
+    public enum Outcome { CREATED, FAILED }
+
+    private int index;
+
+    private String serviceRequestId;
+
+    private Outcome outcome;
+
+    private String error;
+
+    private Boolean boundaryValid;
+
+    private Boolean fileValid;
+}
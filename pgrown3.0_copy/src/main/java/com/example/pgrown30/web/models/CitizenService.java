@@ -16,14 +16,17 @@ public class CitizenService {
     private String source;
     private String applicationStatus; // String representation of Status enum
     private String fileStoreId;
-    private boolean fileValid;
+    // null while the file or boundary check is pending (downstream was unavailable)
+    private Boolean fileValid;
     private String boundaryCode;
-    private boolean boundaryValid;
+    private Boolean boundaryValid;
     private String action;
     private String workflowInstanceId;
     private Long createdTime;
     private Long lastModifiedTime;
     private String email;       // <-- add this
     private String mobile; 
+    // Version the client read; an update carrying it fails with 409 if the request changed since
+    private Long version;
 
 }
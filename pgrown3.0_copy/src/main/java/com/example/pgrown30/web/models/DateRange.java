@@ -0,0 +1,22 @@
+package com.example.pgrown30.web.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bounds a search by createdTime, in epoch milliseconds: fromDate inclusive, toDate exclusive.
+ * Either end may be left open. citizen_service is partitioned by month of created_time, so
+ * a bounded search only reads the partitions it overlaps.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DateRange {
+
+    private Long fromDate;
+
+    private Long toDate;
+}
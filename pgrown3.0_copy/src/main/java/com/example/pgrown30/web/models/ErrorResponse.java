@@ -0,0 +1,24 @@
+package com.example.pgrown30.web.models;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorResponse {
+
+    @JsonProperty("responseInfo")
+    private ResponseInfo responseInfo;
+
+    @JsonProperty("error")
+    private String error;
+
+    public static ErrorResponse of(String error) {
+        return new ErrorResponse(ResponseInfo.failed(), error);
+    }
+}
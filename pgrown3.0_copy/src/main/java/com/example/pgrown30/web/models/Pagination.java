@@ -0,0 +1,26 @@
+package com.example.pgrown30.web.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Keyset pagination for search. The request carries the page size and the cursor
+ * returned by the previous page; the response carries the cursor of the next page,
+ * or none when this was the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Pagination {
+
+    private Integer limit;
+
+    private String cursor;
+
+    private String nextCursor;
+}
@@ -41,4 +41,16 @@ public class ResponseInfo {
                 .status("successful")
                 .build();
     }
+
+    /**
+     * Convenience factory for a failed response.
+     */
+    public static ResponseInfo failed() {
+        return ResponseInfo.builder()
+                .apiId("pgrown-service")
+                .ver("1.0")
+                .ts(System.currentTimeMillis())
+                .status("failed")
+                .build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.example.pgrown30.web.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -26,4 +27,13 @@ public class ServiceResponse {
     @JsonProperty("serviceWrappers")
     @Valid
     private List<ServiceWrapper> serviceWrappers;
+
+    // Only set by search
+    @JsonProperty("pagination")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Pagination pagination;
+
+    public ServiceResponse(List<CitizenService> services, ResponseInfo responseInfo, List<ServiceWrapper> serviceWrappers) {
+        this(services, responseInfo, serviceWrappers, null);
+    }
 }
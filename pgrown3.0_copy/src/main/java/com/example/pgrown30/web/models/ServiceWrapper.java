@@ -28,6 +28,14 @@ public class ServiceWrapper {
     @JsonProperty("Notification")
     @Valid
     private Notification notification;  // Add this
+
+    @JsonProperty("Pagination")
+    @Valid
+    private Pagination pagination;
+
+    @JsonProperty("DateRange")
+    @Valid
+    private DateRange dateRange;
     
 }
 
@@ -0,0 +1,7 @@
+-- Service requests whose boundary or file check is pending (the downstream was unavailable at
+-- create time). PendingValidationWorker polls these by created_time; the partial index only
+-- holds the few pending rows, and is created on every created_time partition.
+CREATE INDEX IF NOT EXISTS idx_citizen_service_pending_validation
+    ON citizen_service (created_time)
+    WHERE (boundary_code IS NOT NULL AND boundary_valid IS NULL)
+       OR (file_store_id IS NOT NULL AND file_valid IS NULL);
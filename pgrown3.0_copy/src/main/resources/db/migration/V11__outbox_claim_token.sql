@@ -0,0 +1,4 @@
+-- Token of the dispatcher batch that claimed an entry. A dispatcher records a send outcome only
+-- while the entry still carries its token, so one whose claim timed out cannot overwrite the
+-- outcome recorded by the dispatcher that took the entry over.
+ALTER TABLE notification_outbox ADD COLUMN IF NOT EXISTS claim_token UUID;
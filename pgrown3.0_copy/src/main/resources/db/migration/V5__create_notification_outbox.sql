@@ -0,0 +1,23 @@
+-- Transactional outbox for email/SMS notifications
+CREATE TABLE notification_outbox (
+    id                  UUID PRIMARY KEY,
+    service_request_id  VARCHAR(128) NOT NULL,
+    tenant_id           VARCHAR(64),
+    channel             VARCHAR(16) NOT NULL,
+    template_id         VARCHAR(128) NOT NULL,
+    recipients          JSONB NOT NULL,
+    payload             JSONB,
+    attachments         JSONB,
+    category            VARCHAR(64),
+    headers             JSONB,
+    status              VARCHAR(16) NOT NULL,
+    attempts            INT NOT NULL DEFAULT 0,
+    next_attempt_time   BIGINT NOT NULL,
+    last_error          VARCHAR(512),
+    created_time        BIGINT,
+    last_modified_time  BIGINT
+);
+
+-- Dispatcher polls only pending rows that are due
+CREATE INDEX idx_notification_outbox_due ON notification_outbox (next_attempt_time) WHERE status = 'PENDING';
+CREATE INDEX idx_notification_outbox_service ON notification_outbox (service_request_id);
@@ -0,0 +1,39 @@
+-- Indexes shaped to the search queries:
+--   WHERE tenant_id = ? [AND service_code = ?] [AND application_status = ?]
+--   ORDER BY created_time DESC, service_request_id DESC LIMIT n
+-- The sort key is part of every index so a page is read in order and stops after n rows.
+-- None of them covers the list view: a page returns every column of CitizenService, description
+-- included, so a covering index would be a second copy of the table. Reading in index order, a
+-- page fetches only its n rows from the heap, which is what an index-only scan would save.
+
+-- Columns mapped by CitizenServiceEntity that the indexes below need
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS boundary_code VARCHAR(64);
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS email VARCHAR(256);
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS mobile VARCHAR(32);
+
+-- Tenant-wide list, newest first
+CREATE INDEX IF NOT EXISTS idx_citizen_service_tenant_created
+    ON citizen_service (tenant_id, created_time DESC, service_request_id DESC);
+
+-- Tenant + service code
+CREATE INDEX IF NOT EXISTS idx_citizen_service_tenant_code_created
+    ON citizen_service (tenant_id, service_code, created_time DESC, service_request_id DESC);
+
+-- Tenant + status, open complaints only: worklists filter on these, while closed rows are the
+-- bulk of the table and are served well enough by the tenant index
+CREATE INDEX IF NOT EXISTS idx_citizen_service_open_tenant_status_created
+    ON citizen_service (tenant_id, application_status, created_time DESC, service_request_id DESC)
+    WHERE application_status IN ('INITIATED', 'IN_PROGRESS', 'VERIFIED', 'APPROVED', 'ACTIVE');
+
+-- Lookups by boundary and by citizen contact
+CREATE INDEX IF NOT EXISTS idx_citizen_service_tenant_boundary
+    ON citizen_service (tenant_id, boundary_code);
+CREATE INDEX IF NOT EXISTS idx_citizen_service_tenant_mobile
+    ON citizen_service (tenant_id, mobile);
+CREATE INDEX IF NOT EXISTS idx_citizen_service_tenant_email
+    ON citizen_service (tenant_id, email);
+
+-- Superseded: tenant_id is the leading column of the composites above, and status alone is
+-- too unselective to be used without the tenant
+DROP INDEX IF EXISTS idx_citizen_service_tenant;
+DROP INDEX IF EXISTS idx_citizen_service_status;
@@ -0,0 +1,6 @@
+-- Remaining columns mapped by CitizenServiceEntity that earlier migrations never created.
+-- IF NOT EXISTS: databases that picked them up from Hibernate's ddl-auto already have them.
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS action VARCHAR(64);
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS workflow_instance_id VARCHAR(128);
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS boundary_valid BOOLEAN;
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS process_id VARCHAR(128);
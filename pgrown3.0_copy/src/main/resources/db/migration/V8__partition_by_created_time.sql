@@ -0,0 +1,182 @@
+-- Range-partition citizen_service and its child tables by month of created_time (epoch millis, UTC).
+--
+-- * Each table becomes a partitioned table with monthly partitions <table>_pYYYYMM, a
+--   <table>_p_legacy partition for everything before the first month, and a default partition
+--   that only catches rows when partition maintenance has fallen behind. Such rows are moved
+--   into their month's partition when maintenance creates it.
+-- * The partition key must be part of every unique constraint, so primary keys become
+--   (id, created_time). service_request_id gets a unique index on each citizen_service
+--   partition instead; PostgreSQL cannot enforce it across partitions. Concurrent creates of one
+--   ID fall in the same month and are caught by it; ServiceServiceImpl looks up the ID in
+--   earlier months before inserting, which narrows the gap but does not close it.
+-- * For the same reason the child tables can no longer reference citizen_service by foreign key;
+--   the constraints are dropped and the service_request_id indexes kept.
+-- * Rows without a created_time get last_modified_time (or 0) so they land in a partition, and
+--   created_time is NOT NULL from here on; the search indexes sort on the bare column.
+-- PartitionMaintenanceRepository keeps creating partitions ahead of time and detaches old ones.
+
+-- Unique service_request_id within one partition of citizen_service
+CREATE FUNCTION pgr_ensure_unique_request_id(partition_name TEXT)
+RETURNS VOID LANGUAGE plpgsql AS $$
+BEGIN
+    EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %I (service_request_id)',
+            partition_name || '_request_id_key', partition_name);
+END $$;
+
+-- Creates the missing monthly partitions of parent from from_month (or the oldest month with
+-- rows in the default partition, if earlier) up to months_ahead months past the current month.
+-- Rows of a new month found in the default partition are moved into it. Returns the number of
+-- partitions created.
+CREATE OR REPLACE FUNCTION pgr_ensure_monthly_partitions(parent TEXT, from_month DATE, months_ahead INT)
+RETURNS INT LANGUAGE plpgsql AS $$
+DECLARE
+    default_part   REGCLASS;
+    key_column     TEXT;
+    oldest_default BIGINT;
+    month_start    DATE := date_trunc('month', from_month)::date;
+    last_month     DATE := (date_trunc('month', now() AT TIME ZONE 'UTC') + make_interval(months => months_ahead))::date;
+    partition_name TEXT;
+    lower_ms       BIGINT;
+    upper_ms       BIGINT;
+    moved          BIGINT;
+    created        INT := 0;
+BEGIN
+    SELECT NULLIF(p.partdefid, 0)::regclass, a.attname INTO default_part, key_column
+    FROM pg_partitioned_table p
+    JOIN pg_attribute a ON a.attrelid = p.partrelid AND a.attnum = p.partattrs[0]
+    WHERE p.partrelid = parent::regclass;
+
+    IF default_part IS NOT NULL THEN
+        EXECUTE format('SELECT min(%I) FROM %s', key_column, default_part) INTO oldest_default;
+        IF oldest_default IS NOT NULL THEN
+            month_start := least(month_start,
+                    date_trunc('month', to_timestamp(oldest_default / 1000.0) AT TIME ZONE 'UTC')::date);
+        END IF;
+    END IF;
+
+    WHILE month_start <= last_month LOOP
+        partition_name := parent || '_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(partition_name) IS NULL THEN
+            lower_ms := (extract(epoch FROM month_start::timestamp) * 1000)::bigint;
+            upper_ms := (extract(epoch FROM (month_start + interval '1 month')::timestamp) * 1000)::bigint;
+
+            moved := 0;
+            IF default_part IS NOT NULL THEN
+                -- Adding a partition scans the default one under this lock anyway; taking it first
+                -- keeps new rows of the month out between the count and the move
+                EXECUTE format('LOCK TABLE %s IN ACCESS EXCLUSIVE MODE', default_part);
+                EXECUTE format('SELECT count(*) FROM %s WHERE %I >= %s AND %I < %s',
+                        default_part, key_column, lower_ms, key_column, upper_ms) INTO moved;
+            END IF;
+
+            IF moved = 0 THEN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%s) TO (%s)',
+                        partition_name, parent, lower_ms, upper_ms);
+            ELSE
+                -- Attaching builds the parent's indexes on the new table and checks its rows
+                EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', partition_name, parent);
+                EXECUTE format('WITH moved_rows AS (DELETE FROM %s WHERE %I >= %s AND %I < %s RETURNING *) '
+                        'INSERT INTO %I SELECT * FROM moved_rows',
+                        default_part, key_column, lower_ms, key_column, upper_ms, partition_name);
+                EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%s) TO (%s)',
+                        parent, partition_name, lower_ms, upper_ms);
+                RAISE NOTICE 'Moved % rows of % from % into %', moved, to_char(month_start, 'YYYY-MM'),
+                        default_part, partition_name;
+            END IF;
+
+            IF parent = 'citizen_service' THEN
+                PERFORM pgr_ensure_unique_request_id(partition_name);
+            END IF;
+            created := created + 1;
+        END IF;
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END $$;
+
+-- Detaches the range partitions of parent whose upper bound is at or before before_ms.
+-- Detached partitions stay as ordinary tables (same name) for archiving. Returns their names.
+CREATE OR REPLACE FUNCTION pgr_detach_partitions_before(parent TEXT, before_ms BIGINT)
+RETURNS SETOF TEXT LANGUAGE plpgsql AS $$
+DECLARE
+    part     RECORD;
+    upper_ms BIGINT;
+BEGIN
+    FOR part IN
+        SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+    LOOP
+        CONTINUE WHEN part.bound NOT LIKE 'FOR VALUES FROM%';
+        upper_ms := substring(part.bound FROM 'TO \(''?(-?[0-9]+)''?\)')::bigint;
+        IF upper_ms IS NOT NULL AND upper_ms <= before_ms THEN
+            EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, part.relname);
+            RETURN NEXT part.relname;
+        END IF;
+    END LOOP;
+END $$;
+
+-- One-off conversion of an existing table, data included
+CREATE FUNCTION pgr_convert_to_partitioned(tbl TEXT, id_column TEXT, key_column TEXT, key_fallback TEXT)
+RETURNS VOID LANGUAGE plpgsql AS $$
+DECLARE
+    old_table   TEXT := tbl || '_unpartitioned';
+    min_key     BIGINT;
+    first_month DATE;
+BEGIN
+    EXECUTE format('UPDATE %I SET %I = COALESCE(%s, 0) WHERE %I IS NULL', tbl, key_column, key_fallback, key_column);
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', tbl, old_table);
+    EXECUTE format('ALTER INDEX IF EXISTS %I RENAME TO %I', tbl || '_pkey', old_table || '_pkey');
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS) PARTITION BY RANGE (%I)', tbl, old_table, key_column);
+    EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET NOT NULL', tbl, key_column);
+    EXECUTE format('ALTER TABLE %I ADD PRIMARY KEY (%I, %I)', tbl, id_column, key_column);
+
+    -- Monthly partitions from the oldest real timestamp; anything older goes to the legacy partition
+    EXECUTE format('SELECT min(%I) FROM %I WHERE %I > 0', key_column, old_table, key_column) INTO min_key;
+    first_month := date_trunc('month', COALESCE(to_timestamp(min_key / 1000.0), now()) AT TIME ZONE 'UTC')::date;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (MINVALUE) TO (%s)',
+            tbl || '_p_legacy', tbl, (extract(epoch FROM first_month::timestamp) * 1000)::bigint);
+    PERFORM pgr_ensure_monthly_partitions(tbl, first_month, 3);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', tbl || '_default', tbl);
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', tbl, old_table);
+    EXECUTE format('DROP TABLE %I', old_table);
+END $$;
+
+ALTER TABLE citizen_address DROP CONSTRAINT IF EXISTS fk_citizen_address_service;
+ALTER TABLE citizen_workflow DROP CONSTRAINT IF EXISTS fk_citizen_workflow_service;
+ALTER TABLE citizen_document DROP CONSTRAINT IF EXISTS fk_citizen_document_service;
+ALTER TABLE citizen_audit DROP CONSTRAINT IF EXISTS fk_citizen_audit_service;
+
+SELECT pgr_convert_to_partitioned('citizen_service', 'service_request_id', 'created_time', 'last_modified_time');
+SELECT pgr_convert_to_partitioned('citizen_address', 'id', 'created_time', 'last_modified_time');
+SELECT pgr_convert_to_partitioned('citizen_workflow', 'id', 'created_time', 'last_modified_time');
+SELECT pgr_convert_to_partitioned('citizen_document', 'id', 'created_time', 'last_modified_time');
+SELECT pgr_convert_to_partitioned('citizen_audit', 'id', 'performed_time', 'NULL');
+
+DROP FUNCTION pgr_convert_to_partitioned(TEXT, TEXT, TEXT, TEXT);
+
+-- Indexes are defined on the parents (and so created on every partition), after the data is loaded
+CREATE INDEX idx_citizen_service_tenant_created
+    ON citizen_service (tenant_id, created_time DESC, service_request_id DESC);
+CREATE INDEX idx_citizen_service_tenant_code_created
+    ON citizen_service (tenant_id, service_code, created_time DESC, service_request_id DESC);
+CREATE INDEX idx_citizen_service_open_tenant_status_created
+    ON citizen_service (tenant_id, application_status, created_time DESC, service_request_id DESC)
+    WHERE application_status IN ('INITIATED', 'IN_PROGRESS', 'VERIFIED', 'APPROVED', 'ACTIVE');
+CREATE INDEX idx_citizen_service_tenant_boundary ON citizen_service (tenant_id, boundary_code);
+CREATE INDEX idx_citizen_service_tenant_mobile ON citizen_service (tenant_id, mobile);
+CREATE INDEX idx_citizen_service_tenant_email ON citizen_service (tenant_id, email);
+CREATE INDEX idx_citizen_service_account ON citizen_service (account_id);
+
+CREATE INDEX idx_citizen_address_service ON citizen_address (service_request_id);
+CREATE INDEX idx_citizen_workflow_service ON citizen_workflow (service_request_id);
+CREATE INDEX idx_citizen_document_service ON citizen_document (service_request_id);
+CREATE INDEX idx_citizen_audit_service ON citizen_audit (service_request_id);
+
+-- Monthly partitions got theirs when they were created; this covers the legacy and default ones
+SELECT pgr_ensure_unique_request_id(c.relname)
+FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+WHERE i.inhparent = 'citizen_service'::regclass;
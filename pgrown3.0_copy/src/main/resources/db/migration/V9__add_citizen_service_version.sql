@@ -0,0 +1,3 @@
+-- Optimistic locking: Hibernate increments version on every update of a service request
+-- and rejects the update when the row changed since it was read.
+ALTER TABLE citizen_service ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,59 @@
+package com.example.pgrown30;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application the way production does: Flyway migrates an empty PostgreSQL and
+ * Hibernate validates every entity against the result. The context only loads if the
+ * migrations and the entity mappings agree. Skipped when Docker is not available.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class FlywaySchemaValidationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void testMigrationsMatchEntities() {
+        // then - every migration applied, up to the newest one on the classpath
+        MigrationInfo[] all = flyway.info().all();
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(all).allMatch(migration -> migration.getState().isApplied());
+        assertThat(flyway.info().current().getVersion()).isEqualTo(all[all.length - 1].getVersion());
+
+        // and Hibernate validated the entities against the migrated schema
+        assertThat(entityManagerFactory.getProperties()).containsEntry("hibernate.hbm2ddl.auto", "validate");
+        assertThat(entityManagerFactory.isOpen()).isTrue();
+    }
+}
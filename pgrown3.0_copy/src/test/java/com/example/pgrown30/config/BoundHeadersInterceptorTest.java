@@ -0,0 +1,113 @@
+package com.example.pgrown30.config;
+
+import com.digit.config.HeaderPropagationInterceptor;
+import com.digit.config.PropagationProperties;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class BoundHeadersInterceptorTest {
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        PropagationProperties propagationProperties = new PropagationProperties();
+        ReflectionTestUtils.setField(propagationProperties, "allowString", "authorization,x-tenant-id");
+        ReflectionTestUtils.setField(propagationProperties, "prefixesString", "x-ctx-");
+
+        // Interceptors in the order the application ends up with
+        restTemplate = new RestTemplate();
+        restTemplate.setInterceptors(List.of(new HeaderPropagationInterceptor(propagationProperties),
+                new BoundHeadersInterceptor(propagationProperties)));
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testBoundHeadersAreSentWithoutARequest() {
+        // given
+        expectHeaders(Map.of("X-Tenant-ID", List.of("pg.citya"), "x-ctx-origin", List.of("revalidation")), "Host");
+
+        // when
+        RequestContextSnapshot.runWithHeaders(
+                Map.of("X-Tenant-ID", "pg.citya", "x-ctx-origin", "revalidation", "Host", "pgr.internal"),
+                () -> restTemplate.getForObject("http://boundary/search", String.class));
+
+        // then
+        server.verify();
+    }
+
+    @Test
+    void testBoundTenantReplacesTheLiveRequestsOwn() {
+        // given: the live request is for one tenant, the call is made for another
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pg.citya");
+        request.addHeader("Authorization", "Bearer user-token");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        expectHeaders(Map.of("X-Tenant-ID", List.of("pg.cityb"), "Authorization", List.of("Bearer user-token")));
+
+        // when
+        RequestContextSnapshot.callWithHeaders(RequestContextSnapshot.headersForTenant("pg.cityb"),
+                () -> restTemplate.getForObject("http://boundary/search", String.class));
+
+        // then
+        server.verify();
+    }
+
+    @Test
+    void testWrappedTaskSendsTheSubmittingRequestsHeaders() throws Exception {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pg.citya");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        expectHeaders(Map.of("X-Tenant-ID", List.of("pg.citya")));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // when
+            executor.submit(RequestContextSnapshot.wrap(() -> restTemplate.getForObject("http://boundary/search", String.class)))
+                    .get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // then
+        server.verify();
+    }
+
+    private void expectHeaders(Map<String, List<String>> expected, String... absent) {
+        server.expect(requestTo("http://boundary/search"))
+                .andExpect(request -> {
+                    HttpHeaders headers = request.getHeaders();
+                    expected.forEach((name, values) -> assertThat(headers.get(name)).as(name).isEqualTo(values));
+                    for (String name : absent) {
+                        assertThat(headers.containsKey(name)).as(name).isFalse();
+                    }
+                })
+                .andRespond(withSuccess());
+    }
+}
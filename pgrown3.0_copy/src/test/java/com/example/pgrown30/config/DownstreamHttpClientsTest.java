@@ -0,0 +1,67 @@
+package com.example.pgrown30.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownstreamHttpClientsTest {
+
+    @Test
+    void testDigitClientTimeoutsApplyWhenPoolsSetNone() throws Exception {
+        // given
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.getDownstreams().put("boundary", pool(null, 5000));
+
+        // when
+        DownstreamHttpClients clients = clients(properties, 3000, 30000);
+
+        // then: digit.services.timeout.* for every pool, except what a downstream sets itself
+        assertThat(clients.settings("workflow").getReadTimeoutMs()).isEqualTo(30000);
+        assertThat(clients.settings("workflow").getConnectTimeoutMs()).isEqualTo(3000);
+        assertThat(clients.settings("boundary").getReadTimeoutMs()).isEqualTo(5000);
+        assertThat(clients.settings("boundary").getConnectTimeoutMs()).isEqualTo(3000);
+        clients.destroy();
+    }
+
+    @Test
+    void testPoolDefaultsOverrideDigitClientTimeouts() throws Exception {
+        // given
+        HttpClientProperties properties = new HttpClientProperties();
+        properties.setDefaults(pool(1000, 8000));
+
+        // when
+        DownstreamHttpClients clients = clients(properties, 3000, 30000);
+
+        // then
+        assertThat(clients.settings("default").getReadTimeoutMs()).isEqualTo(8000);
+        assertThat(clients.settings("default").getConnectTimeoutMs()).isEqualTo(1000);
+        clients.destroy();
+    }
+
+    @Test
+    void testStandardTimeoutsWhenNothingIsSet() throws Exception {
+        // when
+        DownstreamHttpClients clients = clients(new HttpClientProperties(), null, null);
+
+        // then
+        HttpClientProperties.Pool standard = HttpClientProperties.Pool.standard();
+        assertThat(clients.settings("idgen").getReadTimeoutMs()).isEqualTo(standard.getReadTimeoutMs());
+        assertThat(clients.settings("idgen").getConnectTimeoutMs()).isEqualTo(standard.getConnectTimeoutMs());
+        assertThat(clients.settings("idgen").getMaxConnections()).isEqualTo(standard.getMaxConnections());
+        clients.destroy();
+    }
+
+    private static DownstreamHttpClients clients(HttpClientProperties properties, Integer connectMs, Integer readMs) {
+        return new DownstreamHttpClients(properties, new SimpleMeterRegistry(),
+                "http://workflow:8085", "http://filestore:8094", "http://boundary:8093",
+                "http://idgen:8100", "http://notification:8091", connectMs, readMs);
+    }
+
+    private static HttpClientProperties.Pool pool(Integer connectTimeoutMs, Integer readTimeoutMs) {
+        HttpClientProperties.Pool pool = new HttpClientProperties.Pool();
+        pool.setConnectTimeoutMs(connectTimeoutMs);
+        pool.setReadTimeoutMs(readTimeoutMs);
+        return pool;
+    }
+}
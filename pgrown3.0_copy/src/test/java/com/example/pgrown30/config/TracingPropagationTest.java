@@ -0,0 +1,160 @@
+package com.example.pgrown30.config;
+
+import com.example.pgrown30.repository.WorkflowRepository;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Outgoing calls carry the caller's W3C traceparent on both the application's and the
+ * digit-client RestTemplate, and a repository call is traced as a DownstreamGuard span with the
+ * HTTP client span inside it. Binds MockRestServiceServer to the shared RestTemplates, so the
+ * context is not reused.
+ */
+@SpringBootTest(properties = {"management.tracing.sampling.probability=1.0",
+        "pgr.notification.outbox.enabled=false", "pgr.revalidation.enabled=false"})
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+@DirtiesContext
+class TracingPropagationTest {
+
+    @Autowired
+    private Tracer tracer;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Autowired
+    private CollectingSpanExporter spanExporter;
+
+    @Autowired
+    @Qualifier("pgrRestTemplate")
+    private RestTemplate pgrRestTemplate;
+
+    @Autowired
+    @Qualifier("restTemplate")
+    private RestTemplate digitRestTemplate;
+
+    @Autowired
+    private WorkflowRepository workflowRepository;
+
+    @BeforeEach
+    void setUp() {
+        spanExporter.spans.clear();
+    }
+
+    @Test
+    void testPgrRestTemplateSendsTheTraceparent() {
+        assertTraceparentSent(pgrRestTemplate);
+    }
+
+    @Test
+    void testDigitRestTemplateSendsTheTraceparent() {
+        assertTraceparentSent(digitRestTemplate);
+    }
+
+    @Test
+    void testRepositoryCallIsTracedAroundItsHttpCall() {
+        // given
+        MockRestServiceServer server = MockRestServiceServer.bindTo(pgrRestTemplate).build();
+        server.expect(request -> assertThat(request.getURI().getPath()).endsWith("/transition"))
+                .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+        // when
+        workflowRepository.getLatestInstance("pg.citya", "PGR", "PGR-1");
+
+        // then
+        server.verify();
+        List<SpanData> spans = finishedSpans();
+        SpanData guardSpan = spans.stream()
+                .filter(span -> span.getName().equals("workflow getLatestInstance"))
+                .findFirst().orElseThrow();
+        assertThat(guardSpan.getAttributes().get(AttributeKey.stringKey("pgr.downstream"))).isEqualTo("workflow");
+        assertThat(guardSpan.getAttributes().get(AttributeKey.stringKey("pgr.outcome"))).isEqualTo("success");
+        assertThat(spans).anySatisfy(span -> {
+            assertThat(span.getKind()).isEqualTo(SpanKind.CLIENT);
+            assertThat(span.getParentSpanId()).isEqualTo(guardSpan.getSpanId());
+        });
+    }
+
+    private void assertTraceparentSent(RestTemplate restTemplate) {
+        // given
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        Span parent = tracer.nextSpan().name("caller").start();
+        String traceId = parent.context().traceId();
+        server.expect(request -> assertThat(request.getHeaders().getFirst("traceparent"))
+                        .matches("00-" + traceId + "-[0-9a-f]{16}-01"))
+                .andRespond(withSuccess());
+
+        // when
+        try (Tracer.SpanInScope ignored = tracer.withSpan(parent)) {
+            restTemplate.getForObject("http://downstream/search", String.class);
+        } finally {
+            parent.end();
+        }
+
+        // then
+        server.verify();
+    }
+
+    private List<SpanData> finishedSpans() {
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+        return List.copyOf(spanExporter.spans);
+    }
+
+    @TestConfiguration
+    static class SpanCollection {
+
+        @Bean
+        CollectingSpanExporter collectingSpanExporter() {
+            return new CollectingSpanExporter();
+        }
+    }
+
+    static class CollectingSpanExporter implements SpanExporter {
+
+        private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
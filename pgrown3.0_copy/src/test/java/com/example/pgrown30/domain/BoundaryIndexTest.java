@@ -0,0 +1,51 @@
+package com.example.pgrown30.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundaryIndexTest {
+
+    private final BoundaryIndex index = BoundaryIndex.EMPTY.withTenant("pg.citya", List.of(
+            new BoundaryIndex.Node("CITY", "City", null, List.of("ZONE1", "ZONE2")),
+            new BoundaryIndex.Node("ZONE1", "Zone", "CITY", List.of("WARD1", "WARD2")),
+            new BoundaryIndex.Node("ZONE2", "Zone", "CITY", List.of("WARD3")),
+            new BoundaryIndex.Node("WARD1", "Ward", "ZONE1", List.of()),
+            new BoundaryIndex.Node("WARD2", "Ward", "ZONE1", List.of()),
+            new BoundaryIndex.Node("WARD3", "Ward", "ZONE2", null)
+    ));
+
+    @Test
+    void testContainsIsScopedByTenant() {
+        assertThat(index.isLoaded("pg.citya")).isTrue();
+        assertThat(index.contains("pg.citya", "WARD1")).isTrue();
+        assertThat(index.contains("pg.citya", "WARD9")).isFalse();
+        assertThat(index.contains("pg.cityb", "WARD1")).isFalse();
+    }
+
+    @Test
+    void testParentChainWalksToRoot() {
+        assertThat(index.parentChain("pg.citya", "WARD2")).containsExactly("WARD2", "ZONE1", "CITY");
+        assertThat(index.parentChain("pg.citya", "UNKNOWN")).isEmpty();
+    }
+
+    @Test
+    void testChildrenGroupedByLevel() {
+        Map<String, List<String>> levels = index.childrenByLevel("pg.citya", "CITY");
+
+        assertThat(levels.keySet()).containsExactly("Zone", "Ward");
+        assertThat(levels.get("Zone")).containsExactly("ZONE1", "ZONE2");
+        assertThat(levels.get("Ward")).containsExactly("WARD1", "WARD2", "WARD3");
+    }
+
+    @Test
+    void testWithTenantLeavesPreviousSnapshotUntouched() {
+        BoundaryIndex updated = index.withTenant("pg.cityb", List.of(new BoundaryIndex.Node("B1", "City", null, null)));
+
+        assertThat(updated.sizes()).containsEntry("pg.citya", 6).containsEntry("pg.cityb", 1);
+        assertThat(index.isLoaded("pg.cityb")).isFalse();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.pgrown30.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        // given
+        CitizenServiceEntity entity = CitizenServiceEntity.builder()
+                .serviceRequestId("PGR-2025:000042")
+                .createdTime(1735689600000L)
+                .build();
+
+        // when
+        SearchCursor decoded = SearchCursor.decode(SearchCursor.of(entity).encode());
+
+        // then
+        assertThat(decoded.createdTime()).isEqualTo(1735689600000L);
+        assertThat(decoded.serviceRequestId()).isEqualTo("PGR-2025:000042");
+    }
+
+    @Test
+    void testMissingCreatedTimeSortsAsZero() {
+        CitizenServiceEntity entity = CitizenServiceEntity.builder().serviceRequestId("REQ-001").build();
+
+        assertThat(SearchCursor.of(entity).createdTime()).isZero();
+    }
+
+    @Test
+    void testDecodeRejectsGarbage() {
+        assertThatThrownBy(() -> SearchCursor.decode("not-a-cursor"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Invalid pagination cursor");
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.pgrown30.repository;
+
+import com.digit.services.boundary.BoundaryClient;
+import com.digit.services.boundary.model.Boundary;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BoundaryRepositoryTest {
+
+    private BoundaryClient boundaryClient;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private DownstreamMetrics downstreamMetrics;
+    private DownstreamGuard downstreamGuard;
+    private BoundaryRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        boundaryClient = mock(BoundaryClient.class);
+        // Known codes are WARD1..WARD9
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenAnswer(inv -> {
+            List<String> codes = inv.getArgument(0);
+            return codes.stream()
+                    .filter(code -> code.matches("WARD[1-9]"))
+                    .map(code -> Boundary.builder().code(code).build())
+                    .toList();
+        });
+
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        downstreamMetrics = new DownstreamMetrics(meterRegistry, true, Set.of());
+        downstreamGuard = new DownstreamGuard(circuitBreakerRegistry, BulkheadRegistry.ofDefaults(), downstreamMetrics, Tracer.NOOP);
+        repository = newRepository(2, 0);
+    }
+
+    @Test
+    void testValidateBoundariesSearchesMissesInBatches() {
+        // when
+        Map<String, Boolean> result = repository.validateBoundaries("pg.citya", List.of("WARD1", "WARD2", "NOPE", "WARD3"));
+
+        // then: 4 codes at 2 per search
+        assertThat(result).containsEntry("WARD1", true).containsEntry("WARD3", true).containsEntry("NOPE", false);
+        verify(boundaryClient, times(2)).searchBoundariesByCodes(anyList());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneSearch() throws Exception {
+        // given: a window long enough for every caller to join the first batch
+        BoundaryRepository coalescing = newRepository(100, 500);
+        ExecutorService callers = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            String code = i <= 9 ? "WARD" + i : "NOPE" + i;
+            results.add(callers.submit(() -> {
+                start.await();
+                return coalescing.isBoundaryValid("pg.citya", code);
+            }));
+        }
+        start.countDown();
+
+        // then
+        for (int i = 0; i < 20; i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i < 9);
+        }
+        callers.shutdown();
+        verify(boundaryClient, times(1)).searchBoundariesByCodes(anyList());
+    }
+
+    @Test
+    void testCoalescedBatchClosesEarlyWhenFull() throws Exception {
+        // given: a window far longer than the test, but batches of 2 codes
+        BoundaryRepository coalescing = newRepository(2, 60_000);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<Boolean> first = callers.submit(() -> coalescing.isBoundaryValid("pg.citya", "WARD1"));
+        Future<Boolean> second = callers.submit(() -> coalescing.isBoundaryValid("pg.citya", "WARD2"));
+
+        // then
+        assertThat(first.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isTrue();
+        callers.shutdown();
+        // the two callers race, so the batch may list the codes in either order
+        verify(boundaryClient).searchBoundariesByCodes(argThat(codes -> codes.size() == 2
+                && codes.containsAll(List.of("WARD1", "WARD2"))));
+    }
+
+    @Test
+    void testValidateBoundariesServesCachedCodesWithoutLookup() {
+        // given
+        repository.validateBoundaries("pg.citya", List.of("WARD1", "NOPE"));
+
+        // when
+        Map<String, Boolean> result = repository.validateBoundaries("pg.citya", List.of("WARD1", "NOPE", "WARD5"));
+
+        // then: only WARD5 was looked up the second time
+        assertThat(result).containsEntry("WARD1", true).containsEntry("NOPE", false).containsEntry("WARD5", true);
+        verify(boundaryClient).searchBoundariesByCodes(List.of("WARD5"));
+        assertThat(repository.isBoundaryValid("pg.citya", "WARD5")).isTrue();
+        verify(boundaryClient, times(2)).searchBoundariesByCodes(anyList());
+    }
+
+    @Test
+    void testUnavailableBoundaryServiceMarksCodesPending() {
+        // given
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenThrow(new RuntimeException("read timed out"));
+
+        // when
+        Boolean single = repository.checkBoundary("pg.citya", "WARD1");
+        Map<String, Boolean> batch = repository.validateBoundaries("pg.citya", List.of("WARD2", "WARD3"));
+
+        // then: unknown rather than invalid, and never reported valid
+        assertThat(single).isNull();
+        assertThat(batch).containsEntry("WARD2", null).containsEntry("WARD3", null);
+        assertThat(repository.isBoundaryValid("pg.citya", "WARD4")).isFalse();
+        assertThat(meterRegistry.get("pgr.downstream.call")
+                .tags("downstream", "boundary", "outcome", "failure").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("pgr.repository.operation")
+                .tags("operation", "isBoundaryValid", "tenant", "pg.citya", "outcome", "pending").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testOpenBreakerStopsCallingBoundaryService() {
+        // given: enough failures to open the breaker
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenThrow(new RuntimeException("connection refused"));
+        for (int i = 1; i <= 4; i++) {
+            repository.checkBoundary("pg.citya", "WARD" + i);
+        }
+        assertThat(downstreamGuard.state("boundary")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // when
+        Boolean result = repository.checkBoundary("pg.citya", "WARD5");
+
+        // then: answered from the fallback without another search
+        assertThat(result).isNull();
+        verify(boundaryClient, times(4)).searchBoundariesByCodes(anyList());
+    }
+
+    @Test
+    void testCachedAnswerIsServedWithoutLookup() {
+        // when
+        boolean miss = repository.isBoundaryValid("pg.citya", "WARD1");
+        boolean hit = repository.isBoundaryValid("pg.citya", "WARD1");
+
+        // then
+        assertThat(miss).isTrue();
+        assertThat(hit).isTrue();
+        verify(boundaryClient, times(1)).searchBoundariesByCodes(anyList());
+        assertThat(repository.cacheStats()).containsEntry("hitCount", 1L).containsEntry("missCount", 1L);
+    }
+
+    @Test
+    void testNegativeEntriesExpireBeforeValidOnes() {
+        // given: invalid codes are not kept at all, valid ones for an hour
+        BoundaryRepository shortNegative = newRepository(2, 0, 60, 0);
+
+        // when
+        for (int i = 0; i < 2; i++) {
+            assertThat(shortNegative.isBoundaryValid("pg.citya", "WARD1")).isTrue();
+            assertThat(shortNegative.isBoundaryValid("pg.citya", "NOPE")).isFalse();
+        }
+
+        // then: the invalid code is looked up again, the valid one is not
+        verify(boundaryClient, times(1)).searchBoundariesByCodes(List.of("WARD1"));
+        verify(boundaryClient, times(2)).searchBoundariesByCodes(List.of("NOPE"));
+    }
+
+    @Test
+    void testValidEntriesExpireAfterTtl() {
+        // given
+        BoundaryRepository noTtl = newRepository(2, 0, 0, 5);
+
+        // when
+        noTtl.isBoundaryValid("pg.citya", "WARD1");
+        noTtl.isBoundaryValid("pg.citya", "WARD1");
+
+        // then
+        verify(boundaryClient, times(2)).searchBoundariesByCodes(List.of("WARD1"));
+    }
+
+    @Test
+    void testLookupIsMadeForTheTenantOfTheCacheKey() {
+        // given: the request is for one tenant, the codes belong to another
+        List<String> tenantsSeen = new ArrayList<>();
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenAnswer(inv -> {
+            tenantsSeen.add(RequestContextSnapshot.currentHeader("X-Tenant-ID"));
+            return List.of();
+        });
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pg.citya");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try {
+            // when
+            repository.checkBoundary("pg.cityb", "WARD1");
+            repository.validateBoundaries("pg.cityc", List.of("WARD2"));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        // then
+        assertThat(tenantsSeen).containsExactly("pg.cityb", "pg.cityc");
+    }
+
+    private BoundaryRepository newRepository(int maxCodes, long coalesceWindowMs) {
+        return newRepository(maxCodes, coalesceWindowMs, 60, 5);
+    }
+
+    private BoundaryRepository newRepository(int maxCodes, long coalesceWindowMs, long ttlMinutes, long negativeTtlMinutes) {
+        Executor direct = Runnable::run;
+        return new BoundaryRepository(boundaryClient, new BoundaryIndexRepository(boundaryClient, downstreamGuard, direct),
+                downstreamGuard, downstreamMetrics, direct, new SimpleMeterRegistry(),
+                1000, ttlMinutes, negativeTtlMinutes, 15, maxCodes, coalesceWindowMs, ValidationFallback.PENDING);
+    }
+}
@@ -35,7 +35,7 @@ class CitizenServiceRepositoryTest {
 
         // when
         repository.save(entity);
-        CitizenServiceEntity found = repository.findById("REQ-001").orElse(null);
+        CitizenServiceEntity found = repository.findByServiceRequestId("REQ-001").orElse(null);
 
         // then
         assertThat(found).isNotNull();
@@ -52,6 +52,7 @@ class CitizenServiceRepositoryTest {
                 .serviceCode("PGR002")
                 .description("Garbage not collected")
                 .applicationStatus(Status.ACTIVE)
+                .createdTime(System.currentTimeMillis())
                 .build();
 
         repository.save(entity1);
@@ -73,6 +74,7 @@ class CitizenServiceRepositoryTest {
                 .serviceCode("PGR003")
                 .description("Water leakage")
                 .applicationStatus(Status.ACTIVE)
+                .createdTime(System.currentTimeMillis())
                 .build();
 
         repository.save(entity2);
@@ -0,0 +1,123 @@
+package com.example.pgrown30.repository;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamGuardTest {
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private SimpleMeterRegistry meterRegistry;
+    private DownstreamGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(1)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        guard = new DownstreamGuard(circuitBreakerRegistry, bulkheadRegistry,
+                new DownstreamMetrics(meterRegistry, false, Set.of()), Tracer.NOOP);
+    }
+
+    @Test
+    void testSuccessfulCallReturnsItsResult() {
+        // when
+        String result = guard.call("filestore", "checkMetadata", () -> "ok");
+
+        // then
+        assertThat(result).isEqualTo("ok");
+        assertThat(calls("success")).isEqualTo(1);
+    }
+
+    @Test
+    void testOpenBreakerRefusesWithoutCalling() {
+        // given
+        circuitBreakerRegistry.circuitBreaker("filestore").transitionToOpenState();
+        AtomicInteger calls = new AtomicInteger();
+
+        // when / then
+        assertThatThrownBy(() -> guard.call("filestore", "checkMetadata", calls::incrementAndGet))
+                .isInstanceOfSatisfying(DownstreamUnavailableException.class, e -> {
+                    assertThat(e.getDownstream()).isEqualTo("filestore");
+                    assertThat(e).hasMessageContaining("circuit breaker is open");
+                });
+        assertThat(calls).hasValue(0);
+        assertThat(calls("rejected")).isEqualTo(1);
+    }
+
+    @Test
+    void testFailuresPropagateUntilTheBreakerOpens() {
+        // given: a full window of failures
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guard.call("workflow", "transition", () -> {
+                throw new IllegalStateException("down");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        // when / then
+        assertThat(guard.state("workflow")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> guard.run("workflow", "transition", () -> {}))
+                .isInstanceOf(DownstreamUnavailableException.class);
+        assertThat(calls("failure")).isEqualTo(4);
+        assertThat(guard.state("boundary")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void testFullBulkheadRefusesTheNextCall() throws Exception {
+        // given: one call holds the only permit
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> held = caller.submit(() -> guard.call("boundary", "search", () -> {
+                started.countDown();
+                try {
+                    return release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // when / then
+            assertThatThrownBy(() -> guard.call("boundary", "search", () -> true))
+                    .isInstanceOf(DownstreamUnavailableException.class)
+                    .hasMessageContaining("too many concurrent calls");
+            release.countDown();
+            assertThat(held.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.find("pgr.downstream.call").tag("outcome", outcome).timers().stream()
+                .mapToLong(timer -> timer.count())
+                .sum();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.pgrown30.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DownstreamMetricsTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testTenantTagIsOffByDefault() {
+        // given
+        DownstreamMetrics metrics = new DownstreamMetrics(new SimpleMeterRegistry(), false, Set.of());
+
+        // when / then
+        assertThat(metrics.tenantTag("pg.citya")).isEqualTo("all");
+    }
+
+    @Test
+    void testTenantComesFromTheRequestHeader() {
+        // given
+        DownstreamMetrics metrics = new DownstreamMetrics(new SimpleMeterRegistry(), true, Set.of());
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pg.cityb");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // when / then
+        assertThat(metrics.tenantTag(null)).isEqualTo("pg.cityb");
+        assertThat(metrics.tenantTag("pg.citya")).isEqualTo("pg.citya");
+    }
+
+    @Test
+    void testUnlistedTenantsShareOneTag() {
+        // given
+        DownstreamMetrics metrics = new DownstreamMetrics(new SimpleMeterRegistry(), true, Set.of("pg.citya", " "));
+
+        // when / then
+        assertThat(metrics.tenantTag("pg.citya")).isEqualTo("pg.citya");
+        assertThat(metrics.tenantTag("made.up.tenant")).isEqualTo("other");
+        assertThat(metrics.tenantTag(null)).isEqualTo("none");
+    }
+}
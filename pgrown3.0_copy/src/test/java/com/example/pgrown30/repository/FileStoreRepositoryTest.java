@@ -0,0 +1,184 @@
+package com.example.pgrown30.repository;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileStoreRepositoryTest {
+
+    private static final String TENANT = "pg.citya";
+
+    private RestTemplate restTemplate;
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+    private FileStoreRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamMetrics metrics = new DownstreamMetrics(meterRegistry, false, Set.of());
+        repository = new FileStoreRepository(restTemplate,
+                new DownstreamGuard(circuitBreakerRegistry, BulkheadRegistry.ofDefaults(), metrics, Tracer.NOOP),
+                metrics, meterRegistry, 100, 60, 60, ValidationFallback.PENDING);
+        ReflectionTestUtils.setField(repository, "fileStoreHost", "http://filestore");
+        ReflectionTestUtils.setField(repository, "metadataEndpoint", "/filestore/v1/files/metadata");
+    }
+
+    @Test
+    void testFileWithMetadataIsValidAndCached() {
+        // given
+        metadataAnswers(ResponseEntity.ok(Map.<String, Object>of("fileSize", 1024)));
+
+        // when
+        Boolean first = repository.checkFile(TENANT, "file-1");
+        Boolean second = repository.checkFile(TENANT, "file-1");
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void testNotFoundIsInvalidAndCached() {
+        // given: neither the metadata nor the file exists
+        filestoreFails(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        // when
+        Boolean first = repository.checkFile(TENANT, "missing");
+        Boolean second = repository.checkFile(TENANT, "missing");
+
+        // then
+        assertThat(first).isFalse();
+        assertThat(second).isFalse();
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void testOtherClientErrorsArePendingAndNotCached() {
+        // given: the filestore refuses our credentials; that says nothing about the file
+        filestoreFails(HttpClientErrorException.create(HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, null));
+
+        // when
+        Boolean first = repository.checkFile(TENANT, "file-1");
+        Boolean second = repository.checkFile(TENANT, "file-1");
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void testServerErrorIsPending() {
+        // given
+        filestoreFails(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+
+        // when / then
+        assertThat(repository.checkFile(TENANT, "file-1")).isNull();
+        assertThat(repository.isFileValid(TENANT, "file-1")).isFalse();
+    }
+
+    @Test
+    void testMissingMetadataFallsBackToReadingTheFile() {
+        // given: no metadata for the file, but the file itself is there
+        metadataFails(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+        contentAnswers(true);
+
+        // when / then
+        assertThat(repository.checkFile(TENANT, "file-1")).isTrue();
+        verify(restTemplate).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    void testUnsupportedMetadataEndpointFallsBackToReadingTheFile() {
+        // given
+        metadataFails(HttpClientErrorException.create(HttpStatus.METHOD_NOT_ALLOWED, "Method Not Allowed", null, null, null));
+        contentAnswers(true);
+
+        // when / then
+        assertThat(repository.checkFile(TENANT, "file-1")).isTrue();
+    }
+
+    @Test
+    void testMetadataServerErrorDoesNotReadTheFile() {
+        // given
+        metadataFails(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+
+        // when
+        Boolean valid = repository.checkFile(TENANT, "file-1");
+
+        // then: pending, and the failure reached the breaker
+        assertThat(valid).isNull();
+        verify(restTemplate, never()).execute(anyString(), any(HttpMethod.class), any(RequestCallback.class), any(ResponseExtractor.class));
+        assertThat(circuitBreakerRegistry.circuitBreaker("filestore").getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void testOpenBreakerAnswersPendingWithoutCalling() {
+        // given
+        circuitBreakerRegistry.circuitBreaker("filestore").transitionToOpenState();
+
+        // when
+        Boolean valid = repository.checkFile(TENANT, "file-1");
+
+        // then
+        assertThat(valid).isNull();
+        verify(restTemplate, never()).exchange(anyString(), any(HttpMethod.class), any(), any(ParameterizedTypeReference.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void metadataAnswers(ResponseEntity<Map<String, Object>> response) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenReturn(response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void metadataFails(RuntimeException error) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void contentAnswers(boolean hasContent) {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenReturn(hasContent);
+    }
+
+    // Both the metadata lookup and the one-byte content read get the same answer
+    @SuppressWarnings("unchecked")
+    private void filestoreFails(RuntimeException error) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), any(ParameterizedTypeReference.class)))
+                .thenThrow(error);
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenThrow(error);
+    }
+}
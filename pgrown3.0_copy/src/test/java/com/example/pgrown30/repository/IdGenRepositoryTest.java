@@ -0,0 +1,271 @@
+package com.example.pgrown30.repository;
+
+import com.digit.services.idgen.IdGenClient;
+import com.digit.services.idgen.model.GenerateIDResponse;
+import com.digit.services.idgen.model.IdGenGenerateRequest;
+import com.example.pgrown30.config.ServiceCredentials;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdGenRepositoryTest {
+
+    private static final String TENANT = "pb.amritsar";
+
+    private final AtomicInteger sequence = new AtomicInteger();
+    private IdGenClient idGenClient;
+    private IdGenRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        idGenClient = mock(IdGenClient.class);
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class)))
+                .thenAnswer(inv -> new GenerateIDResponse(String.format("PGR-%06d", sequence.incrementAndGet())));
+
+        DownstreamMetrics metrics = new DownstreamMetrics(new SimpleMeterRegistry(), true, Set.of());
+        repository = new IdGenRepository(idGenClient,
+                new DownstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), metrics, Tracer.NOOP), metrics,
+                new ServiceCredentials("service-token"), 2);
+        ReflectionTestUtils.setField(repository, "templateId", "pgr");
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.shutdown();
+    }
+
+    @Test
+    void testGenerateIdCallsIdGenWhenLeasingDisabled() {
+        // when
+        String first = repository.generateId(TENANT, "service_request");
+        String second = repository.generateId(TENANT, "service_request");
+
+        // then
+        assertThat(first).isEqualTo("PGR-000001");
+        assertThat(second).isEqualTo("PGR-000002");
+        verify(idGenClient, times(2)).generateId(any(IdGenGenerateRequest.class));
+        assertThat(repository.leasedIdCount(TENANT, "service_request")).isZero();
+    }
+
+    @Test
+    void testLeasedIdsAreHandedOutInSequenceOrder() {
+        // given
+        enableLeasing(20, 5);
+
+        // when - the first call is served synchronously and triggers the background refill
+        List<String> ids = new ArrayList<>();
+        ids.add(repository.generateId(TENANT, "service_request"));
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> repository.leasedIdCount(TENANT, "service_request") == 20);
+
+        for (int i = 0; i < 20; i++) {
+            ids.add(repository.generateId(TENANT, "service_request"));
+        }
+
+        // then
+        assertThat(ids).doesNotHaveDuplicates().isSorted();
+        assertThat(ids.get(0)).isEqualTo("PGR-000001");
+    }
+
+    @Test
+    void testPoolRefillsBelowLowWaterMark() {
+        // given
+        enableLeasing(10, 5);
+        repository.generateId(TENANT, "service_request");
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> repository.leasedIdCount(TENANT, "service_request") == 10);
+
+        // when - drain to below the low-water mark
+        for (int i = 0; i < 6; i++) {
+            repository.generateId(TENANT, "service_request");
+        }
+
+        // then
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> repository.leasedIdCount(TENANT, "service_request") == 10);
+    }
+
+    @Test
+    void testIdsStayInOrderWhenPoolRunsDryDuringRefill() throws Exception {
+        // given - a slow IdGen and a pool small enough that callers keep outrunning the refill
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenAnswer(inv -> {
+            Thread.sleep(2);
+            return new GenerateIDResponse(String.format("PGR-%06d", sequence.incrementAndGet()));
+        });
+        enableLeasing(8, 6);
+
+        // when - each caller's IDs must come out in IdGen order, even while direct calls and the refill overlap
+        int callers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int c = 0; c < callers; c++) {
+                results.add(executor.submit(() -> {
+                    List<String> ids = new ArrayList<>();
+                    for (int i = 0; i < 50; i++) {
+                        ids.add(repository.generateId(TENANT, "service_request"));
+                    }
+                    return ids;
+                }));
+            }
+
+            // then
+            List<String> all = new ArrayList<>();
+            for (Future<List<String>> result : results) {
+                List<String> ids = result.get(30, TimeUnit.SECONDS);
+                assertThat(ids).isSorted();
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(callers * 50).doesNotHaveDuplicates();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLeasesAreKeptPerTenantAndRefilledWithThatTenant() {
+        // given - IdGen prefixes IDs with the tenant it was called for
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenAnswer(inv -> {
+            return new GenerateIDResponse(header("X-Tenant-ID") + "-" + sequence.incrementAndGet());
+        });
+        enableLeasing(5, 2);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pb.amritsar");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try {
+            // when - one request (e.g. a bulk import) generates IDs for two tenants
+            repository.generateId("pb.amritsar", "service_request");
+            repository.generateId("pb.jalandhar", "service_request");
+            await().atMost(Duration.ofSeconds(5)).until(() ->
+                    repository.leasedIdCount("pb.amritsar", "service_request") == 5
+                            && repository.leasedIdCount("pb.jalandhar", "service_request") == 5);
+
+            // then
+            for (int i = 0; i < 5; i++) {
+                assertThat(repository.generateId("pb.amritsar", "service_request")).startsWith("pb.amritsar-");
+                assertThat(repository.generateId("pb.jalandhar", "service_request")).startsWith("pb.jalandhar-");
+            }
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void testRefillSendsServiceCredentialsNotTheCallersAuthorization() {
+        // given
+        List<String> refillAuthorizations = new CopyOnWriteArrayList<>();
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenAnswer(inv -> {
+            if (Thread.currentThread().getName().startsWith("idgen-lease-refill")) {
+                refillAuthorizations.add(header("Authorization") + " " + header("X-Tenant-ID"));
+            }
+            return new GenerateIDResponse(String.format("PGR-%06d", sequence.incrementAndGet()));
+        });
+        enableLeasing(3, 2);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer user-token");
+        request.addHeader("X-Tenant-ID", TENANT);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try {
+            // when
+            repository.generateId(TENANT, "service_request");
+            await().atMost(Duration.ofSeconds(5)).until(() -> repository.leasedIdCount(TENANT, "service_request") == 3);
+
+            // then
+            assertThat(refillAuthorizations).hasSize(3).containsOnly("Bearer service-token " + TENANT);
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void testSlowTenantDoesNotHoldUpOtherTenantsRefills() throws Exception {
+        // given: IdGen hangs for pb.slow only
+        CountDownLatch release = new CountDownLatch(1);
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenAnswer(inv -> {
+            if ("pb.slow".equals(header("X-Tenant-ID")) && Thread.currentThread().getName().startsWith("idgen-lease-refill")) {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            return new GenerateIDResponse(String.format("PGR-%06d", sequence.incrementAndGet()));
+        });
+        enableLeasing(5, 2);
+
+        try {
+            // when
+            repository.generateId("pb.slow", "service_request");
+            repository.generateId(TENANT, "service_request");
+
+            // then
+            await().atMost(Duration.ofSeconds(5)).until(() -> repository.leasedIdCount(TENANT, "service_request") == 5);
+            assertThat(repository.leasedIdCount("pb.slow", "service_request")).isZero();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testFailedRefillIsNotRetriedBeforeTheBackoff() {
+        // given: every refill call fails; direct calls still work
+        AtomicInteger refillCalls = new AtomicInteger();
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenAnswer(inv -> {
+            if (Thread.currentThread().getName().startsWith("idgen-lease-refill")) {
+                refillCalls.incrementAndGet();
+                throw new IllegalStateException("idgen down");
+            }
+            return new GenerateIDResponse(String.format("PGR-%06d", sequence.incrementAndGet()));
+        });
+        enableLeasing(5, 2);
+        ReflectionTestUtils.setField(repository, "refillBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(repository, "refillBackoffMaxMs", 60_000L);
+
+        // when
+        repository.generateId(TENANT, "service_request");
+        await().atMost(Duration.ofSeconds(5)).until(() -> refillCalls.get() == 1);
+        for (int i = 0; i < 10; i++) {
+            repository.generateId(TENANT, "service_request");
+        }
+
+        // then: served directly, without a refill per call
+        await().during(Duration.ofMillis(300)).atMost(Duration.ofSeconds(1)).until(() -> refillCalls.get() == 1);
+    }
+
+    private static String header(String name) {
+        return RequestContextSnapshot.currentHeader(name);
+    }
+
+    private void enableLeasing(int blockSize, int lowWaterMark) {
+        ReflectionTestUtils.setField(repository, "leaseEnabled", true);
+        ReflectionTestUtils.setField(repository, "leaseBlockSize", blockSize);
+        ReflectionTestUtils.setField(repository, "leaseLowWaterMark", lowWaterMark);
+    }
+}
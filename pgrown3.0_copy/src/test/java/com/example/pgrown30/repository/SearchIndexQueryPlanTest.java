@@ -0,0 +1,205 @@
+package com.example.pgrown30.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Guards the search indexes: runs the Flyway migrations on a real PostgreSQL, loads enough
+ * rows for the planner to care, and checks that the search queries (same shape as
+ * CitizenServiceJdbcRepository) are planned on the intended index rather than a table scan,
+ * and that created_time bounds prune partitions. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SearchIndexQueryPlanTest {
+
+    private static final String SELECT = "SELECT service_request_id, tenant_id, service_code, application_status, "
+            + "created_time FROM citizen_service ";
+    // Every column of the list view, as CitizenServiceJdbcRepository.COLUMNS
+    private static final String LIST_VIEW = "SELECT service_request_id, tenant_id, service_code, description, account_id, "
+            + "source, application_status, file_store_id, file_valid, boundary_code, boundary_valid, action, "
+            + "workflow_instance_id, created_time, last_modified_time, email, mobile, version FROM citizen_service ";
+    private static final String ORDER_BY = " ORDER BY created_time DESC, service_request_id DESC LIMIT 51";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbcTemplate;
+    private static String currentPartition;
+    private static long cursorTime;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+
+        // 200k complaints over 20 tenants in the last ~3 minutes; 30% open, the rest closed
+        jdbcTemplate.execute("INSERT INTO citizen_service (service_request_id, tenant_id, service_code, description, "
+                + "application_status, boundary_code, email, mobile, created_time, last_modified_time) "
+                + "SELECT 'PGR-' || lpad(g::text, 7, '0'), 'pb.city' || (g % 20), 'SVC-' || (g % 50), 'Complaint ' || g, "
+                + "CASE WHEN g % 10 < 7 THEN 'COMPLETED' WHEN g % 10 < 9 THEN 'INITIATED' ELSE 'IN_PROGRESS' END, "
+                + "'BND-' || (g % 500), 'citizen' || g || '@example.com', '9' || lpad(g::text, 9, '0'), "
+                + "(extract(epoch FROM now()) * 1000)::bigint - g, (extract(epoch FROM now()) * 1000)::bigint - g "
+                + "FROM generate_series(1, 200000) AS g");
+        jdbcTemplate.execute("ANALYZE citizen_service");
+
+        currentPartition = "citizen_service_p" + LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyyMM"));
+        cursorTime = jdbcTemplate.queryForObject(
+                "SELECT created_time FROM citizen_service WHERE service_request_id = 'PGR-0100000'", Long.class);
+    }
+
+    @Test
+    void testTenantSearchUsesTenantCreatedIndex() {
+        assertPlanUses(SELECT + "WHERE tenant_id = 'pb.city3'" + ORDER_BY,
+                "idx_citizen_service_tenant_created");
+    }
+
+    @Test
+    void testNextPageSeeksToCursorInIndex() {
+        String sql = SELECT + "WHERE tenant_id = 'pb.city3' "
+                + "AND (created_time, service_request_id) < (" + cursorTime + ", 'PGR-0100000')" + ORDER_BY;
+
+        assertPlanUses(sql, "idx_citizen_service_tenant_created");
+        // The cursor is part of the index condition, not a filter applied after scanning from the top
+        assertThat(plan(sql)).containsPattern("Index Cond: .*ROW\\(created_time");
+    }
+
+    @Test
+    void testListPageFetchesOnlyItsOwnRowsFromTheHeap() {
+        // when
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN (ANALYZE, COSTS OFF, TIMING OFF, SUMMARY OFF) "
+                + LIST_VIEW + "WHERE tenant_id = 'pb.city3'" + ORDER_BY, String.class);
+
+        // then: no covering index, yet the scan stops within the page (51 rows) instead of
+        // reading the tenant's 10000 rows in this partition
+        String scan = lines.stream().filter(line -> line.contains(" on " + currentPartition + " "))
+                .collect(Collectors.joining());
+        Matcher rows = Pattern.compile("actual rows=(\\d+) ").matcher(scan);
+        assertThat(scan).contains("Index Scan using " + currentPartition);
+        assertThat(rows.find()).isTrue();
+        assertThat(Integer.parseInt(rows.group(1))).isLessThanOrEqualTo(51);
+        assertThat(lines).noneMatch(line -> line.trim().startsWith("->  Sort "));
+    }
+
+    @Test
+    void testServiceCodeSearchUsesCodeIndex() {
+        assertPlanUses(SELECT + "WHERE tenant_id = 'pb.city3' AND service_code = 'SVC-13'" + ORDER_BY,
+                "idx_citizen_service_tenant_code_created");
+    }
+
+    @Test
+    void testOpenStatusSearchUsesPartialIndex() {
+        assertPlanUses(SELECT + "WHERE tenant_id = 'pb.city3' AND application_status = 'IN_PROGRESS'" + ORDER_BY,
+                "idx_citizen_service_open_tenant_status_created");
+    }
+
+    @Test
+    void testBoundaryAndContactLookupsUseIndexes() {
+        assertPlanUses("SELECT service_request_id FROM citizen_service WHERE tenant_id = 'pb.city3' AND boundary_code = 'BND-123'",
+                "idx_citizen_service_tenant_boundary");
+        assertPlanUses("SELECT service_request_id FROM citizen_service WHERE tenant_id = 'pb.city3' AND mobile = '9000000123'",
+                "idx_citizen_service_tenant_mobile");
+        assertPlanUses("SELECT service_request_id FROM citizen_service WHERE tenant_id = 'pb.city3' AND email = 'citizen123@example.com'",
+                "idx_citizen_service_tenant_email");
+    }
+
+    @Test
+    void testCreatedTimeBoundsPrunePartitions() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+        long from = month.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        String plan = plan(SELECT + "WHERE tenant_id = 'pb.city3' "
+                + "AND created_time >= " + from + " AND created_time < " + to + ORDER_BY);
+
+        assertThat(plan).contains(currentPartition)
+                .doesNotContain("citizen_service_p_legacy")
+                .doesNotContain("citizen_service_default");
+    }
+
+    @Test
+    void testMaintenanceFunctionsCreateAndDetachPartitions() {
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT pgr_ensure_monthly_partitions('citizen_audit', ?, 6)", Integer.class, month);
+        assertThat(created).isEqualTo(3);   // the migration already created 3 months ahead
+
+        long cutoff = month.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        List<String> detached = jdbcTemplate.queryForList(
+                "SELECT pgr_detach_partitions_before('citizen_audit', ?)", String.class, cutoff);
+        assertThat(detached).containsExactly("citizen_audit_p_legacy");
+    }
+
+    @Test
+    void testMaintenanceMovesDefaultPartitionRowsIntoTheirMonth() {
+        // given: a row six months ahead, past the partitions created so far, lands in the default partition
+        LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).plusMonths(6);
+        long createdTime = month.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1;
+        jdbcTemplate.update("INSERT INTO citizen_service (service_request_id, tenant_id, service_code, "
+                + "created_time, last_modified_time) VALUES ('PGR-AHEAD', 'pb.city3', 'SVC-1', ?, ?)", createdTime, createdTime);
+        String partition = "citizen_service_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        // when
+        jdbcTemplate.queryForObject("SELECT pgr_ensure_monthly_partitions('citizen_service', ?, 6)", Integer.class,
+                LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1));
+
+        // then: the row moved, and the new partition has the parent's indexes and the unique request ID
+        assertThat(jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM citizen_service "
+                + "WHERE service_request_id = 'PGR-AHEAD'", String.class)).isEqualTo(partition);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM citizen_service_default", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT indexname FROM pg_indexes WHERE tablename = ?", String.class, partition))
+                .contains(partition + "_request_id_key")
+                .anyMatch(name -> name.contains("tenant_id_created_time"));
+    }
+
+    @Test
+    void testRequestIdIsUniqueWithinAPartition() {
+        // when / then
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO citizen_service (service_request_id, tenant_id, "
+                + "service_code, created_time, last_modified_time) VALUES ('PGR-0100000', 'pb.city3', 'SVC-1', ?, ?)",
+                cursorTime + 1, cursorTime + 1))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    // The index is declared on the partitioned table; plans name its per-partition copies
+    private void assertPlanUses(String sql, String indexName) {
+        List<String> partitionIndexes = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = ?::regclass AND c.relname LIKE ?",
+                String.class, indexName, currentPartition + "%");
+
+        assertThat(partitionIndexes).hasSize(1);
+        assertThat(plan(sql)).as("plan for %s", sql)
+                .contains(partitionIndexes.get(0))
+                .doesNotContain("Seq Scan on " + currentPartition + " ");
+    }
+
+    private String plan(String sql) {
+        List<String> lines = jdbcTemplate.queryForList("EXPLAIN " + sql, String.class);
+        return String.join("\n", lines);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.pgrown30.repository;
+
+import com.digit.services.workflow.WorkflowClient;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings({"unchecked", "rawtypes"})
+class WorkflowRepositoryTest {
+
+    private static final String TENANT = "pg.citya";
+    private static final String PROCESS_URL = "http://workflow/workflow/v1/process/PGR";
+
+    private RestTemplate restTemplate;
+    private WorkflowRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = mock(RestTemplate.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DownstreamGuard downstreamGuard = new DownstreamGuard(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(),
+                new DownstreamMetrics(meterRegistry, false, Set.of()), Tracer.NOOP);
+        repository = new WorkflowRepository(mock(WorkflowClient.class), restTemplate, downstreamGuard, Runnable::run,
+                meterRegistry, 100, 60, 10);
+        ReflectionTestUtils.setField(repository, "workflowHost", "http://workflow");
+        when(restTemplate.exchange(eq(PROCESS_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("id", "PGR", "version", "1")));
+    }
+
+    @Test
+    void testSecondLookupIsServedFromTheCache() {
+        // when
+        boolean first = repository.processExists(TENANT, "PGR");
+        boolean second = repository.processExists(TENANT, "PGR");
+
+        // then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        verifyProcessLoads(1);
+    }
+
+    @Test
+    void testCacheIsKeptPerTenant() {
+        // when
+        repository.processExists(TENANT, "PGR");
+        repository.processExists("pg.cityb", "PGR");
+
+        // then
+        verifyProcessLoads(2);
+    }
+
+    @Test
+    void testCreateProcessInvalidatesTheEntry() {
+        // given
+        repository.processExists(TENANT, "PGR");
+        when(restTemplate.exchange(eq("http://workflow/workflow/v1/process"), eq(HttpMethod.POST), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("id", "PGR")));
+
+        // when
+        repository.createProcess(TENANT, "PGR", "PGR", "Complaints", "1", 3600L);
+        repository.processExists(TENANT, "PGR");
+
+        // then
+        verifyProcessLoads(2);
+    }
+
+    @Test
+    void testUpdateProcessInvalidatesTheEntry() {
+        // given
+        repository.processExists(TENANT, "PGR");
+        when(restTemplate.exchange(eq(PROCESS_URL), eq(HttpMethod.PUT), any(HttpEntity.class), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("id", "PGR", "version", "2")));
+
+        // when
+        repository.updateProcess(TENANT, "PGR", "PGR", "Complaints", "2", 3600L);
+        repository.processExists(TENANT, "PGR");
+
+        // then
+        verifyProcessLoads(2);
+    }
+
+    @Test
+    void testDeleteProcessInvalidatesTheEntry() {
+        // given
+        repository.processExists(TENANT, "PGR");
+        when(restTemplate.exchange(eq(PROCESS_URL), eq(HttpMethod.DELETE), any(HttpEntity.class), eq(Void.class)))
+                .thenReturn(ResponseEntity.noContent().build());
+        when(restTemplate.exchange(eq(PROCESS_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        // when
+        repository.deleteProcess(TENANT, "PGR");
+        boolean exists = repository.processExists(TENANT, "PGR");
+
+        // then
+        assertThat(exists).isFalse();
+        verifyProcessLoads(2);
+    }
+
+    @Test
+    void testFailedRefreshKeepsTheStaleDefinition() {
+        // given: cached, then the workflow service starts failing
+        repository.processExists(TENANT, "PGR");
+        when(restTemplate.exchange(eq(PROCESS_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+        LoadingCache<String, Map<String, Object>> processCache =
+                (LoadingCache<String, Map<String, Object>>) ReflectionTestUtils.getField(repository, "processCache");
+
+        // when: the background reload that refreshAfterWrite starts
+        Throwable refreshFailure = catchThrowable(() -> processCache.refresh(TENANT + "|PGR").join());
+
+        // then
+        assertThat(refreshFailure).hasRootCauseInstanceOf(HttpServerErrorException.class);
+        assertThat(repository.getProcessDefinition(TENANT, "PGR")).containsEntry("version", "1");
+        assertThat(repository.processExists(TENANT, "PGR")).isTrue();
+        verifyProcessLoads(2);
+    }
+
+    private void verifyProcessLoads(int times) {
+        verify(restTemplate, times(times)).exchange(eq(PROCESS_URL), eq(HttpMethod.GET), any(HttpEntity.class), eq(Map.class));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.service.IdempotencyKeyReuseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store =
+            new IdempotencyStore(new ObjectMapper(), new SimpleMeterRegistry(), true, 60, 100, 5000);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testReplayReturnsFirstResponseWithoutRunningAgain() {
+        // when
+        IdempotencyStore.Outcome<String> first = store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+        IdempotencyStore.Outcome<String> retry = store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+
+        // then
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.response()).isEqualTo(first.response());
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testKeysAreScopedAndOptional() {
+        store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+        store.execute("update|pg", "key-1", Map.of("a", 1), this::call);
+        store.execute("create|pg", null, Map.of("a", 1), this::call);
+        store.execute("create|pg", null, Map.of("a", 1), this::call);
+
+        assertThat(calls.get()).isEqualTo(4);
+    }
+
+    @Test
+    void testFailureIsNotRemembered() {
+        // given
+        assertThatThrownBy(() -> store.execute("create|pg", "key-1", Map.of("a", 1), () -> {
+            throw new RuntimeException("IdGen down");
+        })).hasMessage("IdGen down");
+
+        // when
+        IdempotencyStore.Outcome<String> retry = store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+
+        // then
+        assertThat(retry.replayed()).isFalse();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testErrorReleasesTheKey() {
+        // given
+        assertThatThrownBy(() -> store.execute("create|pg", "key-1", Map.of("a", 1), () -> {
+            throw new StackOverflowError("mapper recursion");
+        })).isInstanceOf(StackOverflowError.class);
+
+        // when
+        IdempotencyStore.Outcome<String> retry = store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+
+        // then: runs again rather than waiting on the failed attempt
+        assertThat(retry.replayed()).isFalse();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testSameKeyWithDifferentBodyIsRejected() {
+        store.execute("create|pg", "key-1", Map.of("a", 1), this::call);
+
+        assertThatThrownBy(() -> store.execute("create|pg", "key-1", Map.of("a", 2), this::call))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+    }
+
+    @Test
+    void testDuplicateWaitsForRequestInFlight() throws Exception {
+        // given: the first request is still running
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Outcome<String>> first = CompletableFuture.supplyAsync(() ->
+                store.execute("create|pg", "key-1", Map.of("a", 1), () -> {
+                    running.countDown();
+                    await(release);
+                    return call();
+                }));
+        running.await(5, TimeUnit.SECONDS);
+
+        // when
+        CompletableFuture<IdempotencyStore.Outcome<String>> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("create|pg", "key-1", Map.of("a", 1), this::call));
+        release.countDown();
+
+        // then
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).response()).isEqualTo(first.get(5, TimeUnit.SECONDS).response());
+        assertThat(duplicate.get().replayed()).isTrue();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    private String call() {
+        return "response-" + calls.incrementAndGet();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
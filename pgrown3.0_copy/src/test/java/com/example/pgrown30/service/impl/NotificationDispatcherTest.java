@@ -0,0 +1,203 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.config.ServiceCredentials;
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.domain.OutboxStatus;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import com.example.pgrown30.repository.NotificationRepository;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    private NotificationOutboxRepository outboxRepository;
+    private NotificationRepository notificationRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        outboxRepository = mock(NotificationOutboxRepository.class);
+        notificationRepository = mock(NotificationRepository.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        when(outboxRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        when(outboxRepository.completeClaim(any(), any(), anyInt(), any(), anyInt(), any(), anyLong())).thenReturn(1);
+        when(outboxRepository.releaseClaim(any(), any(), anyInt(), anyInt(), any(), anyLong(), anyLong())).thenReturn(1);
+        meterRegistry = new SimpleMeterRegistry();
+
+        dispatcher = new NotificationDispatcher(outboxRepository, notificationRepository,
+                transactionTemplate, Runnable::run, meterRegistry, new ServiceCredentials("service-token"));
+        ReflectionTestUtils.setField(dispatcher, "enabled", true);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 10);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffInitialMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMs", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "claimTimeoutMs", 60000L);
+    }
+
+    @Test
+    void testDispatchBatchMarksSentEntries() {
+        // given
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 0);
+        NotificationOutboxEntity sms = entry(NotificationOutboxEntity.CHANNEL_SMS, 0);
+        when(outboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), anyLong(), any()))
+                .thenReturn(List.of(email, sms));
+
+        // when
+        int dispatched = dispatcher.dispatchBatch();
+
+        // then
+        assertThat(dispatched).isEqualTo(2);
+        assertThat(email.getStatus()).isEqualTo(OutboxStatus.SENT);
+        assertThat(sms.getStatus()).isEqualTo(OutboxStatus.SENT);
+        verify(notificationRepository).sendEmail(eq("service-request-received-new"), eq(List.of("citizen@example.com")), any(), any());
+        verify(notificationRepository).sendSms(eq("service-request-received-new"), eq(List.of("citizen@example.com")), any(), any());
+        assertThat(meterRegistry.counter("pgr.notification.outbox.dispatched",
+                "channel", "EMAIL", "outcome", "sent").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFailedSendIsRescheduledWithBackoff() {
+        // given
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 0);
+        doThrow(new RuntimeException("notification service down"))
+                .when(notificationRepository).sendEmail(any(), any(), any(), any());
+        long before = Instant.now().toEpochMilli();
+
+        // when
+        dispatcher.dispatch(email);
+
+        // then
+        assertThat(email.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(email.getAttempts()).isEqualTo(1);
+        assertThat(email.getLastError()).isEqualTo("notification service down");
+        assertThat(email.getNextAttemptTime()).isGreaterThanOrEqualTo(before + 800);
+        verify(outboxRepository).releaseClaim(eq(email.getId()), eq(email.getClaimToken()), eq(0), eq(1),
+                eq("notification service down"), eq(email.getNextAttemptTime()), anyLong());
+    }
+
+    @Test
+    void testEntryIsDeadLetteredAfterMaxAttempts() {
+        // given
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 2);
+        doThrow(new RuntimeException("rejected"))
+                .when(notificationRepository).sendEmail(any(), any(), any(), any());
+
+        // when
+        dispatcher.dispatch(email);
+
+        // then
+        assertThat(email.getStatus()).isEqualTo(OutboxStatus.DEAD);
+        assertThat(email.getAttempts()).isEqualTo(3);
+        verify(outboxRepository).completeClaim(eq(email.getId()), eq(email.getClaimToken()), eq(2),
+                eq(OutboxStatus.DEAD), eq(3), eq("rejected"), anyLong());
+        assertThat(meterRegistry.counter("pgr.notification.outbox.dispatched",
+                "channel", "EMAIL", "outcome", "dead").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testDispatchBatchClaimsEntriesAndCompletesOnlyItsOwnClaim() {
+        // given
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 0);
+        when(outboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), anyLong(), any())).thenReturn(List.of(email));
+
+        // when
+        dispatcher.dispatchBatch();
+
+        // then
+        assertThat(email.getClaimToken()).isNotNull();
+        verify(outboxRepository).completeClaim(eq(email.getId()), eq(email.getClaimToken()), eq(0),
+                eq(OutboxStatus.SENT), eq(1), isNull(), anyLong());
+    }
+
+    @Test
+    void testOutcomeIsNotRecordedOnceAnotherDispatcherTookTheEntryOver() {
+        // given: the claim timed out during the send and the entry was claimed again
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 0);
+        email.setClaimToken(UUID.randomUUID());
+        when(outboxRepository.completeClaim(any(), any(), anyInt(), any(), anyInt(), any(), anyLong())).thenReturn(0);
+
+        // when
+        dispatcher.dispatch(email);
+
+        // then
+        assertThat(meterRegistry.counter("pgr.notification.outbox.dispatched",
+                "channel", "EMAIL", "outcome", "claim_lost").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("pgr.notification.outbox.dispatched",
+                "channel", "EMAIL", "outcome", "sent").count()).isZero();
+    }
+
+    @Test
+    void testSendUsesServiceCredentialsNotAStoredAuthorization() {
+        // given: an entry written before Authorization stopped being stored
+        NotificationOutboxEntity email = entry(NotificationOutboxEntity.CHANNEL_EMAIL, 0);
+        email.setHeaders(Map.of("X-Tenant-ID", "pb.amritsar", "X-Correlation-ID", "corr-1",
+                "authorization", "Bearer user-token"));
+        when(outboxRepository.findDueForUpdate(eq(OutboxStatus.PENDING), anyLong(), any())).thenReturn(List.of(email));
+        AtomicReference<Map<String, String>> sentWith = new AtomicReference<>();
+        doAnswer(inv -> {
+            sentWith.set(RequestContextSnapshot.currentHeaders());
+            return null;
+        }).when(notificationRepository).sendEmail(any(), any(), any(), any());
+
+        // when
+        dispatcher.dispatchBatch();
+
+        // then
+        assertThat(sentWith.get())
+                .containsEntry("Authorization", "Bearer service-token")
+                .containsEntry("X-Tenant-ID", "pb.amritsar")
+                .containsEntry("X-Correlation-ID", "corr-1")
+                .hasSize(3);
+    }
+
+    @Test
+    void testBackoffGrowsExponentiallyUpToCap() {
+        assertThat(dispatcher.backoffDelayMs(1)).isBetween(800L, 1000L);
+        assertThat(dispatcher.backoffDelayMs(3)).isBetween(3200L, 4000L);
+        assertThat(dispatcher.backoffDelayMs(30)).isBetween(48000L, 60000L);
+    }
+
+    private NotificationOutboxEntity entry(String channel, int attempts) {
+        return NotificationOutboxEntity.builder()
+                .serviceRequestId("PGR-000001")
+                .tenantId("pb.amritsar")
+                .channel(channel)
+                .templateId("service-request-received-new")
+                .recipients(List.of("citizen@example.com"))
+                .id(UUID.randomUUID())
+                .payload(Map.of("applicationNo", "PGR-000001"))
+                .headers(Map.of("X-Tenant-ID", "pb.amritsar"))
+                .status(OutboxStatus.PENDING)
+                .attempts(attempts)
+                .nextAttemptTime(0L)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.NotificationOutboxEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class NotificationOutboxWriterTest {
+
+    private final NotificationOutboxWriter writer = new NotificationOutboxWriter(mock(NotificationOutboxRepository.class));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testEntriesKeepTenantAndCorrelationHeadersButNoAuthorization() {
+        // given
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer user-token");
+        request.addHeader("X-Tenant-ID", "pg.citya");
+        request.addHeader("X-Correlation-ID", "corr-1");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        // when
+        List<NotificationOutboxEntity> entries = writer.buildEntries(CitizenServiceEntity.builder()
+                .serviceRequestId("PGR-1")
+                .tenantId("pg.citya")
+                .email("citizen@example.com")
+                .mobile("9999999999")
+                .applicationStatus(Status.INITIATED)
+                .build());
+
+        // then
+        assertThat(entries).hasSize(2).allSatisfy(entry -> assertThat(entry.getHeaders())
+                .containsOnlyKeys("X-Tenant-ID", "X-Correlation-ID")
+                .containsEntry("X-Tenant-ID", "pg.citya"));
+    }
+}
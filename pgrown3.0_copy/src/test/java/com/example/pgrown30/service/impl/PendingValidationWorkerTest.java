@@ -0,0 +1,181 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.BoundaryRepository;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.repository.FileStoreRepository;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PendingValidationWorkerTest {
+
+    private static final String TENANT = "pg.citya";
+
+    private CitizenServiceRepository citizenServiceRepository;
+    private BoundaryRepository boundaryRepository;
+    private FileStoreRepository fileStoreRepository;
+    private NotificationOutboxWriter notificationOutboxWriter;
+    private SimpleMeterRegistry meterRegistry;
+    private PendingValidationWorker worker;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        citizenServiceRepository = mock(CitizenServiceRepository.class);
+        boundaryRepository = mock(BoundaryRepository.class);
+        fileStoreRepository = mock(FileStoreRepository.class);
+        notificationOutboxWriter = mock(NotificationOutboxWriter.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        when(citizenServiceRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        meterRegistry = new SimpleMeterRegistry();
+
+        worker = new PendingValidationWorker(citizenServiceRepository, boundaryRepository, fileStoreRepository,
+                notificationOutboxWriter, transactionTemplate, Runnable::run, meterRegistry);
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "maxAgeHours", 72L);
+    }
+
+    @Test
+    void testValidAnswerIsSavedAndNotified() {
+        // given
+        CitizenServiceEntity service = pending("PGR-1", "WARD1", null);
+        AtomicReference<String> tenantHeader = new AtomicReference<>();
+        when(boundaryRepository.checkBoundary(TENANT, "WARD1")).thenAnswer(inv -> {
+            tenantHeader.set(RequestContextSnapshot.currentHeader("X-Tenant-ID"));
+            return true;
+        });
+
+        // when
+        int resolved = worker.revalidateBatch();
+
+        // then
+        assertThat(resolved).isEqualTo(1);
+        assertThat(service.getBoundaryValid()).isTrue();
+        assertThat(tenantHeader).hasValue(TENANT);
+        verify(citizenServiceRepository).save(service);
+        verify(notificationOutboxWriter).enqueue(service);
+        assertThat(revalidated("valid")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testInvalidAnswerIsSavedWithoutNotifications() {
+        // given
+        CitizenServiceEntity service = pending("PGR-2", "WARD1", "file-1");
+        service.setBoundaryValid(true);
+        when(fileStoreRepository.checkFile(TENANT, "file-1")).thenReturn(false);
+
+        // when
+        int resolved = worker.revalidateBatch();
+
+        // then
+        assertThat(resolved).isEqualTo(1);
+        assertThat(service.getFileValid()).isFalse();
+        verify(citizenServiceRepository).save(service);
+        verify(notificationOutboxWriter, never()).enqueue(any());
+        assertThat(revalidated("invalid")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testStillUnavailableDownstreamLeavesRequestPending() {
+        // given: the boundary service is still down
+        CitizenServiceEntity service = pending("PGR-3", "WARD1", null);
+        when(boundaryRepository.checkBoundary(TENANT, "WARD1")).thenReturn(null);
+
+        // when
+        int resolved = worker.revalidateBatch();
+
+        // then
+        assertThat(resolved).isZero();
+        assertThat(service.getBoundaryValid()).isNull();
+        verify(citizenServiceRepository, never()).save(any());
+        verify(notificationOutboxWriter, never()).enqueue(any());
+        assertThat(revalidated("pending")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testOneAnswerIsSavedWhileTheOtherIsStillPending() {
+        // given: the boundary answers, the filestore doesn't
+        CitizenServiceEntity service = pending("PGR-4", "WARD1", "file-1");
+        when(boundaryRepository.checkBoundary(TENANT, "WARD1")).thenReturn(true);
+        when(fileStoreRepository.checkFile(TENANT, "file-1")).thenReturn(null);
+
+        // when
+        int resolved = worker.revalidateBatch();
+
+        // then: kept for the next run, nothing queued yet
+        assertThat(resolved).isZero();
+        verify(citizenServiceRepository).save(service);
+        verify(notificationOutboxWriter, never()).enqueue(any());
+        assertThat(PendingValidationWorker.isPending(service)).isTrue();
+        assertThat(revalidated("pending")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testConcurrentUpdateLeavesRequestForTheNextRun() {
+        // given
+        CitizenServiceEntity service = pending("PGR-5", "WARD1", null);
+        when(boundaryRepository.checkBoundary(TENANT, "WARD1")).thenReturn(true);
+        when(citizenServiceRepository.save(service))
+                .thenThrow(new ObjectOptimisticLockingFailureException(CitizenServiceEntity.class, "PGR-5"));
+
+        // when
+        int resolved = worker.revalidateBatch();
+
+        // then
+        assertThat(resolved).isZero();
+        verify(notificationOutboxWriter, never()).enqueue(any());
+    }
+
+    @Test
+    void testSubmitChecksOnTheValidationPool() {
+        // given
+        CitizenServiceEntity service = CitizenServiceEntity.builder()
+                .serviceRequestId("PGR-6").tenantId(TENANT).boundaryCode("WARD1").build();
+        when(boundaryRepository.checkBoundary(TENANT, "WARD1")).thenReturn(true);
+
+        // when
+        worker.submit(service);
+
+        // then
+        verify(citizenServiceRepository).save(service);
+        verify(notificationOutboxWriter).enqueue(service);
+    }
+
+    private CitizenServiceEntity pending(String id, String boundaryCode, String fileStoreId) {
+        CitizenServiceEntity service = CitizenServiceEntity.builder()
+                .serviceRequestId(id)
+                .tenantId(TENANT)
+                .serviceCode("PGR001")
+                .boundaryCode(boundaryCode)
+                .fileStoreId(fileStoreId)
+                .applicationStatus(Status.INITIATED)
+                .createdTime(System.currentTimeMillis())
+                .build();
+        when(citizenServiceRepository.findPendingValidation(anyLong(), any())).thenReturn(List.of(service));
+        return service;
+    }
+
+    private double revalidated(String outcome) {
+        return meterRegistry.counter("pgr.validation.revalidated", "outcome", outcome).count();
+    }
+}
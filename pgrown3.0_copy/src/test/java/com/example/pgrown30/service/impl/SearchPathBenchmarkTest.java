@@ -0,0 +1,114 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.config.PgrConfig;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.Pagination;
+import com.example.pgrown30.web.models.ServiceResponse;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the projected (JDBC -> DTO) search path with the JPA entity path on the same data:
+ * both must page through the same requests in the same order, and the timings are logged.
+ * Not part of the normal build: run with
+ * {@code mvn test -Dtest=SearchPathBenchmarkTest -Dpgr.benchmark=true}.
+ */
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "pgr.benchmark", matches = "true")
+class SearchPathBenchmarkTest {
+
+    private static final String TENANT = "bench.city";
+    private static final int ROWS = 20_000;
+    private static final int PAGE_SIZE = 500;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private PgrConfig pgrConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM citizen_service WHERE tenant_id = ?", TENANT);
+
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{String.format("PGR-%06d", i), TENANT, "SVC-" + (i % 10),
+                    "Complaint " + i, "acc-" + i, "Citizen", "INITIATED", "BND-" + (i % 100),
+                    true, "citizen" + i + "@example.com", "9" + String.format("%09d", i), now - i * 1000L, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO citizen_service (service_request_id, tenant_id, service_code, "
+                + "description, account_id, source, application_status, boundary_code, boundary_valid, email, "
+                + "mobile, created_time, last_modified_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void compareSearchPaths() {
+        // given
+        List<String> entityIds = scanAll(false);
+        List<String> projectedIds = scanAll(true);
+
+        // then - same rows in the same order, whichever path built the page
+        assertThat(entityIds).hasSize(ROWS).doesNotHaveDuplicates();
+        assertThat(projectedIds).isEqualTo(entityIds);
+
+        // when
+        double entityMs = measure(false);
+        double projectedMs = measure(true);
+
+        log.info("Search benchmark: {} rows, page size {}, {} rounds", ROWS, PAGE_SIZE, MEASURED_ROUNDS);
+        log.info("  entity path    : {} ms per full scan", String.format("%8.2f", entityMs));
+        log.info("  projected path : {} ms per full scan ({}x)", String.format("%8.2f", projectedMs),
+                String.format("%.1f", entityMs / projectedMs));
+    }
+
+    // Average time to page through the whole tenant once
+    private double measure(boolean projection) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            scanAll(projection);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            scanAll(projection);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+
+    private List<String> scanAll(boolean projection) {
+        ReflectionTestUtils.setField(pgrConfig, "searchProjectionEnabled", projection);
+        List<String> ids = new ArrayList<>(ROWS);
+        String cursor = null;
+        do {
+            ServiceWrapper request = ServiceWrapper.builder()
+                    .service(CitizenService.builder().tenantId(TENANT).build())
+                    .pagination(Pagination.builder().limit(PAGE_SIZE).cursor(cursor).build())
+                    .build();
+            ServiceResponse page = serviceService.searchServices(request);
+            page.getServices().forEach(service -> ids.add(service.getServiceRequestId()));
+            cursor = page.getPagination().getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
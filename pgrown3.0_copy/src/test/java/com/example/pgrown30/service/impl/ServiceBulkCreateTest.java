@@ -0,0 +1,200 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.repository.CitizenServiceJdbcRepository;
+import com.example.pgrown30.repository.IdGenRepository;
+import com.example.pgrown30.repository.WorkflowRepository;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.BulkCreateResponse;
+import com.example.pgrown30.web.models.BulkCreateResult;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bulk create with chunks of two: every item gets its own outcome, workflows start only for
+ * complaints that were stored, and duplicate IDs fail only their own item. The database writes
+ * are PostgreSQL statements, so the JDBC repository is mocked here.
+ */
+@SpringBootTest(properties = {"pgr.bulk.chunk-size=2", "pgr.notification.outbox.enabled=false"})
+@ActiveProfiles("test")
+class ServiceBulkCreateTest {
+
+    private static final String TENANT = "pg.citya";
+
+    @MockitoBean
+    private CitizenServiceJdbcRepository citizenServiceJdbcRepository;
+
+    @MockitoBean
+    private IdGenRepository idGenRepository;
+
+    @MockitoBean
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    private final AtomicInteger ids = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(idGenRepository.generateId(eq(TENANT), anyString()))
+                .thenAnswer(inv -> "PGR-NEW-" + ids.incrementAndGet());
+        when(workflowRepository.transition(eq(TENANT), anyString(), anyString(), anyString(), eq("APPLY"), anyString(), anyMap()))
+                .thenAnswer(inv -> Map.of("id", "wf-" + inv.getArgument(3), "currentState", "INITIATED"));
+        when(citizenServiceJdbcRepository.existingIds(anyCollection())).thenReturn(Set.of());
+        when(citizenServiceJdbcRepository.insertNew(anyList())).thenAnswer(inv -> idsOf(inv.getArgument(0)));
+    }
+
+    @Test
+    void testMixedChunksReportEveryItem() {
+        // given
+        long yesterday = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+        List<ServiceWrapper> items = List.of(
+                newComplaint(),
+                wrap(CitizenService.builder().serviceCode("PGR001").build()),
+                imported("LEGACY-1", yesterday),
+                imported("LEGACY-2", System.currentTimeMillis() + Duration.ofDays(30).toMillis()),
+                newComplaint());
+
+        // when
+        BulkCreateResponse response = serviceService.bulkCreate(items.iterator());
+
+        // then
+        assertThat(response.getCreated()).isEqualTo(3);
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getResults()).extracting(BulkCreateResult::getIndex).containsExactly(0, 1, 2, 3, 4);
+        assertThat(response.getResults()).extracting(BulkCreateResult::getOutcome).containsExactly(
+                BulkCreateResult.Outcome.CREATED, BulkCreateResult.Outcome.FAILED, BulkCreateResult.Outcome.CREATED,
+                BulkCreateResult.Outcome.FAILED, BulkCreateResult.Outcome.CREATED);
+        assertThat(response.getResults().get(1).getError()).isEqualTo("tenantId is required");
+        assertThat(response.getResults().get(3).getError()).startsWith("createdTime must be");
+        verify(citizenServiceJdbcRepository, times(3)).insertNew(anyList());
+    }
+
+    @Test
+    void testWorkflowFailureDeletesOnlyThatComplaint() {
+        // given: the workflow refuses the second complaint
+        when(workflowRepository.transition(eq(TENANT), anyString(), anyString(), eq("PGR-NEW-2"), eq("APPLY"), anyString(), anyMap()))
+                .thenThrow(new IllegalStateException("workflow down"));
+
+        // when
+        BulkCreateResponse response = serviceService.bulkCreate(List.of(newComplaint(), newComplaint()).iterator());
+
+        // then: both were stored first, the failed one is removed again and the other keeps its workflow
+        assertThat(resultFor(response, "PGR-NEW-1").getOutcome()).isEqualTo(BulkCreateResult.Outcome.CREATED);
+        assertThat(resultFor(response, "PGR-NEW-2").getOutcome()).isEqualTo(BulkCreateResult.Outcome.FAILED);
+        assertThat(resultFor(response, "PGR-NEW-2").getError()).isEqualTo("Workflow failed: workflow down");
+
+        ArgumentCaptor<List<CitizenServiceEntity>> updated = listCaptor();
+        ArgumentCaptor<List<CitizenServiceEntity>> deleted = listCaptor();
+        verify(citizenServiceJdbcRepository).updateWorkflow(updated.capture());
+        verify(citizenServiceJdbcRepository).delete(deleted.capture());
+        assertThat(updated.getValue()).extracting(CitizenServiceEntity::getWorkflowInstanceId).containsExactly("wf-PGR-NEW-1");
+        assertThat(deleted.getValue()).extracting(CitizenServiceEntity::getServiceRequestId).containsExactly("PGR-NEW-2");
+    }
+
+    @Test
+    void testNoWorkflowStartsForAComplaintThatWasNotInserted() {
+        // given: a concurrent request stored PGR-NEW-1 between the check and the insert
+        when(citizenServiceJdbcRepository.insertNew(anyList())).thenAnswer(inv -> {
+            Set<String> inserted = idsOf(inv.getArgument(0));
+            inserted.remove("PGR-NEW-1");
+            return inserted;
+        });
+
+        // when
+        BulkCreateResponse response = serviceService.bulkCreate(List.of(newComplaint(), newComplaint()).iterator());
+
+        // then
+        assertThat(resultFor(response, "PGR-NEW-1").getOutcome()).isEqualTo(BulkCreateResult.Outcome.FAILED);
+        assertThat(resultFor(response, "PGR-NEW-1").getError()).isEqualTo("Duplicate serviceRequestId: PGR-NEW-1");
+        assertThat(resultFor(response, "PGR-NEW-2").getOutcome()).isEqualTo(BulkCreateResult.Outcome.CREATED);
+        verify(workflowRepository, never()).transition(anyString(), anyString(), anyString(), eq("PGR-NEW-1"),
+                anyString(), anyString(), anyMap());
+        verify(workflowRepository).transition(eq(TENANT), anyString(), anyString(), eq("PGR-NEW-2"),
+                eq("APPLY"), anyString(), anyMap());
+    }
+
+    @Test
+    void testDuplicateImportedIdsFailOnlyTheirItems() {
+        // given: LEGACY-1 twice in one chunk, LEGACY-2 stored in an earlier month
+        long yesterday = System.currentTimeMillis() - Duration.ofDays(1).toMillis();
+        when(citizenServiceJdbcRepository.existingIds(anyCollection())).thenAnswer(inv ->
+                inv.<Set<String>>getArgument(0).contains("LEGACY-2") ? Set.of("LEGACY-2") : Set.of());
+
+        // when
+        BulkCreateResponse response = serviceService.bulkCreate(List.of(
+                imported("LEGACY-1", yesterday), imported("LEGACY-1", yesterday),
+                imported("LEGACY-2", yesterday), imported("LEGACY-3", yesterday)).iterator());
+
+        // then
+        assertThat(response.getResults()).extracting(BulkCreateResult::getOutcome).containsExactly(
+                BulkCreateResult.Outcome.CREATED, BulkCreateResult.Outcome.FAILED,
+                BulkCreateResult.Outcome.FAILED, BulkCreateResult.Outcome.CREATED);
+        assertThat(response.getResults().get(1).getError()).isEqualTo("Duplicate serviceRequestId: LEGACY-1");
+        assertThat(response.getResults().get(2).getError()).isEqualTo("Duplicate serviceRequestId: LEGACY-2");
+
+        ArgumentCaptor<List<CitizenServiceEntity>> inserted = listCaptor();
+        verify(citizenServiceJdbcRepository, atLeastOnce()).insertNew(inserted.capture());
+        assertThat(inserted.getAllValues().stream().flatMap(List::stream).map(CitizenServiceEntity::getServiceRequestId))
+                .containsExactly("LEGACY-1", "LEGACY-3");
+        verify(workflowRepository, never()).transition(anyString(), anyString(), anyString(), anyString(),
+                anyString(), anyString(), anyMap());
+    }
+
+    // IDs are assigned concurrently, so which item gets which ID is not fixed
+    private static BulkCreateResult resultFor(BulkCreateResponse response, String serviceRequestId) {
+        return response.getResults().stream()
+                .filter(result -> serviceRequestId.equals(result.getServiceRequestId()))
+                .findFirst().orElseThrow();
+    }
+
+    private static ServiceWrapper newComplaint() {
+        return wrap(CitizenService.builder().tenantId(TENANT).serviceCode("PGR001").description("Streetlight").build());
+    }
+
+    private static ServiceWrapper imported(String id, long createdTime) {
+        return wrap(CitizenService.builder().serviceRequestId(id).tenantId(TENANT).serviceCode("PGR001")
+                .applicationStatus("COMPLETED").createdTime(createdTime).build());
+    }
+
+    private static ServiceWrapper wrap(CitizenService service) {
+        return ServiceWrapper.builder().service(service).build();
+    }
+
+    private static Set<String> idsOf(List<CitizenServiceEntity> services) {
+        return services.stream().map(CitizenServiceEntity::getServiceRequestId).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<CitizenServiceEntity>> listCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
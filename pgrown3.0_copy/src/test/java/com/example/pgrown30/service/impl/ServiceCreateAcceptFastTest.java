@@ -0,0 +1,108 @@
+package com.example.pgrown30.service.impl;
+
+import com.digit.services.boundary.BoundaryClient;
+import com.digit.services.boundary.model.Boundary;
+import com.digit.services.idgen.IdGenClient;
+import com.digit.services.idgen.model.GenerateIDResponse;
+import com.digit.services.idgen.model.IdGenGenerateRequest;
+import com.digit.services.workflow.WorkflowClient;
+import com.digit.services.workflow.model.WorkflowTransitionRequest;
+import com.digit.services.workflow.model.WorkflowTransitionResponse;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.repository.NotificationOutboxRepository;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Create with pgr.create.accept-fast: the request is saved and answered before the boundary
+ * service replies, and the boundary check and notifications follow in the background.
+ */
+@SpringBootTest(properties = {"pgr.create.accept-fast=true", "pgr.notification.outbox.enabled=false"})
+@ActiveProfiles("test")
+class ServiceCreateAcceptFastTest {
+
+    @MockitoBean
+    private BoundaryClient boundaryClient;
+
+    @MockitoBean
+    private IdGenClient idGenClient;
+
+    @MockitoBean
+    private WorkflowClient workflowClient;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @Autowired
+    private NotificationOutboxRepository notificationOutboxRepository;
+
+    // Holds the boundary search until the create has returned
+    private final CountDownLatch boundaryReply = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        notificationOutboxRepository.deleteAll();
+        citizenServiceRepository.deleteAll();
+
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenReturn(new GenerateIDResponse("PGR-FAST-1"));
+        WorkflowTransitionResponse transition = mock(WorkflowTransitionResponse.class);
+        when(transition.getId()).thenReturn("wf-1");
+        when(transition.getCurrentState()).thenReturn("INITIATED");
+        when(workflowClient.executeTransition(any(WorkflowTransitionRequest.class))).thenReturn(transition);
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenAnswer(inv -> {
+            boundaryReply.await(10, TimeUnit.SECONDS);
+            return List.of(Boundary.builder().code("WARD1").build());
+        });
+    }
+
+    @Test
+    void testCreateAnswersBeforeBoundaryCheckAndNotifiesOnceValid() {
+        // when
+        CitizenService created = serviceService.createService(ServiceWrapper.builder()
+                .service(CitizenService.builder()
+                        .tenantId("pg.citya")
+                        .serviceCode("PGR001")
+                        .description("Streetlight not working")
+                        .boundaryCode("WARD1")
+                        .email("citizen@example.com")
+                        .build())
+                .build()).getServices().get(0);
+
+        // then: saved as pending, nothing queued yet
+        assertThat(created.getServiceRequestId()).isEqualTo("PGR-FAST-1");
+        assertThat(created.getBoundaryValid()).isNull();
+        assertThat(citizenServiceRepository.findByServiceRequestId("PGR-FAST-1")).isPresent();
+        assertThat(notificationOutboxRepository.count()).isZero();
+
+        // when the boundary service answers
+        boundaryReply.countDown();
+
+        // then
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(citizenServiceRepository.findByServiceRequestId("PGR-FAST-1").orElseThrow().getBoundaryValid()).isTrue();
+            assertThat(notificationOutboxRepository.count()).isEqualTo(1);
+        });
+    }
+}
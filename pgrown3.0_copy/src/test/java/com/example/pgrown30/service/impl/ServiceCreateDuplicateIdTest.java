@@ -0,0 +1,115 @@
+package com.example.pgrown30.service.impl;
+
+import com.digit.services.idgen.IdGenClient;
+import com.digit.services.idgen.model.GenerateIDResponse;
+import com.digit.services.idgen.model.IdGenGenerateRequest;
+import com.digit.services.workflow.WorkflowClient;
+import com.digit.services.workflow.model.WorkflowTransitionRequest;
+import com.digit.services.workflow.model.WorkflowTransitionResponse;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.service.ServiceConflictException;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A create whose ID is already stored is a conflict, whether the lookup before the insert sees
+ * the earlier request or the insert itself runs into it.
+ */
+@SpringBootTest(properties = {"pgr.notification.outbox.enabled=false", "pgr.revalidation.enabled=false"})
+@ActiveProfiles("test")
+class ServiceCreateDuplicateIdTest {
+
+    private static final String ID = "PGR-DUP-1";
+
+    @MockitoBean
+    private IdGenClient idGenClient;
+
+    @MockitoBean
+    private WorkflowClient workflowClient;
+
+    @MockitoSpyBean
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenReturn(new GenerateIDResponse(ID));
+        WorkflowTransitionResponse transition = mock(WorkflowTransitionResponse.class);
+        when(transition.getId()).thenReturn("wf-1");
+        when(transition.getCurrentState()).thenReturn("INITIATED");
+        when(workflowClient.executeTransition(any(WorkflowTransitionRequest.class))).thenReturn(transition);
+    }
+
+    @Test
+    void testIdStoredInAnEarlierMonthIsAConflict() {
+        // given
+        saveStored(1_600_000_000_000L);
+
+        // when / then
+        assertThatThrownBy(this::create).isInstanceOf(ServiceConflictException.class);
+        assertThat(citizenServiceRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void testIdInsertedAfterTheLookupIsAConflict() {
+        // given: the ID is stored in this month's partition (here, under a unique index like the
+        // one each partition has), but only committed after the lookup ran
+        jdbcTemplate.execute("CREATE UNIQUE INDEX test_citizen_service_request_id ON citizen_service (service_request_id)");
+        try {
+            saveStored(System.currentTimeMillis());
+            doReturn(false).when(citizenServiceRepository).existsByServiceRequestId(ID);
+
+            // when / then: the insert is what rejects it
+            assertThatThrownBy(this::create).isInstanceOf(ServiceConflictException.class);
+            assertThat(citizenServiceRepository.count()).isEqualTo(1);
+        } finally {
+            jdbcTemplate.execute("DROP INDEX test_citizen_service_request_id");
+        }
+    }
+
+    private void saveStored(long createdTime) {
+        citizenServiceRepository.save(CitizenServiceEntity.builder()
+                .serviceRequestId(ID)
+                .tenantId("pg.citya")
+                .serviceCode("PGR001")
+                .applicationStatus(Status.INITIATED)
+                .createdTime(createdTime)
+                .lastModifiedTime(createdTime)
+                .build());
+    }
+
+    private void create() {
+        serviceService.createService(ServiceWrapper.builder()
+                .service(CitizenService.builder()
+                        .tenantId("pg.citya")
+                        .serviceCode("PGR001")
+                        .description("Streetlight not working")
+                        .build())
+                .build());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.pgrown30.service.impl;
+
+import com.digit.services.boundary.BoundaryClient;
+import com.digit.services.boundary.model.Boundary;
+import com.digit.services.idgen.IdGenClient;
+import com.digit.services.idgen.model.GenerateIDResponse;
+import com.digit.services.idgen.model.IdGenGenerateRequest;
+import com.digit.services.workflow.WorkflowClient;
+import com.digit.services.workflow.model.WorkflowTransitionRequest;
+import com.digit.services.workflow.model.WorkflowTransitionResponse;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A boundary check that misses the create stage deadline after the workflow instance was started
+ * leaves the request pending instead of failing the create.
+ */
+@SpringBootTest(properties = {"pgr.create.stage-timeout-ms=500", "pgr.notification.outbox.enabled=false",
+        "pgr.revalidation.enabled=false"})
+@ActiveProfiles("test")
+class ServiceCreateStageTimeoutTest {
+
+    @MockitoBean
+    private BoundaryClient boundaryClient;
+
+    @MockitoBean
+    private IdGenClient idGenClient;
+
+    @MockitoBean
+    private WorkflowClient workflowClient;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    // Holds the boundary search past the stage deadline
+    private final CountDownLatch boundaryReply = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenReturn(new GenerateIDResponse("PGR-SLOW-1"));
+        WorkflowTransitionResponse transition = mock(WorkflowTransitionResponse.class);
+        when(transition.getId()).thenReturn("wf-1");
+        when(transition.getCurrentState()).thenReturn("INITIATED");
+        when(workflowClient.executeTransition(any(WorkflowTransitionRequest.class))).thenReturn(transition);
+        when(boundaryClient.searchBoundariesByCodes(anyList())).thenAnswer(inv -> {
+            boundaryReply.await(10, TimeUnit.SECONDS);
+            return List.of(Boundary.builder().code("WARD1").build());
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        boundaryReply.countDown();
+    }
+
+    @Test
+    void testLateBoundaryCheckIsPendingOnceTheWorkflowStarted() {
+        // when
+        CitizenService created = serviceService.createService(ServiceWrapper.builder()
+                .service(CitizenService.builder()
+                        .tenantId("pg.citya")
+                        .serviceCode("PGR001")
+                        .description("Streetlight not working")
+                        .boundaryCode("WARD1")
+                        .email("citizen@example.com")
+                        .build())
+                .build()).getServices().get(0);
+
+        // then: created against the started workflow instance, with the boundary check pending
+        assertThat(created.getServiceRequestId()).isEqualTo("PGR-SLOW-1");
+        assertThat(created.getWorkflowInstanceId()).isEqualTo("wf-1");
+        assertThat(created.getBoundaryValid()).isNull();
+        CitizenServiceEntity saved = citizenServiceRepository.findByServiceRequestId("PGR-SLOW-1").orElseThrow();
+        assertThat(PendingValidationWorker.isPending(saved)).isTrue();
+        verify(workflowClient).executeTransition(any(WorkflowTransitionRequest.class));
+    }
+}
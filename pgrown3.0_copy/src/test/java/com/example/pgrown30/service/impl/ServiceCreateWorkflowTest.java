@@ -0,0 +1,139 @@
+package com.example.pgrown30.service.impl;
+
+import com.digit.services.idgen.IdGenClient;
+import com.digit.services.idgen.model.GenerateIDResponse;
+import com.digit.services.idgen.model.IdGenGenerateRequest;
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.repository.WorkflowRepository;
+import com.example.pgrown30.service.ServiceConflictException;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Create reads the workflow instance id and state from the transition response, and asks for the
+ * latest instance only when the workflow service left one of them out. It refuses an ID that an
+ * existing request already has.
+ */
+@SpringBootTest(properties = "pgr.notification.outbox.enabled=false")
+@ActiveProfiles("test")
+class ServiceCreateWorkflowTest {
+
+    private static final String FALLBACK_COUNTER = "pgr.workflow.latest_instance.fallback";
+
+    @MockitoBean
+    private IdGenClient idGenClient;
+
+    @MockitoBean
+    private WorkflowRepository workflowRepository;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+        when(idGenClient.generateId(any(IdGenGenerateRequest.class))).thenReturn(new GenerateIDResponse("PGR-WF-1"));
+    }
+
+    @Test
+    void testCompleteTransitionResponseNeedsNoInstanceLookup() {
+        // given
+        transitionAnswers(Map.of("id", "wf-1", "currentState", "INITIATED"));
+        double fallbacksBefore = fallbacks();
+
+        // when
+        CitizenService created = create();
+
+        // then
+        assertThat(created.getWorkflowInstanceId()).isEqualTo("wf-1");
+        assertThat(created.getApplicationStatus()).isEqualTo("INITIATED");
+        verify(workflowRepository, never()).getLatestInstance(anyString(), anyString(), anyString());
+        assertThat(fallbacks()).isEqualTo(fallbacksBefore);
+    }
+
+    @Test
+    void testTransitionResponseWithoutStateFallsBackToLatestInstance() {
+        // given: the id is nested under data and the state is missing
+        transitionAnswers(Map.of("data", Map.of("id", "wf-2")));
+        when(workflowRepository.getLatestInstance(eq("pg.citya"), anyString(), eq("PGR-WF-1")))
+                .thenReturn(Map.of("id", "wf-2", "currentState", "IN_PROGRESS"));
+        double fallbacksBefore = fallbacks();
+
+        // when
+        CitizenService created = create();
+
+        // then
+        assertThat(created.getWorkflowInstanceId()).isEqualTo("wf-2");
+        assertThat(created.getApplicationStatus()).isEqualTo("IN_PROGRESS");
+        verify(workflowRepository).getLatestInstance(eq("pg.citya"), anyString(), eq("PGR-WF-1"));
+        assertThat(fallbacks()).isEqualTo(fallbacksBefore + 1);
+    }
+
+    @Test
+    void testCreateWithIdOfAnEarlierRequestConflicts() {
+        // given: IdGen hands out an ID already used by a request from an earlier month
+        citizenServiceRepository.save(CitizenServiceEntity.builder()
+                .serviceRequestId("PGR-WF-1")
+                .tenantId("pg.citya")
+                .serviceCode("PGR001")
+                .applicationStatus(Status.INITIATED)
+                .createdTime(System.currentTimeMillis() - Duration.ofDays(40).toMillis())
+                .build());
+        transitionAnswers(Map.of("id", "wf-3", "currentState", "INITIATED"));
+
+        // when / then
+        assertThatThrownBy(this::create).isInstanceOf(ServiceConflictException.class);
+        assertThat(citizenServiceRepository.count()).isEqualTo(1);
+    }
+
+    private void transitionAnswers(Map<String, Object> response) {
+        when(workflowRepository.transition(eq("pg.citya"), anyString(), anyString(), eq("PGR-WF-1"),
+                eq("APPLY"), anyString(), anyMap())).thenReturn(response);
+    }
+
+    private CitizenService create() {
+        return serviceService.createService(ServiceWrapper.builder()
+                .service(CitizenService.builder()
+                        .tenantId("pg.citya")
+                        .serviceCode("PGR001")
+                        .description("Streetlight not working")
+                        .email("citizen@example.com")
+                        .build())
+                .build()).getServices().get(0);
+    }
+
+    private double fallbacks() {
+        Counter counter = meterRegistry.find(FALLBACK_COUNTER).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
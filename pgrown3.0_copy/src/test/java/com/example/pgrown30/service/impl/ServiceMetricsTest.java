@@ -0,0 +1,89 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.repository.DownstreamMetrics;
+import com.example.pgrown30.repository.DownstreamUnavailableException;
+import com.example.pgrown30.service.ServiceConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ServiceMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ServiceMetrics serviceMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("pgr.slo.create.latency-ms", "50")
+                .withProperty("pgr.slo.create.objective", "0.95");
+        serviceMetrics = new ServiceMetrics(meterRegistry, new DownstreamMetrics(meterRegistry, true, Set.of()), environment, 5);
+    }
+
+    @Test
+    void testIdleWindowIsNotInBreach() {
+        assertThat(gauge("pgr.slo.requests", "create")).isZero();
+        assertThat(gauge("pgr.slo.latency.attainment", "create")).isEqualTo(1.0);
+        assertThat(gauge("pgr.slo.availability", "create")).isEqualTo(1.0);
+        assertThat(gauge("pgr.slo.latency.threshold", "create")).isEqualTo(0.05);
+        assertThat(gauge("pgr.slo.objective", "create")).isEqualTo(0.95);
+    }
+
+    @Test
+    void testSloGaugesFollowOutcomes() {
+        // given: 2 fast successes, 1 slow success, 1 conflict, 1 downstream refusal
+        serviceMetrics.record("create", "pg.citya", () -> "ok");
+        serviceMetrics.record("create", "pg.citya", () -> "ok");
+        serviceMetrics.record("create", "pg.citya", () -> {
+            sleep(80);
+            return "slow";
+        });
+        assertThatThrownBy(() -> serviceMetrics.record("create", "pg.citya", () -> {
+            throw new ServiceConflictException("stale");
+        })).isInstanceOf(ServiceConflictException.class);
+        assertThatThrownBy(() -> serviceMetrics.record("create", "pg.citya", () -> {
+            throw new DownstreamUnavailableException("idgen", "circuit breaker is open", null);
+        })).isInstanceOf(DownstreamUnavailableException.class);
+
+        // then: the conflict counts as served, the refusal does not
+        assertThat(gauge("pgr.slo.requests", "create")).isEqualTo(5);
+        assertThat(gauge("pgr.slo.latency.attainment", "create")).isEqualTo(2.0 / 3);
+        assertThat(gauge("pgr.slo.availability", "create")).isEqualTo(0.8);
+        assertThat(meterRegistry.get("pgr.service.request")
+                .tags("operation", "create", "tenant", "pg.citya", "outcome", "success").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("pgr.service.request")
+                .tags("outcome", "unavailable").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testInvalidArgumentCountsAsClientError() {
+        // when: a malformed search cursor
+        assertThatThrownBy(() -> serviceMetrics.record("search", "pg.citya", () -> {
+            throw new IllegalArgumentException("Invalid pagination cursor: x");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        // then
+        assertThat(meterRegistry.get("pgr.service.request")
+                .tags("operation", "search", "outcome", "client_error").timer().count()).isEqualTo(1);
+        assertThat(gauge("pgr.slo.availability", "search")).isEqualTo(1.0);
+    }
+
+    private double gauge(String name, String operation) {
+        return meterRegistry.get(name).tag("operation", operation).gauge().value();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
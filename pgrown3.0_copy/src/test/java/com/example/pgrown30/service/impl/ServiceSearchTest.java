@@ -0,0 +1,137 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.Pagination;
+import com.example.pgrown30.web.models.ServiceResponse;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset paging of /search and the unpaged /search/stream over the same rows.
+ */
+@SpringBootTest(properties = {"pgr.search.max-page-size=3", "pgr.notification.outbox.enabled=false",
+        "pgr.revalidation.enabled=false"})
+@ActiveProfiles("test")
+class ServiceSearchTest {
+
+    private static final String TENANT = "pg.search";
+    private static final long CREATED = 1_700_000_000_000L;
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+        // Five requests, the three newest created in the same millisecond
+        save("PGR-1", CREATED);
+        save("PGR-2", CREATED + 1);
+        save("PGR-3", CREATED + 2);
+        save("PGR-4", CREATED + 2);
+        save("PGR-5", CREATED + 2);
+        save("OTHER-1", CREATED + 2, "pg.other");
+    }
+
+    @Test
+    void testPageSizeIsCappedAtTheMaximum() {
+        // when
+        ServiceResponse page = serviceService.searchServices(search(100, null));
+
+        // then
+        assertThat(page.getServices()).hasSize(3);
+        assertThat(page.getPagination().getLimit()).isEqualTo(3);
+        assertThat(page.getPagination().getNextCursor()).isNotNull();
+    }
+
+    @Test
+    void testCursorContinuesAcrossEqualCreatedTimes() {
+        // when: pages of two, the first page ends inside the run of equal created times
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ServiceResponse page = serviceService.searchServices(search(2, cursor));
+            page.getServices().forEach(service -> ids.add(service.getServiceRequestId()));
+            cursor = page.getPagination().getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        // then: every request once, newest first, ties by descending ID
+        assertThat(ids).containsExactly("PGR-5", "PGR-4", "PGR-3", "PGR-2", "PGR-1");
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void testLastPageHasNoNextCursor() {
+        // when: exactly the remaining rows
+        ServiceResponse first = serviceService.searchServices(search(3, null));
+        ServiceResponse last = serviceService.searchServices(search(2, first.getPagination().getNextCursor()));
+
+        // then
+        assertThat(last.getServices()).extracting(CitizenService::getServiceRequestId).containsExactly("PGR-2", "PGR-1");
+        assertThat(last.getPagination().getNextCursor()).isNull();
+    }
+
+    @Test
+    void testStreamWritesEveryMatchInSearchOrder() {
+        // given
+        double streamedBefore = streams();
+
+        // when
+        List<String> ids = new ArrayList<>();
+        serviceService.streamServices(search(null, null), service -> ids.add(service.getServiceRequestId()));
+
+        // then: not capped by the page size
+        assertThat(ids).containsExactly("PGR-5", "PGR-4", "PGR-3", "PGR-2", "PGR-1");
+        assertThat(streams()).isEqualTo(streamedBefore + 1);
+    }
+
+    private ServiceWrapper search(Integer limit, String cursor) {
+        return ServiceWrapper.builder()
+                .service(CitizenService.builder().tenantId(TENANT).build())
+                .pagination(Pagination.builder().limit(limit).cursor(cursor).build())
+                .build();
+    }
+
+    private void save(String id, long createdTime) {
+        save(id, createdTime, TENANT);
+    }
+
+    private void save(String id, long createdTime, String tenantId) {
+        citizenServiceRepository.save(CitizenServiceEntity.builder()
+                .serviceRequestId(id)
+                .tenantId(tenantId)
+                .serviceCode("PGR001")
+                .applicationStatus(Status.INITIATED)
+                .createdTime(createdTime)
+                .lastModifiedTime(createdTime)
+                .build());
+    }
+
+    private double streams() {
+        Timer timer = meterRegistry.find("pgr.service.request")
+                .tags("operation", "search_stream", "outcome", "success").timer();
+        return timer != null ? timer.count() : 0;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.example.pgrown30.service.ServiceConflictException;
+import com.example.pgrown30.service.ServiceService;
+import com.example.pgrown30.web.models.CitizenService;
+import com.example.pgrown30.web.models.ServiceWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Updates without a workflow action, boundary or file touch no remote service, so these run
+ * against the H2 test database alone.
+ */
+@SpringBootTest(properties = "pgr.update.conflict-retries=20")
+@ActiveProfiles("test")
+class ServiceUpdateConflictTest {
+
+    private static final String ID = "PGR-VERSION-1";
+
+    @Autowired
+    private ServiceService serviceService;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+        citizenServiceRepository.save(CitizenServiceEntity.builder()
+                .serviceRequestId(ID)
+                .tenantId("pg.citya")
+                .serviceCode("PGR001")
+                .description("Streetlight not working")
+                .applicationStatus(Status.INITIATED)
+                .createdTime(System.currentTimeMillis())
+                .build());
+    }
+
+    @Test
+    void testUpdateWithCurrentVersionIncrementsIt() {
+        // when
+        CitizenService updated = serviceService.updateService(update("Fixed", 0L)).getServices().get(0);
+
+        // then
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(citizenServiceRepository.findByServiceRequestId(ID).orElseThrow().getDescription()).isEqualTo("Fixed");
+    }
+
+    @Test
+    void testUpdateWithStaleVersionIsRejected() {
+        // given
+        serviceService.updateService(update("First", 0L));
+
+        // when / then
+        assertThatThrownBy(() -> serviceService.updateService(update("Second", 0L)))
+                .isInstanceOf(ServiceConflictException.class);
+        assertThat(citizenServiceRepository.findByServiceRequestId(ID).orElseThrow().getDescription()).isEqualTo("First");
+    }
+
+    @Test
+    void testConcurrentBlindUpdatesAreAllApplied() throws Exception {
+        // given
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String description = "Update " + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                return serviceService.updateService(update(description, null));
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // then: none was lost - every update bumped the version once
+        assertThat(citizenServiceRepository.findByServiceRequestId(ID).orElseThrow().getVersion()).isEqualTo(writers);
+    }
+
+    private static ServiceWrapper update(String description, Long version) {
+        CitizenService dto = new CitizenService();
+        dto.setServiceRequestId(ID);
+        dto.setTenantId("pg.citya");
+        dto.setDescription(description);
+        dto.setEmail("citizen@example.com");
+        dto.setVersion(version);
+        return ServiceWrapper.builder().service(dto).build();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.pgrown30.service.impl;
+
+import com.example.pgrown30.repository.DownstreamUnavailableException;
+import com.example.pgrown30.util.RequestContextSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class StagePipelineTest {
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+    }
+
+    @Test
+    void testStageOverDeadlineFailsAndIsInterrupted() throws Exception {
+        // given
+        StagePipeline pipeline = pipeline(100);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        // when
+        CompletableFuture<String> stage = pipeline.stage("workflow", () -> {
+            try {
+                Thread.sleep(10_000);
+                return "late";
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IllegalStateException("interrupted", e);
+            }
+        });
+
+        // then - the caller sees the deadline and the pool thread is given back
+        assertThatThrownBy(() -> pipeline.await(stage))
+                .hasMessageContaining("exceeded deadline of 100 ms")
+                .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.find("pgr.service.stage")
+                .tags("stage", "workflow", "outcome", "failure").timer() != null);
+    }
+
+    @Test
+    void testFailurePropagatesUnwrappedAndSkipsDependentStage() {
+        // given
+        StagePipeline pipeline = pipeline(5_000);
+        AtomicBoolean dependentRan = new AtomicBoolean();
+
+        // when
+        CompletableFuture<String> idStage = pipeline.stage("idgen", () -> {
+            throw new IllegalStateException("IdGen did not return a valid ID");
+        });
+        CompletableFuture<String> workflowStage = pipeline.then(idStage, "workflow", id -> {
+            dependentRan.set(true);
+            return id;
+        });
+
+        // then
+        assertThatThrownBy(() -> pipeline.await(idStage))
+                .isExactlyInstanceOf(IllegalStateException.class)
+                .hasMessage("IdGen did not return a valid ID");
+        assertThatThrownBy(() -> pipeline.await(workflowStage))
+                .isExactlyInstanceOf(IllegalStateException.class);
+        assertThat(dependentRan).isFalse();
+        assertThat(pipeline.timings()).containsKeys("idgen", "total").doesNotContainKey("workflow");
+    }
+
+    @Test
+    void testLateStageCanBeLeftPending() {
+        // given
+        StagePipeline pipeline = pipeline(100);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        CompletableFuture<Boolean> stage = pipeline.stage("boundary", () -> {
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException("interrupted", e);
+            }
+        });
+
+        // then
+        assertThat(pipeline.awaitOrPending(stage, "boundary")).isNull();
+        release.countDown();
+    }
+
+    @Test
+    void testRejectedStageIsUnavailableOrPending() {
+        // given: an executor with no room left
+        StagePipeline pipeline = new StagePipeline("create", "pb.amritsar", task -> {
+            throw new RejectedExecutionException("saturated");
+        }, meterRegistry, 5_000);
+
+        // when
+        CompletableFuture<String> idStage = pipeline.stage("idgen", () -> "PGR-1");
+        CompletableFuture<Boolean> boundaryStage = pipeline.stage("boundary", () -> true);
+
+        // then - a required stage fails as unavailable, an optional one is pending
+        assertThatThrownBy(() -> pipeline.await(idStage))
+                .isInstanceOfSatisfying(DownstreamUnavailableException.class,
+                        e -> assertThat(e.getDownstream()).isEqualTo("idgen"))
+                .hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(pipeline.awaitOrPending(boundaryStage, "boundary")).isNull();
+    }
+
+    @Test
+    void testOtherFailuresAreNotLeftPending() {
+        // given
+        StagePipeline pipeline = pipeline(5_000);
+
+        // when
+        CompletableFuture<Boolean> stage = pipeline.stage("filestore", () -> {
+            throw new IllegalStateException("bug");
+        });
+
+        // then
+        assertThatThrownBy(() -> pipeline.awaitOrPending(stage, "filestore"))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testStagesRunWithCallerHeadersAndMdcFromTheExecutorDecorator() {
+        // given: decorated like pgrTaskExecutor
+        ThreadPoolTaskExecutor decorated = new ThreadPoolTaskExecutor();
+        decorated.setCorePoolSize(1);
+        decorated.setTaskDecorator(RequestContextSnapshot::wrap);
+        decorated.initialize();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-Tenant-ID", "pb.amritsar");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        MDC.put("requestId", "req-1");
+        StagePipeline pipeline = new StagePipeline("create", "pb.amritsar", decorated, meterRegistry, 5_000);
+
+        // when
+        CompletableFuture<String> stage = pipeline.stage("boundary", () ->
+                RequestContextSnapshot.currentHeader("X-Tenant-ID") + "/" + MDC.get("requestId"));
+
+        // then
+        try {
+            assertThat(pipeline.await(stage)).isEqualTo("pb.amritsar/req-1");
+        } finally {
+            decorated.shutdown();
+        }
+    }
+
+    private StagePipeline pipeline(long stageTimeoutMs) {
+        return new StagePipeline("create", "pb.amritsar", executor, meterRegistry, stageTimeoutMs);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.pgrown30.web.controllers;
+
+import com.example.pgrown30.domain.CitizenServiceEntity;
+import com.example.pgrown30.domain.Status;
+import com.example.pgrown30.repository.CitizenServiceRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /search/stream answers NDJSON, one request per line, and refuses a search without a tenant
+ * before the response is committed.
+ */
+@SpringBootTest(properties = {"pgr.notification.outbox.enabled=false", "pgr.revalidation.enabled=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServiceControllerStreamTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CitizenServiceRepository citizenServiceRepository;
+
+    @BeforeEach
+    void setUp() {
+        citizenServiceRepository.deleteAll();
+        for (int i = 1; i <= 3; i++) {
+            citizenServiceRepository.save(CitizenServiceEntity.builder()
+                    .serviceRequestId("PGR-S" + i)
+                    .tenantId("pg.stream")
+                    .serviceCode("PGR001")
+                    .applicationStatus(Status.INITIATED)
+                    .createdTime(1_700_000_000_000L + i)
+                    .lastModifiedTime(1_700_000_000_000L + i)
+                    .build());
+        }
+    }
+
+    @Test
+    void testMatchesAreWrittenOnePerLine() throws Exception {
+        // when
+        MvcResult started = mockMvc.perform(post("/citizen-service/search/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"CitizenService\":{\"tenantId\":\"pg.stream\"}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        // then
+        List<String> ids = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode service = objectMapper.readTree(line);
+            ids.add(service.get("serviceRequestId").asText());
+        }
+        assertThat(body).endsWith("\n");
+        assertThat(ids).containsExactly("PGR-S3", "PGR-S2", "PGR-S1");
+    }
+
+    @Test
+    void testSearchWithoutTenantIsRefused() throws Exception {
+        mockMvc.perform(post("/citizen-service/search/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"CitizenService\":{}}"))
+                .andExpect(status().isBadRequest());
+    }
+}